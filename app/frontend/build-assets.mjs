@@ -0,0 +1,132 @@
+// Bundles, minifies, fingerprints and precompresses the static front end in place.
+//
+//   node build-assets.mjs <classes-dir>
+//
+// <classes-dir> is Maven's output directory after process-resources, i.e. it holds
+// static/ and templates/. Every script, stylesheet and image referenced from an HTML
+// page or Thymeleaf template gets a name-<md5>.ext copy next to the original and the
+// reference is rewritten to it. ES modules are bundled with their imports; classic
+// scripts are only minified so their top-level functions stay global for onclick
+// handlers. Originals are kept so unreferenced paths still resolve. Text assets get
+// .gz and .br siblings that Spring's EncodedResourceResolver serves by Accept-Encoding.
+import { build, transform } from "esbuild";
+import { createHash } from "node:crypto";
+import fs from "node:fs";
+import path from "node:path";
+import { brotliCompressSync, constants, gzipSync } from "node:zlib";
+
+const classesDir = path.resolve(process.argv[2] ?? "../target/classes");
+const staticDir = path.join(classesDir, "static");
+const templatesDir = path.join(classesDir, "templates");
+
+const FINGERPRINTABLE = /\.(js|css|png|jpe?g|gif|svg|ico|webp|woff2?)$/i;
+const COMPRESSIBLE = /\.(js|css|html|svg|json|txt)$/i;
+const FINGERPRINTED = /-[0-9a-f]{32}\.[a-z0-9]+$/i;
+const MIN_COMPRESS_BYTES = 1024;
+
+// src="..." / href="..." / th:src="@{...}" / th:href="@{...}"
+const REFERENCE = /\b((?:th:)?(?:src|href))(\s*=\s*)"(@\{)?([^"{}#?]+)(\}?)"/g;
+
+const walk = (dir) => fs.existsSync(dir)
+  ? fs.readdirSync(dir, { withFileTypes: true }).flatMap((entry) => {
+      const full = path.join(dir, entry.name);
+      return entry.isDirectory() ? walk(full) : [full];
+    })
+  : [];
+
+const md5 = (data) => createHash("md5").update(data).digest("hex");
+const toUrlPath = (file) => "/" + path.relative(staticDir, file).split(path.sep).join("/");
+
+// Same resolution a browser applies: relative to the page, never above the root
+function resolveReference(ref, htmlFile, isTemplate) {
+  if (/^(https?:)?\/\//.test(ref) || ref.startsWith("data:")) return null;
+  const base = isTemplate ? "/" : toUrlPath(htmlFile);
+  const urlPath = new URL(ref, "http://assets" + base).pathname;
+  const file = path.join(staticDir, decodeURIComponent(urlPath));
+  return fs.existsSync(file) && fs.statSync(file).isFile() ? file : null;
+}
+
+async function compile(file) {
+  const source = fs.readFileSync(file, "utf8");
+  if (file.endsWith(".css")) {
+    return (await transform(source, { loader: "css", minify: true })).code;
+  }
+  if (!file.endsWith(".js")) {
+    return fs.readFileSync(file);
+  }
+  if (/^\s*(import|export)\s/m.test(source)) {
+    try {
+      const result = await build({
+        entryPoints: [file], bundle: true, format: "esm", minify: true,
+        write: false, logLevel: "silent", target: "es2020"
+      });
+      return result.outputFiles[0].text;
+    } catch (error) {
+      // Unresolvable imports: keep the module unbundled so it behaves exactly as before
+      console.warn(`[assets] not bundling ${toUrlPath(file)}: ${error.errors?.[0]?.text ?? error.message}`);
+      return (await transform(source, { loader: "js", format: "esm", minify: true })).code;
+    }
+  }
+  // No format set: esbuild leaves top-level names alone, so globals survive
+  return (await transform(source, { loader: "js", minify: true })).code;
+}
+
+const fingerprinted = new Map(); // original file -> url path of its fingerprinted copy
+
+async function fingerprint(file) {
+  if (fingerprinted.has(file)) return fingerprinted.get(file);
+  const output = await compile(file);
+  const ext = path.extname(file);
+  const target = file.slice(0, -ext.length) + "-" + md5(output) + ext;
+  fs.writeFileSync(target, output);
+  fingerprinted.set(file, toUrlPath(target));
+  return toUrlPath(target);
+}
+
+async function rewriteHtml(htmlFile, isTemplate) {
+  const html = fs.readFileSync(htmlFile, "utf8");
+  const replacements = [];
+  for (const match of html.matchAll(REFERENCE)) {
+    const [whole, attr, eq, open = "", ref, close] = match;
+    if (FINGERPRINTED.test(ref) || !FINGERPRINTABLE.test(ref)) continue;
+    const file = resolveReference(ref, htmlFile, isTemplate || open !== "");
+    if (!file) continue;
+    const hashedName = path.posix.basename(await fingerprint(file));
+    const rewritten = ref.slice(0, ref.lastIndexOf("/") + 1) + hashedName;
+    replacements.push([whole, `${attr}${eq}"${open}${rewritten}${close}"`]);
+  }
+  let output = html;
+  for (const [from, to] of replacements) output = output.replace(from, to);
+  if (output !== html) fs.writeFileSync(htmlFile, output);
+}
+
+function precompress(file) {
+  const data = fs.readFileSync(file);
+  if (data.length < MIN_COMPRESS_BYTES) return;
+  const gz = gzipSync(data, { level: 9 });
+  const br = brotliCompressSync(data, {
+    params: { [constants.BROTLI_PARAM_QUALITY]: 11, [constants.BROTLI_PARAM_SIZE_HINT]: data.length }
+  });
+  if (gz.length < data.length) fs.writeFileSync(file + ".gz", gz);
+  if (br.length < data.length) fs.writeFileSync(file + ".br", br);
+}
+
+const htmlPages = walk(staticDir).filter((f) => f.endsWith(".html"));
+const templates = walk(templatesDir).filter((f) => f.endsWith(".html"));
+for (const page of htmlPages) await rewriteHtml(page, false);
+for (const template of templates) await rewriteHtml(template, true);
+
+// Stylesheets and scripts that no page references are still minified in place
+for (const file of walk(staticDir)) {
+  if (/\.(js|css)$/.test(file) && !FINGERPRINTED.test(file) && !fingerprinted.has(file)) {
+    fs.writeFileSync(file, await compile(file));
+  }
+}
+
+for (const file of walk(staticDir)) {
+  if (COMPRESSIBLE.test(file)) precompress(file);
+}
+
+const manifest = Object.fromEntries([...fingerprinted].map(([file, url]) => [toUrlPath(file), url]));
+fs.writeFileSync(path.join(staticDir, "asset-manifest.json"), JSON.stringify(manifest, null, 2));
+console.log(`[assets] fingerprinted ${fingerprinted.size} files`);
@@ -0,0 +1,122 @@
+package com.smartclinic.back_end.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.smartclinic.back_end.DTO.AppointmentDTO;
+import com.smartclinic.back_end.DTO.DoctorListResponse;
+import com.smartclinic.back_end.models.Doctor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Serialization CPU and bytes on the wire for /doctor/get and the patient appointment list.
+// Wire sizes (raw vs gzip) are printed once per trial; the gzip benchmark is the CPU
+// the server.compression threshold trades for them.
+// Run with: mvn -Pjmh compile exec:exec -Djmh.args="ResponseSerializationBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"20", "500"})
+    public int size;
+
+    @Param({"reflective", "blackbird"})
+    public String accessors;
+
+    private ObjectMapper mapper;
+    private List<Doctor> doctors;
+    private Map<String, Object> doctorsMap;
+    private DoctorListResponse doctorsRecord;
+    private List<AppointmentDTO> appointments;
+    private byte[] doctorsJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Same settings Spring Boot applies to its shared mapper
+        mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (accessors.equals("blackbird")) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+
+        doctors = new ArrayList<>(size);
+        appointments = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 6, 9, 0);
+        for (int i = 0; i < size; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setId((long) i);
+            doctor.setName("Doctor " + i);
+            doctor.setSpecialty(i % 2 == 0 ? "Cardiologist" : "Dermatologist");
+            doctor.setEmail("doctor" + i + "@clinic.test");
+            doctor.setPhone("98765" + String.format("%05d", i));
+            doctor.setAvailableTimes(List.of("09:00-10:00", "10:00-11:00", "11:00-12:00", "14:00-15:00"));
+            doctors.add(doctor);
+
+            appointments.add(new AppointmentDTO((long) i, (long) (i % 40), "Doctor " + (i % 40),
+                    7L, "Patient Seven", "patient7@clinic.test", "9876500007", "12 Main Street",
+                    start.plusHours(i), i % 3 == 0 ? 1 : 0));
+        }
+        doctorsMap = new HashMap<>();
+        doctorsMap.put("doctors", doctors);
+        doctorsRecord = new DoctorListResponse(doctors);
+        doctorsJson = mapper.writeValueAsBytes(doctorsRecord);
+
+        byte[] appointmentsJson = mapper.writeValueAsBytes(appointments);
+        System.out.printf("%n[wire] size=%d doctors raw=%d gzip=%d | appointments raw=%d gzip=%d bytes%n",
+                size, doctorsJson.length, gzip(doctorsJson).length,
+                appointmentsJson.length, gzip(appointmentsJson).length);
+    }
+
+    @Benchmark
+    public byte[] doctorsAsMap() throws IOException {
+        return mapper.writeValueAsBytes(doctorsMap);
+    }
+
+    @Benchmark
+    public byte[] doctorsAsRecord() throws IOException {
+        return mapper.writeValueAsBytes(doctorsRecord);
+    }
+
+    @Benchmark
+    public byte[] patientAppointments() throws IOException {
+        return mapper.writeValueAsBytes(appointments);
+    }
+
+    @Benchmark
+    public byte[] gzipDoctors() throws IOException {
+        return gzip(doctorsJson);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,88 @@
+package com.smartclinic.back_end.bench;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Time from process start to the first 200 from GET /doctor/get, which needs the web
+// server, security chain, JPA and a warm enough connection pool: the moment a new node can
+// really take traffic. Needs MySQL running. Not a JMH benchmark; each run is a fresh JVM.
+//
+// Run the same command with and without the fast-startup options and compare, e.g. from app/:
+//   java src/jmh/java/com/smartclinic/back_end/bench/StartupBenchmark.java 5 8080 -- \
+//        java -jar target/smart-clinic-management.jar --spring.profiles.active=prod
+//   java src/jmh/java/com/smartclinic/back_end/bench/StartupBenchmark.java 5 8080 -- \
+//        java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -jar smart-clinic-management.jar --spring.profiles.active=prod
+public class StartupBenchmark {
+
+    private static final long TIMEOUT_MS = 120_000;
+    private static final long POLL_MS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 2 || separator == args.length - 1) {
+            System.err.println("usage: StartupBenchmark <runs> <port> -- <command...>");
+            System.exit(2);
+        }
+        int runs = Integer.parseInt(args[0]);
+        int port = Integer.parseInt(args[1]);
+        List<String> command = new ArrayList<>(Arrays.asList(args).subList(separator + 1, args.length));
+        command.add("--server.port=" + port);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/doctor/get"))
+                .timeout(Duration.ofSeconds(5)).GET().build();
+
+        List<Long> samples = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File("startup-run-" + run + ".log"))
+                    .start();
+            try {
+                long elapsedMs = awaitFirstSuccess(client, request, process, start);
+                samples.add(elapsedMs);
+                System.out.printf("run %d: first 200 from /doctor/get after %d ms%n", run, elapsedMs);
+            } finally {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+
+        Collections.sort(samples);
+        System.out.printf("runs=%d min=%d ms median=%d ms max=%d ms%n",
+                samples.size(), samples.get(0), samples.get(samples.size() / 2), samples.get(samples.size() - 1));
+    }
+
+    private static long awaitFirstSuccess(HttpClient client, HttpRequest request, Process process, long start)
+            throws InterruptedException {
+        while (true) {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + " before serving /doctor/get");
+            }
+            if (elapsedMs > TIMEOUT_MS) {
+                throw new IllegalStateException("No successful /doctor/get within " + TIMEOUT_MS + " ms");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+            } catch (Exception e) {
+                // Not listening yet
+            }
+            Thread.sleep(POLL_MS);
+        }
+    }
+}
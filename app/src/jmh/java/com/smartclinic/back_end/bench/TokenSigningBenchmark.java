@@ -0,0 +1,75 @@
+package com.smartclinic.back_end.bench;
+
+import com.smartclinic.back_end.services.JwtKeyRing;
+import com.smartclinic.back_end.services.TokenRevocationList;
+import com.smartclinic.back_end.services.TokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Sign and verify throughput per algorithm, plus the old build-a-parser-per-call path.
+// Run with: mvn -Pjmh compile exec:exec -Djmh.args="TokenSigningBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class TokenSigningBenchmark {
+
+    private static final String SECRET = "bench-secret-bench-secret-bench-secret-0123";
+
+    @Param({"HS256", "RS256", "ES256"})
+    public String algorithm;
+
+    private JwtKeyRing keyRing;
+    private TokenService tokenService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // Asymmetric modes fall back to a generated key pair when no key location is set
+        // In asymmetric modes the secret keeps a kid of its own; with no jwt.accept-hmac-until it leaves the ring
+        String secretKid = algorithm.startsWith("HS") ? "bench" : "bench-hs";
+        keyRing = new JwtKeyRing(new DefaultResourceLoader(), algorithm, "bench", SECRET, secretKid,
+                List.of(), "", "", "bench", List.of(), "");
+        // Issuing and parsing only consult the in-memory revocation list, never its repository
+        tokenService = new TokenService(keyRing, new TokenRevocationList(null, 15, 10_000, 0.001, 120_000), 15);
+        token = tokenService.generateToken("doctor@clinic.test", "doctor", 42L);
+    }
+
+    @Benchmark
+    public String sign() {
+        return tokenService.generateToken("doctor@clinic.test", "doctor", 42L);
+    }
+
+    @Benchmark
+    public Claims verifyCachedParser() {
+        return tokenService.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims verifyParserPerCall() {
+        return Jwts.parser()
+                .keyLocator(header -> keyRing.verificationKey(((io.jsonwebtoken.JwsHeader) header).getKeyId()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
@@ -0,0 +1,21 @@
+package com.smartclinic.back_end.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One page of a patient's merged timeline. The cursors are the (time, id) keys of the
+// first and last entries and are left out when the page is empty.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AppointmentTimelineResponse(List<AppointmentDTO> appointments,
+                                          Cursor beforeCursor,
+                                          Cursor afterCursor) {
+
+    public record Cursor(LocalDateTime time, Long id) {
+
+        public static Cursor of(AppointmentDTO dto) {
+            return new Cursor(dto.getAppointmentTime(), dto.getId());
+        }
+    }
+}
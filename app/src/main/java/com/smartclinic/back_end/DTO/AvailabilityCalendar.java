@@ -0,0 +1,11 @@
+package com.smartclinic.back_end.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// A doctor's free slots for consecutive days starting at `from`, one bitmap per day.
+// free.get(d) is a hex string whose bit i (least significant first) is set when slots.get(i)
+// is open on from + d days; "0" means nothing is free that day.
+public record AvailabilityCalendar(Long doctorId, LocalDate from, LocalDate to, List<LocalTime> slots, List<String> free) {
+}
@@ -0,0 +1,7 @@
+package com.smartclinic.back_end.DTO;
+
+import java.time.LocalDateTime;
+
+// One open slot in a cross-doctor availability search
+public record AvailableSlot(Long doctorId, String doctorName, String specialty, LocalDateTime time) {
+}
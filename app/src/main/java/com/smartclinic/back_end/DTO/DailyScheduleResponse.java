@@ -0,0 +1,7 @@
+package com.smartclinic.back_end.DTO;
+
+import java.util.List;
+
+// Body of a doctor's daily schedule: {"appointments": [...]}
+public record DailyScheduleResponse(List<ScheduleEntry> appointments) {
+}
@@ -0,0 +1,9 @@
+package com.smartclinic.back_end.DTO;
+
+import com.smartclinic.back_end.models.Doctor;
+
+import java.util.List;
+
+// Body of the doctor directory endpoints: {"doctors": [...]}
+public record DoctorListResponse(List<Doctor> doctors) {
+}
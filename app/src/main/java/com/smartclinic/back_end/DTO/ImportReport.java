@@ -0,0 +1,11 @@
+package com.smartclinic.back_end.DTO;
+
+import java.util.List;
+
+// Outcome of a bulk import. Rows are numbered by input line (the CSV header is line 1);
+// errors lists at most import.max-errors entries, rejected counts all of them.
+public record ImportReport(long received, long imported, long rejected, long elapsedMs, List<RowError> errors) {
+
+    public record RowError(long line, String email, String message) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.smartclinic.back_end.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+// One line of an admin appointment report. period is the day, or the first day of the
+// month for monthly reports; doctorId is left out of rows grouped by specialty.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReportRow(LocalDate period, Long doctorId, String specialty,
+                        long booked, long completed, long cancelled) {
+
+    // Constructor expression for the per-specialty sums in the rollup repositories
+    public ReportRow(LocalDate period, String specialty, Long booked, Long completed, Long cancelled) {
+        this(period, null, specialty, booked, completed, cancelled);
+    }
+}
@@ -0,0 +1,43 @@
+package com.smartclinic.back_end.DTO;
+
+import java.time.LocalDateTime;
+
+// One row of a doctor's daily schedule, as served from the in-memory snapshot.
+public class ScheduleEntry {
+
+    private Long id;
+    private LocalDateTime appointmentTime;
+    private Long patientId;
+    private String patientName;
+    private int status;
+
+    // Constructor (also used by the JPQL constructor expression in AppointmentRepository)
+    public ScheduleEntry(Long id, LocalDateTime appointmentTime, Long patientId, String patientName, int status) {
+        this.id = id;
+        this.appointmentTime = appointmentTime;
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.status = status;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getAppointmentTime() {
+        return appointmentTime;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,56 @@
+package com.smartclinic.back_end.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Small delta pushed to dashboards subscribed to a doctor's day.
+// type is "booked" (slot taken), "released" (slot freed) or "status" (appointment status changed).
+public class SlotEvent {
+
+    private String type;
+    private Long doctorId;
+    private LocalDate date;
+    private LocalTime time;
+    private Long appointmentId;
+    private int status;
+
+    // Constructor
+    public SlotEvent(String type, Long doctorId, LocalDate date, LocalTime time, Long appointmentId, int status) {
+        this.type = type;
+        this.doctorId = doctorId;
+        this.date = date;
+        this.time = time;
+        this.appointmentId = appointmentId;
+        this.status = status;
+    }
+
+    // The same delta without the appointment, for subscribers that may only see which times are taken
+    public SlotEvent timeOnly() {
+        return new SlotEvent(type, doctorId, date, time, null, 0);
+    }
+
+    // Getters
+    public String getType() {
+        return type;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
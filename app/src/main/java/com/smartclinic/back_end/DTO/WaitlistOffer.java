@@ -0,0 +1,8 @@
+package com.smartclinic.back_end.DTO;
+
+import java.time.LocalDateTime;
+
+// Pushed to a waitlisted patient when a freed slot is held for them until expiresAt.
+// Accept with POST /waitlist/{entryId}/accept, or decline to pass it to the next patient.
+public record WaitlistOffer(Long entryId, Long patientId, Long doctorId, LocalDateTime slotTime, LocalDateTime expiresAt) {
+}
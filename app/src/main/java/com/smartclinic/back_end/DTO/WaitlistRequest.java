@@ -0,0 +1,7 @@
+package com.smartclinic.back_end.DTO;
+
+import java.time.LocalDate;
+
+// Body of POST /waitlist: any slot with doctorId between fromDate and toDate (inclusive)
+public record WaitlistRequest(Long doctorId, LocalDate fromDate, LocalDate toDate) {
+}
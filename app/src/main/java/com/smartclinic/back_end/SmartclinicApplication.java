@@ -2,8 +2,10 @@ package com.smartclinic.back_end;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SmartclinicApplication {
     public static void main(String[] args) {
         SpringApplication.run(SmartclinicApplication.class, args);
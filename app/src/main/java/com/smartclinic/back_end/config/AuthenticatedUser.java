@@ -0,0 +1,6 @@
+package com.smartclinic.back_end.config;
+
+// Principal placed in the security context by JwtAuthenticationFilter.
+// id is the admin, doctor or patient primary key; subject is the username or email.
+public record AuthenticatedUser(Long id, String subject, String role) {
+}
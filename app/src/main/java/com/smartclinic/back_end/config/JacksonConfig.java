@@ -0,0 +1,20 @@
+package com.smartclinic.back_end.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Spring Boot registers every Module bean with the shared ObjectMapper.
+// Blackbird replaces reflective getter/setter calls with LambdaMetafactory-generated
+// accessors, which cuts serialization CPU on the large list responses.
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "json.blackbird.enabled", havingValue = "true", matchIfMissing = true)
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
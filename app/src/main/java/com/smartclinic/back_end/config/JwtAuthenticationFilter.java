@@ -0,0 +1,66 @@
+package com.smartclinic.back_end.config;
+
+import com.smartclinic.back_end.services.TokenService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Verifies the bearer token once per request and exposes the caller as an AuthenticatedUser.
+// Role checks are declared in SecurityConfig; requests without a valid token simply stay
+// anonymous and are rejected there if the route needs authentication.
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    // Only the Authorization header is read, event streams included (the browser clients use
+    // fetch rather than EventSource), so tokens never end up in URLs, access logs or history
+    private static final String BEARER = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public JwtAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    // Async results (exports, event streams) are written from a second dispatch, which the
+    // authorization filter checks again; authenticate it from the same token
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String token = resolveToken(request);
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Claims claims = tokenService.parseClaims(token);
+            Object uid = claims != null ? claims.get("uid") : null;
+            String role = claims != null ? claims.get("role", String.class) : null;
+            if (uid instanceof Number && role != null) {
+                AuthenticatedUser user = new AuthenticatedUser(((Number) uid).longValue(), claims.getSubject(), role);
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        user, null, List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private String resolveToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            return header.substring(BEARER.length()).trim();
+        }
+        return null;
+    }
+}
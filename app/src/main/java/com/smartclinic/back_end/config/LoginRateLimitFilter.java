@@ -0,0 +1,148 @@
+package com.smartclinic.back_end.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartclinic.back_end.services.RateLimitStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+// Throttles login attempts per client IP and per account before any credential lookup happens.
+// Registered by RateLimitConfig ahead of the Spring Security filter chain, for login URLs only.
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    // Login bodies are tiny; anything bigger is not a legitimate login
+    private static final int MAX_BODY_BYTES = 4096;
+
+    private final RateLimitStore store;
+    private final ObjectMapper objectMapper;
+    private final RateLimitConfig.Limits limits;
+
+    public LoginRateLimitFilter(RateLimitStore store, ObjectMapper objectMapper, RateLimitConfig.Limits limits) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.limits = limits;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equalsIgnoreCase(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        long retryAfterMs = store.tryAcquire("ip:" + clientIp(request), limits.ipCapacity(), limits.ipPeriodSeconds());
+
+        HttpServletRequest forwarded = request;
+        if (retryAfterMs == 0) {
+            String account;
+            if (MediaType.APPLICATION_JSON.isCompatibleWith(contentType(request))) {
+                CachedBodyRequest cached = new CachedBodyRequest(request);
+                forwarded = cached;
+                account = accountFromJson(cached.body);
+            } else {
+                account = request.getParameter("email");
+            }
+            if (account != null && !account.isBlank()) {
+                retryAfterMs = store.tryAcquire("account:" + account.trim().toLowerCase(),
+                        limits.accountCapacity(), limits.accountPeriodSeconds());
+            }
+        }
+
+        if (retryAfterMs > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf((retryAfterMs + 999) / 1000));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Too many login attempts, please try again later\"}");
+            return;
+        }
+        chain.doFilter(forwarded, response);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (limits.trustForwardedFor()) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                return forwardedFor.split(",")[0].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private String accountFromJson(byte[] body) {
+        try {
+            JsonNode node = objectMapper.readTree(body);
+            if (node == null) return null;
+            JsonNode email = node.has("email") ? node.get("email") : node.get("username");
+            return email != null && email.isTextual() ? email.asText() : null;
+        } catch (IOException e) {
+            // Malformed JSON is rejected by the controller; only the IP limit applies
+            return null;
+        }
+    }
+
+    private static MediaType contentType(HttpServletRequest request) {
+        try {
+            return request.getContentType() != null ? MediaType.parseMediaType(request.getContentType()) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Buffers the request body so it can be inspected here and read again by the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readNBytes(MAX_BODY_BYTES);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartclinic.back_end.config;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+// Creates the prescriptions collection with the configured WiredTiger block compressor.
+// Compression can only be chosen when a collection is created, so an existing
+// collection is left untouched and has to be rebuilt (e.g. dump/restore) to switch.
+@Configuration
+public class PrescriptionStorageConfig implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrescriptionStorageConfig.class);
+    private static final String COLLECTION = "prescriptions";
+
+    private final MongoTemplate mongoTemplate;
+
+    // One of none, snappy, zlib or zstd; blank keeps the server default
+    @Value("${prescription.storage.block-compressor:}")
+    private String blockCompressor;
+
+    public PrescriptionStorageConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        createCompressedCollection();
+        ensureAppointmentIndex();
+    }
+
+    private void createCompressedCollection() {
+        if (blockCompressor == null || blockCompressor.isBlank()) return;
+        try {
+            if (mongoTemplate.collectionExists(COLLECTION)) {
+                logger.info("Collection '{}' already exists; block compressor '{}' not applied", COLLECTION, blockCompressor);
+                return;
+            }
+            Document command = new Document("create", COLLECTION)
+                    .append("storageEngine", new Document("wiredTiger",
+                            new Document("configString", "block_compressor=" + blockCompressor.trim())));
+            mongoTemplate.executeCommand(command);
+            logger.info("Created collection '{}' with block compressor '{}'", COLLECTION, blockCompressor);
+        } catch (Exception e) {
+            // Mongo being unavailable at boot must not stop the MySQL-backed endpoints
+            logger.error("Could not create collection '{}' with compression", COLLECTION, e);
+        }
+    }
+
+    // The outbox relay upserts by appointment_id; the unique index keeps two relays from
+    // inserting the same prescription twice. Fails harmlessly if legacy duplicates exist.
+    private void ensureAppointmentIndex() {
+        try {
+            mongoTemplate.indexOps(COLLECTION)
+                    .ensureIndex(new Index("appointment_id", Sort.Direction.ASC).unique().named("uk_appointment_id"));
+        } catch (Exception e) {
+            logger.error("Could not create unique appointment_id index on '{}'", COLLECTION, e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartclinic.back_end.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartclinic.back_end.services.JdbcRateLimitStore;
+import com.smartclinic.back_end.services.LocalRateLimitStore;
+import com.smartclinic.back_end.services.RateLimitStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// security.rate-limit.enabled and security.rate-limit.store are read when the beans are created
+// instead of through @ConditionalOnProperty, which AOT processing (fast-startup profile) would
+// evaluate once at build time and freeze into the jar.
+@Configuration
+public class RateLimitConfig {
+
+    public record Limits(int ipCapacity, long ipPeriodSeconds,
+                         int accountCapacity, long accountPeriodSeconds,
+                         boolean trustForwardedFor) {
+    }
+
+    // local: buckets in this JVM; shared: fixed-window counts in MySQL, for several nodes
+    @Bean
+    public RateLimitStore rateLimitStore(JdbcTemplate jdbcTemplate,
+                                         @Value("${security.rate-limit.store:local}") String store,
+                                         @Value("${security.rate-limit.max-keys:100000}") int maxKeys) {
+        switch (store) {
+            case "local":
+                return new LocalRateLimitStore(maxKeys);
+            case "shared":
+                JdbcRateLimitStore shared = new JdbcRateLimitStore(jdbcTemplate);
+                shared.init();
+                return shared;
+            default:
+                throw new IllegalStateException("Unknown security.rate-limit.store: " + store);
+        }
+    }
+
+    @Bean
+    public FilterRegistrationBean<LoginRateLimitFilter> loginRateLimitFilter(
+            RateLimitStore store,
+            ObjectMapper objectMapper,
+            @Value("${security.rate-limit.enabled:true}") boolean enabled,
+            @Value("${api.path}") String apiPath,
+            @Value("${security.rate-limit.ip.capacity:20}") int ipCapacity,
+            @Value("${security.rate-limit.ip.period-seconds:60}") long ipPeriodSeconds,
+            @Value("${security.rate-limit.account.capacity:5}") int accountCapacity,
+            @Value("${security.rate-limit.account.period-seconds:60}") long accountPeriodSeconds,
+            @Value("${security.rate-limit.trust-forwarded-for:false}") boolean trustForwardedFor) {
+
+        Limits limits = new Limits(ipCapacity, ipPeriodSeconds, accountCapacity, accountPeriodSeconds, trustForwardedFor);
+        FilterRegistrationBean<LoginRateLimitFilter> registration =
+                new FilterRegistrationBean<>(new LoginRateLimitFilter(store, objectMapper, limits));
+        registration.addUrlPatterns(
+                apiPath + "admin/login",
+                apiPath + "doctor/login",
+                "/patient/login",
+                "/api/login");
+        // Run before the Spring Security chain so throttled requests never reach authentication
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
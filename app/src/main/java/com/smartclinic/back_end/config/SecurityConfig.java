@@ -1,17 +1,29 @@
 package com.smartclinic.back_end.config;
 
+import com.smartclinic.back_end.services.TokenService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 public class SecurityConfig {
 
    @Bean
-public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                               TokenService tokenService,
+                                               @Value("${api.path}") String api) throws Exception {
     http
         .csrf(csrf -> csrf.disable())
+        // REST calls carry a bearer token; nothing is kept in the HTTP session for them
+        .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .addFilterBefore(new JwtAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
         .authorizeHttpRequests(auth -> auth
             .requestMatchers(
                 "/",
@@ -25,10 +37,31 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
     "/images/**",
     "/adminDashboard/**",   // ✅ MUST BE HERE
     "/doctorDashboard/**",  // ✅ Also include if needed
-    "/defineRole.html"
+    "/patientDashboard/**",
+    "/defineRole.html",
+    "/error",
+    "/actuator/health/**",
+    "/.well-known/jwks.json"
             ).permitAll()
+            // Logins, registration and the public doctor directory
+            .requestMatchers(HttpMethod.POST, api + "admin/login", api + "doctor/login", "/patient/login", "/patient/create").permitAll()
+            .requestMatchers(HttpMethod.GET, api + "doctor/get", api + "doctor/filter/**").permitAll()
+            .requestMatchers(HttpMethod.POST, api + "token/refresh", api + "token/logout").permitAll()
+            // Admin
+            .requestMatchers(api + "admin/**", api + "doctor/save", api + "doctor/update", api + "doctor/delete/**").hasRole("ADMIN")
+            .requestMatchers("/actuator/**").hasRole("ADMIN")
+            // Doctor
+            .requestMatchers(api + "prescription/**").hasRole("DOCTOR")
+            .requestMatchers(HttpMethod.GET, "/appointments/stream/**").hasAnyRole("DOCTOR", "ADMIN", "PATIENT")
+            .requestMatchers(HttpMethod.GET, "/appointments/*/*").hasRole("DOCTOR")
+            // Patient
+            .requestMatchers("/appointments/book", "/appointments/update", "/appointments/cancel/**").hasRole("PATIENT")
+            .requestMatchers("/waitlist", "/waitlist/**").hasRole("PATIENT")
+            .requestMatchers("/patient/appointments/**").hasAnyRole("PATIENT", "DOCTOR")
+            .requestMatchers("/patient/**").hasRole("PATIENT")
             .anyRequest().authenticated()
-        ) .httpBasic(httpBasic -> {});
+        )
+        .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
         /* .formLogin(form -> form
             .loginPage("/login") // loads templates/login.html
             .permitAll()
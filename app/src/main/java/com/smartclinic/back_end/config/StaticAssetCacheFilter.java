@@ -0,0 +1,38 @@
+package com.smartclinic.back_end.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+// Cache headers for /js and /assets. URLs carrying a content hash (written by
+// frontend/build-assets.mjs, e.g. /js/adminDashboard-<md5>.js) never change, so browsers may keep
+// them for a year; plain URLs, such as modules imported by relative path, must be
+// revalidated with Last-Modified on every use.
+public class StaticAssetCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern FINGERPRINTED = Pattern.compile(".*-[0-9a-f]{32}\\.[A-Za-z0-9]+$");
+
+    private final String immutable = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue();
+    private final String revalidate = CacheControl.noCache().cachePublic().getHeaderValue();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(path.startsWith("/js/") || path.startsWith("/assets/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean fingerprinted = FINGERPRINTED.matcher(request.getRequestURI()).matches();
+        response.setHeader("Cache-Control", fingerprinted ? immutable : revalidate);
+        chain.doFilter(request, response);
+    }
+}
@@ -1,9 +1,11 @@
 package com.smartclinic.back_end.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -17,10 +19,14 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*");
     }
 
-    // ✅ Static resource handler for /pages/
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/pages/**")
-                .addResourceLocations("classpath:/pages/");
+    // Long-lived caching for assets fingerprinted by the frontend build (prod profile).
+    // Always registered and switched on or off at run time, so an AOT-built jar still honours the flag.
+    @Bean
+    public FilterRegistrationBean<StaticAssetCacheFilter> staticAssetCacheFilter(
+            @Value("${static-assets.cache-headers.enabled:false}") boolean enabled) {
+        FilterRegistrationBean<StaticAssetCacheFilter> registration = new FilterRegistrationBean<>(new StaticAssetCacheFilter());
+        registration.addUrlPatterns("/js/*", "/assets/*");
+        registration.setEnabled(enabled);
+        return registration;
     }
 }
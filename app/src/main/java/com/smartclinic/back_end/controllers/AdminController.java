@@ -1,13 +1,33 @@
 
 package com.smartclinic.back_end.controllers;
 
+import com.smartclinic.back_end.DTO.ImportReport;
+import com.smartclinic.back_end.DTO.ReportRow;
 import com.smartclinic.back_end.models.Admin;
+import com.smartclinic.back_end.services.AppointmentExportService;
+import com.smartclinic.back_end.services.BulkImportService;
+import com.smartclinic.back_end.services.ReportingService;
 import com.smartclinic.back_end.services.Services;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 // Add this import if Login class exists in models package
 import com.smartclinic.back_end.DTO.Login;
@@ -34,9 +54,19 @@ public class AdminController {
 //    - Delegates authentication logic to the `validateAdmin` method in the service layer.
 //    - Returns a `ResponseEntity` with a `Map` containing login status or messages.
 private final Services service;
+    private final ReportingService reportingService;
+    private final AppointmentExportService exportService;
+    private final BulkImportService importService;
 
-    public AdminController(Services service) {
+    @Value("${reporting.daily.max-days:366}")
+    private long maxReportDays;
+
+    public AdminController(Services service, ReportingService reportingService,
+                           AppointmentExportService exportService, BulkImportService importService) {
         this.service = service;
+        this.reportingService = reportingService;
+        this.exportService = exportService;
+        this.importService = importService;
     }
 
     // POST /api/admin/login
@@ -45,6 +75,117 @@ private final Services service;
         return service.validateAdmin(login);
     }
 
+    // GET /admin/reports/daily?from=2025-01-01&to=2025-01-31&groupBy=doctor|specialty
+    @GetMapping("/reports/daily")
+    public ResponseEntity<Map<String, Object>> dailyReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "doctor") String groupBy) {
+        Map<String, Object> response = new HashMap<>();
+        if (to.isBefore(from) || to.toEpochDay() - from.toEpochDay() >= maxReportDays) {
+            response.put("message", "Date range must be ordered and at most " + maxReportDays + " days.");
+            return ResponseEntity.badRequest().body(response);
+        }
+        List<ReportRow> rows = reportingService.dailyReport(from, to, "specialty".equalsIgnoreCase(groupBy));
+        response.put("rows", rows);
+        return ResponseEntity.ok(response);
+    }
 
-}
+    // GET /admin/reports/monthly/2025-01?groupBy=doctor|specialty
+    @GetMapping("/reports/monthly/{month}")
+    public ResponseEntity<Map<String, Object>> monthlyReport(@PathVariable String month,
+                                                             @RequestParam(defaultValue = "doctor") String groupBy) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<ReportRow> rows = reportingService.monthlyReport(YearMonth.parse(month),
+                    "specialty".equalsIgnoreCase(groupBy));
+            response.put("rows", rows);
+            return ResponseEntity.ok(response);
+        } catch (DateTimeParseException e) {
+            response.put("message", "Month must be formatted as yyyy-MM.");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // POST /admin/reports/rebuild/2025-01?recount=true
+    // recount=true first recounts the month's daily rows from the appointment table
+    @PostMapping("/reports/rebuild/{month}")
+    public ResponseEntity<Map<String, Object>> rebuildMonth(@PathVariable String month,
+                                                            @RequestParam(defaultValue = "false") boolean recount) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int doctors = reportingService.rebuildMonth(YearMonth.parse(month), recount);
+            response.put("message", "Monthly report rebuilt.");
+            response.put("doctors", doctors);
+            return ResponseEntity.ok(response);
+        } catch (DateTimeParseException e) {
+            response.put("message", "Month must be formatted as yyyy-MM.");
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("message", "Error while rebuilding report: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
 
+    // GET /admin/export/appointments?format=csv|ndjson&from=2025-01-01&to=2025-12-31
+    // Streams a gzip file; from and to are optional and inclusive
+    @GetMapping("/export/appointments")
+    public WebAsyncTask<Void> exportAppointments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse response) {
+        AppointmentExportService.Format exportFormat;
+        try {
+            exportFormat = AppointmentExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format must be csv or ndjson.");
+        }
+        return exportService.exportTask(exportFormat, from, to, response);
+    }
+
+    // POST /admin/import/doctors?format=csv|ndjson, POST /admin/import/patients?format=...
+    // The request body is the file itself, optionally sent with Content-Encoding: gzip
+    @PostMapping("/import/{entity}")
+    public ResponseEntity<Map<String, Object>> bulkImport(@PathVariable String entity,
+                                                          @RequestParam(defaultValue = "csv") String format,
+                                                          HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        BulkImportService.Format importFormat;
+        try {
+            importFormat = BulkImportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.put("message", "Format must be csv or ndjson.");
+            return ResponseEntity.badRequest().body(response);
+        }
+        try (InputStream body = "gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))
+                ? new GZIPInputStream(request.getInputStream(), 65536) : request.getInputStream()) {
+            ImportReport report;
+            if (entity.equals("doctors")) {
+                report = importService.importDoctors(body, importFormat);
+            } else if (entity.equals("patients")) {
+                report = importService.importPatients(body, importFormat);
+            } else {
+                response.put("message", "Unknown import type: " + entity);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("message", "Import finished.");
+            response.put("report", report);
+            return ResponseEntity.ok(response);
+        } catch (BulkImportService.ImportBusyException e) {
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (IOException e) {
+            response.put("message", "Could not read the import file: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // The export pool and its queue are full
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Map<String, Object>> exportBusy(TaskRejectedException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Too many exports running, please retry later.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").body(response);
+    }
+}
@@ -1,11 +1,19 @@
 package com.smartclinic.back_end.controllers;
 
+import com.smartclinic.back_end.DTO.DailyScheduleResponse;
+import com.smartclinic.back_end.DTO.ScheduleEntry;
+import com.smartclinic.back_end.config.AuthenticatedUser;
 import com.smartclinic.back_end.models.Appointment;
+import com.smartclinic.back_end.models.Patient;
 import com.smartclinic.back_end.services.AppointmentService;
+import com.smartclinic.back_end.services.SlotEventBus;
 import com.smartclinic.back_end.services.Services;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
@@ -26,135 +34,107 @@ public class AppointmentController {
 
 // 3. Define the `getAppointments` Method:
 //    - Handles HTTP GET requests to fetch appointments based on date and patient name.
-//    - Takes the appointment date, patient name, and token as path variables.
-//    - First validates the token for role `"doctor"` using the `Service`.
-//    - If the token is valid, returns appointments for the given patient on the specified date.
-//    - If the token is invalid or expired, responds with the appropriate message and status code.
+//    - Takes the appointment date and patient name as path variables; the doctor comes from the bearer token.
+//    - Role checks are declared in `SecurityConfig`, so an invalid or expired token never reaches this method.
+//    - Returns appointments for the given patient on the specified date.
 
 
 // 4. Define the `bookAppointment` Method:
 //    - Handles HTTP POST requests to create a new appointment.
-//    - Accepts a validated `Appointment` object in the request body and a token as a path variable.
-//    - Validates the token for the `"patient"` role.
+//    - Accepts a validated `Appointment` object in the request body; the patient is taken from the bearer token.
 //    - Uses service logic to validate the appointment data (e.g., check for doctor availability and time conflicts).
 //    - Returns success if booked, or appropriate error messages if the doctor ID is invalid or the slot is already taken.
 
 
 // 5. Define the `updateAppointment` Method:
 //    - Handles HTTP PUT requests to modify an existing appointment.
-//    - Accepts a validated `Appointment` object and a token as input.
-//    - Validates the token for `"patient"` role.
+//    - Accepts a validated `Appointment` object; only the patient who owns it may change it.
 //    - Delegates the update logic to the `AppointmentService`.
 //    - Returns an appropriate success or failure response based on the update result.
 
 
 // 6. Define the `cancelAppointment` Method:
 //    - Handles HTTP DELETE requests to cancel a specific appointment.
-//    - Accepts the appointment ID and a token as path variables.
-//    - Validates the token for `"patient"` role to ensure the user is authorized to cancel the appointment.
+//    - Accepts the appointment ID as a path variable; the patient id from the bearer token must own the appointment.
 //    - Calls `AppointmentService` to handle the cancellation process and returns the result.
 
  private final AppointmentService appointmentService;
     private final Services service;
+    private final SlotEventBus slotEventBus;
 
     @Autowired
-    public AppointmentController(AppointmentService appointmentService, Services service) {
+    public AppointmentController(AppointmentService appointmentService, Services service, SlotEventBus slotEventBus) {
         this.appointmentService = appointmentService;
         this.service = service;
+        this.slotEventBus = slotEventBus;
     }
 
-    // GET /appointments/{date}/{name}/{token}
-    @GetMapping("/{date}/{name}/{token}")
-    public ResponseEntity<Map<String, Object>> getAppointments(@PathVariable String date,
-                                                               @PathVariable String name,
-                                                               @PathVariable String token) {
-        Object validationObj = service.validateToken(token, "doctor");
-        Map<String, Object> validation;
-        if (validationObj instanceof ResponseEntity) {
-            // If validateToken returns a ResponseEntity, extract the body
-            validation = ((ResponseEntity<Map<String, Object>>) validationObj).getBody();
-        } else {
-            validation = (Map<String, Object>) validationObj;
-        }
-        if (!(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
-
-        // Example: parse doctorId from name or another source, and parse date to LocalDateTime
-        Long doctorId = null; // You need to determine how to get doctorId (e.g., from name or another parameter)
-        String patientName = name;
-        java.time.LocalDateTime startDateTime = java.time.LocalDate.parse(date).atStartOfDay();
-        java.time.LocalDateTime endDateTime = startDateTime.plusDays(1).minusSeconds(1);
-
-        java.util.List<Appointment> appointments = appointmentService.getAppointments(doctorId, patientName, startDateTime, endDateTime);
-        java.util.Map<String, Object> response = new java.util.HashMap<>();
-        response.put("appointments", appointments);
-        return ResponseEntity.ok(response);
+    // GET /appointments/{date}/{name}
+    @GetMapping("/{date}/{name}")
+    public ResponseEntity<DailyScheduleResponse> getAppointments(@PathVariable String date,
+                                                                 @PathVariable String name,
+                                                                 @AuthenticationPrincipal AuthenticatedUser user) {
+        java.util.List<ScheduleEntry> appointments = appointmentService.getDailySchedule(
+                user.id(), java.time.LocalDate.parse(date), name);
+        return ResponseEntity.ok(new DailyScheduleResponse(appointments));
     }
 
-    // POST /appointments/book/{token}
-    @PostMapping("/book/{token}")
+    // POST /appointments/book
+    @PostMapping("/book")
     public ResponseEntity<Map<String, Object>> bookAppointment(@RequestBody Appointment appointment,
-                                                               @PathVariable String token) {
-        Object validationObj = service.validateToken(token, "patient");
-        Map<String, Object> validation;
-        if (validationObj instanceof ResponseEntity) {
-            validation = ((ResponseEntity<Map<String, Object>>) validationObj).getBody();
-        } else {
-            validation = (Map<String, Object>) validationObj;
-        }
-        if (!(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
-
+                                                               @AuthenticationPrincipal AuthenticatedUser user) {
+        // Patients always book for themselves, whatever the body says
+        appointment.setPatient(patientRef(user));
         Integer result = appointmentService.bookAppointment(appointment);
         Map<String, Object> response = new java.util.HashMap<>();
         response.put("result", result);
         return ResponseEntity.ok(response);
     }
 
-    // PUT /appointments/update/{token}
-    @PutMapping("/update/{token}")
+    // PUT /appointments/update
+    @PutMapping("/update")
     public ResponseEntity<Map<String, Object>> updateAppointment(@RequestBody Appointment appointment,
-                                                                 @PathVariable String token) {
-        Object validationObj = service.validateToken(token, "patient");
-        Map<String, Object> validation;
-        if (validationObj instanceof ResponseEntity) {
-            validation = ((ResponseEntity<Map<String, Object>>) validationObj).getBody();
-        } else {
-            validation = (Map<String, Object>) validationObj;
-        }
-        if (!(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
-
+                                                                 @AuthenticationPrincipal AuthenticatedUser user) {
+        appointment.setPatient(patientRef(user));
         String updateResult = appointmentService.updateAppointment(appointment);
         Map<String, Object> response = new java.util.HashMap<>();
         response.put("message", updateResult);
         return ResponseEntity.ok(response);
     }
 
-    // DELETE /appointments/cancel/{appointmentId}/{token}
-    @DeleteMapping("/cancel/{appointmentId}/{token}")
+    // DELETE /appointments/cancel/{appointmentId}
+    @DeleteMapping("/cancel/{appointmentId}")
     public ResponseEntity<Map<String, Object>> cancelAppointment(@PathVariable Long appointmentId,
-                                                                 @PathVariable String token) {
-        Object validationObj = service.validateToken(token, "patient");
-        Map<String, Object> validation;
-        if (validationObj instanceof ResponseEntity) {
-            validation = ((ResponseEntity<Map<String, Object>>) validationObj).getBody();
-        } else {
-            validation = (Map<String, Object>) validationObj;
-        }
-        if (!(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
-
-        // Assuming the patientId is available in the validation map after token validation
-        Long patientId = validation.get("userId") != null ? Long.valueOf(validation.get("userId").toString()) : null;
-        String cancelResult = appointmentService.cancelAppointment(appointmentId, patientId);
+                                                                 @AuthenticationPrincipal AuthenticatedUser user) {
+        String cancelResult = appointmentService.cancelAppointment(appointmentId, user.id());
         Map<String, Object> response = new java.util.HashMap<>();
         response.put("message", cancelResult);
         return ResponseEntity.ok(response);
     }
 
+    // GET /appointments/stream/{doctorId}/{date}
+    // Server-sent events with slot deltas for one doctor's day, replacing dashboard re-fetches.
+    // Like the daily schedule, the full stream is for the doctor themselves (and admins); patients
+    // choosing a slot only get which times were taken or freed, as /doctor/availability shows.
+    @GetMapping(value = "/stream/{doctorId}/{date}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSlotEvents(@PathVariable Long doctorId,
+                                                       @PathVariable String date,
+                                                       @AuthenticationPrincipal AuthenticatedUser user) {
+        if ("doctor".equals(user.role()) && !doctorId.equals(user.id())) {
+            return ResponseEntity.status(403).build();
+        }
+        boolean timeOnly = "patient".equals(user.role());
+        SseEmitter emitter = slotEventBus.subscribe(doctorId, java.time.LocalDate.parse(date), timeOnly);
+        if (emitter == null) {
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    private static Patient patientRef(AuthenticatedUser user) {
+        Patient patient = new Patient();
+        patient.setId(user.id());
+        return patient;
+    }
+
 }
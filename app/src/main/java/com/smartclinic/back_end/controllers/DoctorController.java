@@ -1,15 +1,25 @@
 package com.smartclinic.back_end.controllers;
 
 import com.smartclinic.back_end.models.Doctor;
+import com.smartclinic.back_end.DTO.AvailabilityCalendar;
+import com.smartclinic.back_end.DTO.AvailableSlot;
+import com.smartclinic.back_end.DTO.DoctorListResponse;
 import com.smartclinic.back_end.DTO.Login;
+import com.smartclinic.back_end.services.AvailabilityService;
 import com.smartclinic.back_end.services.DoctorService;
 import com.smartclinic.back_end.services.Services;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("${api.path}doctor")
@@ -24,25 +34,23 @@ public class DoctorController {
 
 // 2. Autowire Dependencies:
 //    - Inject `DoctorService` for handling the core logic related to doctors (e.g., CRUD operations, authentication).
-//    - Inject the shared `Service` class for general-purpose features like token validation and filtering.
+//    - Inject the shared `Service` class for general-purpose features like filtering.
 
 
 // 3. Define the `getDoctorAvailability` Method:
 //    - Handles HTTP GET requests to check a specific doctor’s availability on a given date.
-//    - Requires `user` type, `doctorId`, `date`, and `token` as path variables.
-//    - First validates the token against the user type.
-//    - If the token is invalid, returns an error response; otherwise, returns the availability status for the doctor.
+//    - Requires `doctorId` and `date` as path variables; any signed-in user may call it.
+//    - Returns the availability status for the doctor.
 
 
 // 4. Define the `getDoctor` Method:
 //    - Handles HTTP GET requests to retrieve a list of all doctors.
-//    - Returns the list within a response map under the key `"doctors"` with HTTP 200 OK status.
+//    - Returns the list as a `DoctorListResponse` (JSON key `"doctors"`) with HTTP 200 OK status.
 
 
 // 5. Define the `saveDoctor` Method:
 //    - Handles HTTP POST requests to register a new doctor.
-//    - Accepts a validated `Doctor` object in the request body and a token for authorization.
-//    - Validates the token for the `"admin"` role before proceeding.
+//    - Accepts a validated `Doctor` object in the request body; the `"admin"` role is enforced by `SecurityConfig`.
 //    - If the doctor already exists, returns a conflict response; otherwise, adds the doctor and returns a success message.
 
 
@@ -54,14 +62,13 @@ public class DoctorController {
 
 // 7. Define the `updateDoctor` Method:
 //    - Handles HTTP PUT requests to update an existing doctor's information.
-//    - Accepts a validated `Doctor` object and a token for authorization.
-//    - Token must belong to an `"admin"`.
+//    - Accepts a validated `Doctor` object; the bearer token must belong to an `"admin"`.
 //    - If the doctor exists, updates the record and returns success; otherwise, returns not found or error messages.
 
 
 // 8. Define the `deleteDoctor` Method:
 //    - Handles HTTP DELETE requests to remove a doctor by ID.
-//    - Requires both doctor ID and an admin token as path variables.
+//    - Takes the doctor ID as a path variable; the admin role is enforced by `SecurityConfig`.
 //    - If the doctor exists, deletes the record and returns a success message; otherwise, responds with a not found or error message.
 
 
@@ -72,26 +79,23 @@ public class DoctorController {
 
  private final DoctorService doctorService;
     private final Services service;
+    private final AvailabilityService availabilityService;
+
+    @Value("${doctor.directory.max-age-seconds:60}")
+    private long directoryMaxAgeSeconds;
 
     @Autowired
-    public DoctorController(DoctorService doctorService, Services service) {
+    public DoctorController(DoctorService doctorService, Services service, AvailabilityService availabilityService) {
         this.doctorService = doctorService;
         this.service = service;
+        this.availabilityService = availabilityService;
     }
 
     // 3. Check Doctor Availability
-    @GetMapping("/availability/{user}/{doctorId}/{date}/{token}")
+    @GetMapping("/availability/{doctorId}/{date}")
     public ResponseEntity<Map<String, Object>> getDoctorAvailability(
-            @PathVariable String user,
             @PathVariable Long doctorId,
-            @PathVariable String date,
-            @PathVariable String token) {
-
-        ResponseEntity<Map<String, Object>> validationResponse = service.validateToken(token, user);
-        Map<String, Object> validation = validationResponse.getBody();
-        if (validation == null || !(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
+            @PathVariable String date) {
 
         // Call the instance method and wrap the result in a map if necessary
         List<java.time.LocalTime> availabilityList = doctorService.getDoctorAvailability(doctorId, date);
@@ -100,25 +104,56 @@ public class DoctorController {
         return ResponseEntity.ok(availabilityResult);
     }
 
-    // 4. Get All Doctors
-    @GetMapping("/get")
-    public ResponseEntity<Map<String, Object>> getDoctor() {
-        List<Doctor> doctors = doctorService.getDoctors();
+    // 3a. Free slots for a range of days in one call
+    // GET /doctor/calendar/{doctorId}?from=2025-01-06&days=14 (from defaults to today)
+    @GetMapping("/calendar/{doctorId}")
+    public ResponseEntity<Map<String, Object>> getAvailabilityCalendar(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String from,
+            @RequestParam(defaultValue = "14") int days) {
+
+        Map<String, Object> response = new java.util.HashMap<>();
+        java.time.LocalDate start;
+        try {
+            start = from == null ? java.time.LocalDate.now() : java.time.LocalDate.parse(from);
+        } catch (java.time.format.DateTimeParseException e) {
+            response.put("error", "from must be an ISO date (yyyy-MM-dd)");
+            return ResponseEntity.badRequest().body(response);
+        }
+        AvailabilityCalendar calendar = availabilityService.calendar(doctorId, start, days);
+        if (calendar == null) {
+            response.put("error", "Doctor not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("calendar", calendar);
+        return ResponseEntity.ok(response);
+    }
+
+    // 3b. Earliest open slots across all doctors of a specialty
+    // GET /doctor/next-available/{speciality}?time=AM|PM&days=14&limit=10&leastLoaded=false
+    @GetMapping("/next-available/{speciality}")
+    public ResponseEntity<Map<String, Object>> getNextAvailable(
+            @PathVariable String speciality,
+            @RequestParam(required = false) String time,
+            @RequestParam(defaultValue = "14") int days,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean leastLoaded) {
+
+        List<AvailableSlot> slots = availabilityService.nextAvailable(speciality, time, days, limit, leastLoaded);
         Map<String, Object> response = new java.util.HashMap<>();
-        response.put("doctors", doctors);
+        response.put("slots", slots);
         return ResponseEntity.ok(response);
     }
 
+    // 4. Get All Doctors
+    @GetMapping("/get")
+    public ResponseEntity<DoctorListResponse> getDoctor(WebRequest request) {
+        return directoryResponse(request, doctorService::getDoctors);
+    }
+
     // 5. Register New Doctor
-    @PostMapping("/save/{token}")
-    public ResponseEntity<Map<String, Object>> saveDoctor(@RequestBody Doctor doctor,
-                                                          @PathVariable String token) {
-
-        ResponseEntity<Map<String, Object>> validationResponse = service.validateToken(token, "admin");
-        Map<String, Object> validation = validationResponse.getBody();
-        if (validation == null || !(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
+    @PostMapping("/save")
+    public ResponseEntity<Map<String, Object>> saveDoctor(@RequestBody Doctor doctor) {
 
         int result = doctorService.saveDoctor(doctor);
         Map<String, Object> response = new java.util.HashMap<>();
@@ -133,15 +168,8 @@ public class DoctorController {
     }
 
     // 7. Update Doctor
-    @PutMapping("/update/{token}")
-    public ResponseEntity<Map<String, Object>> updateDoctor(@RequestBody Doctor doctor,
-                                                            @PathVariable String token) {
-
-        ResponseEntity<Map<String, Object>> validationResponse = service.validateToken(token, "admin");
-        Map<String, Object> validation = validationResponse.getBody();
-        if (validation == null || !(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
+    @PutMapping("/update")
+    public ResponseEntity<Map<String, Object>> updateDoctor(@RequestBody Doctor doctor) {
 
         int result = doctorService.updateDoctor(doctor);
         Map<String, Object> response = new java.util.HashMap<>();
@@ -150,15 +178,8 @@ public class DoctorController {
     }
 
     // 8. Delete Doctor
-    @DeleteMapping("/delete/{id}/{token}")
-    public ResponseEntity<Map<String, Object>> deleteDoctor(@PathVariable Long id,
-                                                            @PathVariable String token) {
-
-        ResponseEntity<Map<String, Object>> validationResponse = service.validateToken(token, "admin");
-        Map<String, Object> validation = validationResponse.getBody();
-        if (validation == null || !(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
+    @DeleteMapping("/delete/{id}")
+    public ResponseEntity<Map<String, Object>> deleteDoctor(@PathVariable Long id) {
 
         int result = doctorService.deleteDoctor(id);
         Map<String, Object> response = new java.util.HashMap<>();
@@ -168,14 +189,23 @@ public class DoctorController {
 
     // 9. Filter Doctors
     @GetMapping("/filter/{name}/{time}/{speciality}")
-    public ResponseEntity<Map<String, Object>> filter(@PathVariable String name,
+    public ResponseEntity<DoctorListResponse> filter(@PathVariable String name,
                                                       @PathVariable String time,
-                                                      @PathVariable String speciality) {
+                                                      @PathVariable String speciality,
+                                                      WebRequest request) {
 
-        List<Doctor> filteredDoctors = service.filterDoctor(name, time, speciality);
-        Map<String, Object> response = new java.util.HashMap<>();
-        response.put("doctors", filteredDoctors);
-        return ResponseEntity.ok(response);
+        return directoryResponse(request, () -> service.filterDoctor(name, time, speciality));
+    }
+
+    // Directory listings are tagged with the directory version, so a revalidation that
+    // still matches is answered with 304 before any query runs
+    private ResponseEntity<DoctorListResponse> directoryResponse(WebRequest request, Supplier<List<Doctor>> loader) {
+        String etag = doctorService.getDirectoryETag();
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(directoryMaxAgeSeconds)).cachePublic();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(new DoctorListResponse(loader.get()));
     }
 
 }
@@ -0,0 +1,75 @@
+package com.smartclinic.back_end.controllers;
+
+import com.smartclinic.back_end.models.ScheduleException;
+import com.smartclinic.back_end.services.DoctorScheduleService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.DayOfWeek;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Admin editing of doctors' weekly schedule templates and dated exceptions (holidays, leave,
+// extra slots). Each call changes only the rows it names; admin/** is ADMIN-only in SecurityConfig.
+@RestController
+@RequestMapping("${api.path}admin/schedule")
+public class DoctorScheduleController {
+
+    private final DoctorScheduleService scheduleService;
+
+    public DoctorScheduleController(DoctorScheduleService scheduleService) {
+        this.scheduleService = scheduleService;
+    }
+
+    // GET /admin/schedule/{doctorId}
+    @GetMapping("/{doctorId}")
+    public ResponseEntity<Map<String, Object>> getSchedule(@PathVariable Long doctorId) {
+        return ResponseEntity.ok(scheduleService.getSchedule(doctorId));
+    }
+
+    // PUT /admin/schedule/{doctorId}/weekly/{day} with a body like ["09:00", "10:00"]
+    @PutMapping("/{doctorId}/weekly/{day}")
+    public ResponseEntity<Map<String, Object>> setWeekday(@PathVariable Long doctorId,
+                                                          @PathVariable String day,
+                                                          @RequestBody List<String> times) {
+        DayOfWeek dayOfWeek;
+        try {
+            dayOfWeek = DayOfWeek.valueOf(day.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("day must be MONDAY..SUNDAY");
+        }
+        return ResponseEntity.ok(scheduleService.setWeekday(doctorId, dayOfWeek, times));
+    }
+
+    // POST /admin/schedule/{doctorId}/exceptions with {date, startTime?, kind: CLOSED|EXTRA, note?}
+    @PostMapping("/{doctorId}/exceptions")
+    public ResponseEntity<Map<String, Object>> addException(@PathVariable Long doctorId,
+                                                            @RequestBody ScheduleException exception) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("exception", scheduleService.addException(doctorId, exception));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    // DELETE /admin/schedule/{doctorId}/exceptions/{exceptionId}
+    @DeleteMapping("/{doctorId}/exceptions/{exceptionId}")
+    public ResponseEntity<Map<String, Object>> removeException(@PathVariable Long doctorId,
+                                                               @PathVariable Long exceptionId) {
+        Map<String, Object> response = new HashMap<>();
+        if (!scheduleService.removeException(doctorId, exceptionId)) {
+            response.put("error", "Exception not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("message", "Exception removed");
+        return ResponseEntity.ok(response);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> invalid(IllegalArgumentException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+}
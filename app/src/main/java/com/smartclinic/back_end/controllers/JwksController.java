@@ -0,0 +1,33 @@
+package com.smartclinic.back_end.controllers;
+
+import com.smartclinic.back_end.services.JwtKeyRing;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Publishes the token verification keys so other services can validate access tokens
+// without calling back here. Only available when tokens are signed with RS256 or ES256.
+@RestController
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    public JwksController(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        if (keyRing.isHmac()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Verifiers refetch on an unknown kid, so a short cache is enough to absorb rotations
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(keyRing.jwkSet());
+    }
+}
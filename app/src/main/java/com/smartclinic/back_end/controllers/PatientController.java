@@ -1,14 +1,18 @@
 package com.smartclinic.back_end.controllers;
 
 import com.smartclinic.back_end.DTO.Login;
+import com.smartclinic.back_end.config.AuthenticatedUser;
 import com.smartclinic.back_end.models.Patient;
 import com.smartclinic.back_end.services.PatientService;
 import com.smartclinic.back_end.repo.PatientRepository;
 import com.smartclinic.back_end.services.Services;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @RestController
@@ -27,9 +31,8 @@ public class PatientController {
 
 
 // 3. Define the `getPatient` Method:
-//    - Handles HTTP GET requests to retrieve patient details using a token.
-//    - Validates the token for the `"patient"` role using the shared service.
-//    - If the token is valid, returns patient information; otherwise, returns an appropriate error message.
+//    - Handles HTTP GET requests to retrieve the signed-in patient's details.
+//    - The `"patient"` role is enforced by `SecurityConfig`; the patient id comes from the bearer token.
 
 
 // 4. Define the `createPatient` Method:
@@ -48,15 +51,14 @@ public class PatientController {
 
 // 6. Define the `getPatientAppointment` Method:
 //    - Handles HTTP GET requests to fetch appointment details for a specific patient.
-//    - Requires the patient ID, token, and user role as path variables.
-//    - Validates the token using the shared service.
-//    - If valid, retrieves the patient's appointment data from `PatientService`; otherwise, returns a validation error.
+//    - Requires the patient ID as a path variable; patients may only read their own appointments, doctors any patient's.
+//    - Retrieves the patient's appointment data from `PatientService`.
 
 
 // 7. Define the `filterPatientAppointment` Method:
 //    - Handles HTTP GET requests to filter a patient's appointments based on specific conditions.
-//    - Accepts filtering parameters: `condition`, `name`, and a token.
-//    - Token must be valid for a `"patient"` role.
+//    - Accepts filtering parameters: `condition` and `name`; the patient comes from the bearer token.
+//    - The `"patient"` role is enforced by `SecurityConfig`.
 //    - If valid, delegates filtering logic to the shared service and returns the filtered result.
 
 
@@ -71,19 +73,10 @@ private final PatientService patientService;
         this.patientRepository = patientRepository;
     }
 
-    // 3. Get Patient Profile by Token
-    @GetMapping("/get/{token}")
-    public ResponseEntity<Map<String, Object>> getPatient(@PathVariable String token) {
-        Map<String, Object> validation = service.validateToken(token, "patient").getBody();
-        if (!(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
-        Object patientDetailsBody = patientService.getPatientDetails(token).getBody();
-        if (patientDetailsBody instanceof Map) {
-            return ResponseEntity.ok((Map<String, Object>) patientDetailsBody);
-        } else {
-            return ResponseEntity.status(500).body(Map.of("valid", false, "message", "Unexpected response type"));
-        }
+    // 3. Get Patient Profile of the signed-in patient
+    @GetMapping("/get")
+    public ResponseEntity<Map<String, Object>> getPatient(@AuthenticationPrincipal AuthenticatedUser user) {
+        return patientService.getPatientDetails(user.id());
     }
 
     // 4. Register New Patient
@@ -108,15 +101,14 @@ private final PatientService patientService;
     }
 
     // 6. Get Appointments by Patient ID
-    @GetMapping("/appointments/{id}/{token}/{user}")
+    @GetMapping("/appointments/{id}")
     public ResponseEntity<Map<String, Object>> getPatientAppointment(
             @PathVariable Long id,
-            @PathVariable String token,
-            @PathVariable String user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
 
-        Map<String, Object> validation = service.validateToken(token, user).getBody();
-        if (!(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
+        // Doctors may look up any patient; patients only themselves
+        if ("patient".equals(user.role()) && !id.equals(user.id())) {
+            return ResponseEntity.status(403).body(Map.of("valid", false, "message", "Access denied"));
         }
 
         ResponseEntity<?> response = patientService.getPatientAppointment(id);
@@ -128,37 +120,24 @@ private final PatientService patientService;
     }
 
     // 7. Filter Appointments
-    @GetMapping("/filterAppointments/{condition}/{name}/{token}")
+    @GetMapping("/filterAppointments/{condition}/{name}")
     public ResponseEntity<Map<String, Object>> filterPatientAppointment(
             @PathVariable String condition,
             @PathVariable String name,
-            @PathVariable String token) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
 
-        Map<String, Object> validation = service.validateToken(token, "patient").getBody();
-        if (!(boolean) validation.get("valid")) {
-            return ResponseEntity.status(401).body(validation);
-        }
-
-        // Extract patient ID from token
-        // Use TokenService directly instead of service.getTokenService()
-        String email = service.getTokenService() != null
-            ? service.getTokenService().extractEmail(token)
-            : null;
-        Patient patient = patientRepository.findByEmail(email);
-        if (patient == null) {
-            return ResponseEntity.status(404).body(Map.of("valid", false, "message", "Patient not found"));
-        }
+        Long patientId = user.id();
 
         // Filtering logic
         ResponseEntity<?> response;
         if (!condition.equalsIgnoreCase("all") && !name.equalsIgnoreCase("all")) {
-            response = patientService.filterByDoctorAndCondition(name, condition, patient.getId());
+            response = patientService.filterByDoctorAndCondition(name, condition, patientId);
         } else if (!condition.equalsIgnoreCase("all")) {
-            response = patientService.filterByCondition(condition, patient.getId());
+            response = patientService.filterByCondition(condition, patientId);
         } else if (!name.equalsIgnoreCase("all")) {
-            response = patientService.filterByDoctor(name, patient.getId());
+            response = patientService.filterByDoctor(name, patientId);
         } else {
-            response = patientService.getPatientAppointment(patient.getId());
+            response = patientService.getPatientAppointment(patientId);
         }
 
         if (response.getStatusCode().is2xxSuccessful()) {
@@ -167,6 +146,16 @@ private final PatientService patientService;
             return ResponseEntity.status(response.getStatusCode()).body(Map.of("valid", false, "message", response.getBody()));
         }
     }
-}
 
+    // 8. Appointment Timeline (keyset paged in both directions)
+    @GetMapping("/timeline")
+    public ResponseEntity<?> getTimeline(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(defaultValue = "after") String direction,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time,
+            @RequestParam(defaultValue = "0") Long id,
+            @RequestParam(defaultValue = "10") int limit) {
 
+        return patientService.getTimeline(user.id(), direction, time, id, limit);
+    }
+}
@@ -0,0 +1,52 @@
+package com.smartclinic.back_end.controllers;
+
+import com.smartclinic.back_end.services.RefreshTokenService;
+import com.smartclinic.back_end.services.TokenService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("${api.path}token")
+public class TokenController {
+
+// 1. Define the `refresh` Method:
+//    - Handles HTTP POST requests carrying `{ "refreshToken": "..." }`.
+//    - Exchanges the refresh token for a new access token and a new refresh token; the old refresh token is used up.
+//    - Returns 401 when the refresh token is unknown, expired or was already used.
+
+
+// 2. Define the `logout` Method:
+//    - Revokes the refresh token's login family and, when an `Authorization: Bearer` header is sent, that access token.
+
+    private final RefreshTokenService refreshTokenService;
+    private final TokenService tokenService;
+
+    public TokenController(RefreshTokenService refreshTokenService, TokenService tokenService) {
+        this.refreshTokenService = refreshTokenService;
+        this.tokenService = tokenService;
+    }
+
+    // 1. Refresh
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh(@RequestBody Map<String, String> body) {
+        Map<String, Object> tokens = refreshTokenService.rotate(body.get("refreshToken"));
+        if (tokens == null) {
+            return ResponseEntity.status(401).body(Map.of("message", "Session expired, please log in again"));
+        }
+        return ResponseEntity.ok(tokens);
+    }
+
+    // 2. Logout
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, Object>> logout(@RequestBody(required = false) Map<String, String> body,
+                                                      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7).trim() : null;
+        refreshTokenService.logout(body != null ? body.get("refreshToken") : null,
+                accessToken != null ? tokenService.parseClaims(accessToken) : null);
+        return ResponseEntity.ok(Map.of("message", "Logged out"));
+    }
+}
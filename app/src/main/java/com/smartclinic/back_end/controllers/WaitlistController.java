@@ -0,0 +1,104 @@
+package com.smartclinic.back_end.controllers;
+
+import com.smartclinic.back_end.DTO.WaitlistRequest;
+import com.smartclinic.back_end.config.AuthenticatedUser;
+import com.smartclinic.back_end.models.WaitlistEntry;
+import com.smartclinic.back_end.services.WaitlistService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Patient waitlist: register for a doctor and date range, then receive offers for freed slots on
+// /waitlist/stream instead of polling /doctor/availability. The patient always comes from the token.
+@RestController
+@RequestMapping("/waitlist")
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    public WaitlistController(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    // POST /waitlist
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> register(@RequestBody WaitlistRequest request,
+                                                        @AuthenticationPrincipal AuthenticatedUser user) {
+        WaitlistEntry entry = waitlistService.register(user.id(), request.doctorId(), request.fromDate(), request.toDate());
+        Map<String, Object> response = new HashMap<>();
+        response.put("entry", entry);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    // GET /waitlist
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getEntries(@AuthenticationPrincipal AuthenticatedUser user) {
+        List<WaitlistEntry> entries = waitlistService.getEntries(user.id());
+        Map<String, Object> response = new HashMap<>();
+        response.put("entries", entries);
+        return ResponseEntity.ok(response);
+    }
+
+    // POST /waitlist/{entryId}/accept
+    @PostMapping("/{entryId}/accept")
+    public ResponseEntity<Map<String, Object>> accept(@PathVariable Long entryId,
+                                                      @AuthenticationPrincipal AuthenticatedUser user) {
+        Long appointmentId = waitlistService.accept(entryId, user.id());
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Appointment booked");
+        response.put("appointmentId", appointmentId);
+        return ResponseEntity.ok(response);
+    }
+
+    // POST /waitlist/{entryId}/decline
+    @PostMapping("/{entryId}/decline")
+    public ResponseEntity<Map<String, Object>> decline(@PathVariable Long entryId,
+                                                       @AuthenticationPrincipal AuthenticatedUser user) {
+        waitlistService.decline(entryId, user.id());
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Offer declined");
+        return ResponseEntity.ok(response);
+    }
+
+    // DELETE /waitlist/{entryId}
+    @DeleteMapping("/{entryId}")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable Long entryId,
+                                                      @AuthenticationPrincipal AuthenticatedUser user) {
+        waitlistService.cancel(entryId, user.id());
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Removed from the waitlist");
+        return ResponseEntity.ok(response);
+    }
+
+    // GET /waitlist/stream
+    // Server-sent "offer" events for the caller; pending offers are replayed on connect
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOffers(@AuthenticationPrincipal AuthenticatedUser user) {
+        SseEmitter emitter = waitlistService.subscribe(user.id());
+        if (emitter == null) {
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> invalid(IllegalArgumentException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> conflict(IllegalStateException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+}
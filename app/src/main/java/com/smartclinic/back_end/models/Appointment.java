@@ -5,6 +5,12 @@ import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_appointment_status_time", columnList = "status, appointment_time"),
+        @Index(name = "idx_appointment_patient_time", columnList = "patient_id, appointment_time"),
+        // One appointment per doctor and start time: the last word on concurrent bookings of a slot
+        @Index(name = "uk_appointment_doctor_time", columnList = "doctor_id, appointment_time", unique = true)
+})
 public class Appointment {
 
     @Id
@@ -0,0 +1,111 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Appointment counters per doctor and calendar day, kept current by ReportingService as
+// appointments are booked, moved, completed and cancelled. booked counts the appointments
+// currently on the books for the day (cancelling one moves it to cancelled), so it always
+// equals the live row count in `appointment`. The doctor's specialty is copied in so
+// specialty reports need no join.
+@Entity
+@Table(name = "appointment_daily_rollup", indexes = {
+        @Index(name = "idx_daily_rollup_specialty_day", columnList = "specialty, day")
+})
+@IdClass(AppointmentDailyRollup.Key.class)
+public class AppointmentDailyRollup {
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Id
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(length = 50)
+    private String specialty;
+
+    @Column(nullable = false)
+    private int booked;
+
+    @Column(nullable = false)
+    private int completed;
+
+    @Column(nullable = false)
+    private int cancelled;
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public String getSpecialty() {
+        return specialty;
+    }
+
+    public void setSpecialty(String specialty) {
+        this.specialty = specialty;
+    }
+
+    public int getBooked() {
+        return booked;
+    }
+
+    public void setBooked(int booked) {
+        this.booked = booked;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(int completed) {
+        this.completed = completed;
+    }
+
+    public int getCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(int cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public static class Key implements Serializable {
+
+        private LocalDate day;
+        private Long doctorId;
+
+        public Key() {
+        }
+
+        public Key(LocalDate day, Long doctorId) {
+            this.day = day;
+            this.doctorId = doctorId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(day, key.day) && Objects.equals(doctorId, key.doctorId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(day, doctorId);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Monthly totals per doctor, rebuilt from the daily rollup by ReportingService.
+// month is the first day of the month.
+@Entity
+@Table(name = "appointment_monthly_rollup")
+@IdClass(AppointmentMonthlyRollup.Key.class)
+public class AppointmentMonthlyRollup {
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate month;
+
+    @Id
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(length = 50)
+    private String specialty;
+
+    @Column(nullable = false)
+    private int booked;
+
+    @Column(nullable = false)
+    private int completed;
+
+    @Column(nullable = false)
+    private int cancelled;
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public void setMonth(LocalDate month) {
+        this.month = month;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public String getSpecialty() {
+        return specialty;
+    }
+
+    public void setSpecialty(String specialty) {
+        this.specialty = specialty;
+    }
+
+    public int getBooked() {
+        return booked;
+    }
+
+    public void setBooked(int booked) {
+        this.booked = booked;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(int completed) {
+        this.completed = completed;
+    }
+
+    public int getCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(int cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public static class Key implements Serializable {
+
+        private LocalDate month;
+        private Long doctorId;
+
+        public Key() {
+        }
+
+        public Key(LocalDate month, Long doctorId) {
+            this.month = month;
+            this.doctorId = doctorId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(month, key.month) && Objects.equals(doctorId, key.doctorId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(month, doctorId);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A completed appointment moved out of `appointment` once it fell behind the retention window.
+// Keeps the original id. The doctor/patient joins have no foreign keys: the archive only grows by
+// bulk copies, and deleting a doctor clears both tables explicitly.
+@Entity
+@Table(name = "appointment_archive", indexes = {
+        @Index(name = "idx_archive_patient_time", columnList = "patient_id, appointment_time"),
+        @Index(name = "idx_archive_doctor_time", columnList = "doctor_id, appointment_time")
+})
+public class ArchivedAppointment {
+
+    @Id
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "doctor_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Doctor doctor;
+
+    @ManyToOne
+    @JoinColumn(name = "patient_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Patient patient;
+
+    @Column(name = "appointment_time", nullable = false)
+    private LocalDateTime appointmentTime;
+
+    private int status;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Detached copy in the shape the read paths already handle
+    public Appointment toAppointment() {
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(appointmentTime);
+        appointment.setStatus(status);
+        return appointment;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Doctor getDoctor() {
+        return doctor;
+    }
+
+    public void setDoctor(Doctor doctor) {
+        this.doctor = doctor;
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    public void setPatient(Patient patient) {
+        this.patient = patient;
+    }
+
+    public LocalDateTime getAppointmentTime() {
+        return appointmentTime;
+    }
+
+    public void setAppointmentTime(LocalDateTime appointmentTime) {
+        this.appointmentTime = appointmentTime;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+
+// Version counter of a cached listing, e.g. "doctors" for the doctor directory. Bumped in the
+// same transaction as the change it tracks, so every node derives the same ETag from it.
+@Entity
+@Table(name = "directory_version")
+public class DirectoryVersion {
+
+    @Id
+    @Column(length = 32)
+    private String name;
+
+    @Column(nullable = false)
+    private long version;
+
+    public String getName() {
+        return name;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,71 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+// One slot of a doctor's weekly template: every dayOfWeek at startTime, unless a
+// ScheduleException for the date says otherwise. Edited row by row, so changing one
+// weekday never rewrites the rest of the schedule.
+@Entity
+@Table(name = "doctor_schedule_slot", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_schedule_slot", columnNames = {"doctor_id", "day_of_week", "start_time"})
+})
+public class DoctorScheduleSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week", nullable = false, length = 9)
+    private DayOfWeek dayOfWeek;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    public DoctorScheduleSlot() {
+    }
+
+    public DoctorScheduleSlot(Long doctorId, DayOfWeek dayOfWeek, LocalTime startTime) {
+        this.doctorId = doctorId;
+        this.dayOfWeek = dayOfWeek;
+        this.startTime = startTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public DayOfWeek getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public void setDayOfWeek(DayOfWeek dayOfWeek) {
+        this.dayOfWeek = dayOfWeek;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+}
@@ -0,0 +1,44 @@
+package com.smartclinic.back_end.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+// Dictionary entry for the compact prescription storage mode: prescriptions
+// reference a medication by its small integer id instead of repeating the text.
+@Document(collection = "medications")
+public class Medication {
+
+    @Id
+    private Integer id;
+
+    @Indexed(unique = true)
+    @Field("n")
+    private String name;
+
+    public Medication() {
+    }
+
+    public Medication(Integer id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -3,6 +3,7 @@ package com.smartclinic.back_end.models;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 
 @Document(collection = "prescriptions")
@@ -24,6 +25,11 @@ public class Prescription {
     @Size(min = 3, max = 100)
     private String medication;
 
+    // Set instead of 'medication' when prescriptions are stored in compact mode
+    @Field("med_id")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer medicationId;
+
     @Size(max = 200)
     @Field("doctor_notes")
     private String doctorNotes;
@@ -61,6 +67,14 @@ public class Prescription {
         this.medication = medication;
     }
 
+    public Integer getMedicationId() {
+        return medicationId;
+    }
+
+    public void setMedicationId(Integer medicationId) {
+        this.medicationId = medicationId;
+    }
+
     public String getDoctorNotes() {
         return doctorNotes;
     }
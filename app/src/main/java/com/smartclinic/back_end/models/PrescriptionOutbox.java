@@ -0,0 +1,86 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A prescription recorded in MySQL in the same transaction that completes its appointment.
+// The outbox relay in PrescriptionService copies undelivered rows to the Mongo
+// prescriptions collection and stamps delivered_at, or conflict_at when Mongo already holds a
+// different prescription for the appointment. Rows are never deleted: once delivered rows pass
+// retention their payload is emptied, and the row stays as the appointment's prescribed marker.
+@Entity
+@Table(name = "prescription_outbox", indexes = {
+        @Index(name = "uk_prescription_outbox_appointment", columnList = "appointment_id", unique = true),
+        @Index(name = "idx_prescription_outbox_delivered", columnList = "delivered_at, id")
+})
+public class PrescriptionOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "appointment_id", nullable = false)
+    private Long appointmentId;
+
+    // Prescription as JSON, exactly as submitted by the doctor; empty once purged
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
+    @Column(name = "conflict_at")
+    private LocalDateTime conflictAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getDeliveredAt() {
+        return deliveredAt;
+    }
+
+    public void setDeliveredAt(LocalDateTime deliveredAt) {
+        this.deliveredAt = deliveredAt;
+    }
+
+    public LocalDateTime getConflictAt() {
+        return conflictAt;
+    }
+
+    public void setConflictAt(LocalDateTime conflictAt) {
+        this.conflictAt = conflictAt;
+    }
+}
@@ -0,0 +1,107 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Opaque refresh token, stored only as a SHA-256 hash. Tokens of one login share a
+// family id; rotating a token revokes it and issues the next one in the same family.
+@Entity
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "uk_refresh_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_token_user", columnList = "role, user_id"),
+        @Index(name = "idx_refresh_token_expires", columnList = "expires_at")
+})
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // base64url SHA-256 of the raw token
+    @Column(name = "token_hash", nullable = false, length = 43)
+    private String tokenHash;
+
+    @Column(name = "family_id", nullable = false, length = 22)
+    private String familyId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 10)
+    private String role;
+
+    // Token subject (username or email), copied into the access tokens it mints
+    @Column(nullable = false, length = 100)
+    private String subject;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(LocalDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+}
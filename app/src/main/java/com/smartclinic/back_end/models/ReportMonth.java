@@ -0,0 +1,34 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Marks a month whose monthly rollup rows have been built (month is its first day), so a month
+// without appointments is not rebuilt on every read. recounted is set once its daily rows have
+// been recounted from `appointment`, which the one-off backfill relies on.
+@Entity
+@Table(name = "report_month")
+public class ReportMonth {
+
+    @Id
+    private LocalDate month;
+
+    @Column(nullable = false)
+    private boolean recounted;
+
+    @Column(name = "rebuilt_at", nullable = false)
+    private LocalDateTime rebuiltAt;
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public boolean isRecounted() {
+        return recounted;
+    }
+
+    public LocalDateTime getRebuiltAt() {
+        return rebuiltAt;
+    }
+}
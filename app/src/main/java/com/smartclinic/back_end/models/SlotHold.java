@@ -0,0 +1,84 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A freed slot reserved for the waitlisted patient it was offered to. The unique
+// (doctor_id, slot_time) key makes the reservation atomic; while it has not expired,
+// nobody else can book the slot and it is left out of the doctor's availability.
+@Entity
+@Table(name = "slot_hold", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_slot_hold_doctor_time", columnNames = {"doctor_id", "slot_time"})
+}, indexes = {
+        @Index(name = "idx_slot_hold_entry", columnList = "entry_id")
+})
+public class SlotHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "slot_time", nullable = false)
+    private LocalDateTime slotTime;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "entry_id", nullable = false)
+    private Long entryId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public LocalDateTime getSlotTime() {
+        return slotTime;
+    }
+
+    public void setSlotTime(LocalDateTime slotTime) {
+        this.slotTime = slotTime;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public Long getEntryId() {
+        return entryId;
+    }
+
+    public void setEntryId(Long entryId) {
+        this.entryId = entryId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,44 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Append-only log of access token revocations, polled by every node so the
+// in-memory revocation list converges across the cluster. The key is either
+// "t:<jti>" for a single token or "u:<role>:<userId>" for all of a user's tokens.
+@Entity
+@Table(name = "token_revocation", indexes = {
+        @Index(name = "idx_token_revocation_time", columnList = "revoked_at")
+})
+public class TokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "revocation_key", nullable = false, length = 64)
+    private String revocationKey;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    public TokenRevocation() {
+    }
+
+    public TokenRevocation(String revocationKey, LocalDateTime revokedAt) {
+        this.revocationKey = revocationKey;
+        this.revokedAt = revokedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRevocationKey() {
+        return revocationKey;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+}
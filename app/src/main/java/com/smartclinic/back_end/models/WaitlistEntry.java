@@ -0,0 +1,121 @@
+package com.smartclinic.back_end.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// A patient waiting for any slot with one doctor between fromDate and toDate.
+// WAITING entries are served first come, first served; an OFFERED entry holds one freed slot
+// (see SlotHold) until offerExpiresAt.
+@Entity
+@Table(name = "waitlist_entry", indexes = {
+        @Index(name = "idx_waitlist_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_waitlist_patient_status", columnList = "patient_id, status"),
+        @Index(name = "idx_waitlist_status_expires", columnList = "status, offer_expires_at")
+})
+public class WaitlistEntry {
+
+    public enum Status { WAITING, OFFERED, ACCEPTED, DECLINED, EXPIRED, CANCELLED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "from_date", nullable = false)
+    private LocalDate fromDate;
+
+    @Column(name = "to_date", nullable = false)
+    private LocalDate toDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "offered_time")
+    private LocalDateTime offeredTime;
+
+    @Column(name = "offer_expires_at")
+    private LocalDateTime offerExpiresAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getOfferedTime() {
+        return offeredTime;
+    }
+
+    public void setOfferedTime(LocalDateTime offeredTime) {
+        this.offeredTime = offeredTime;
+    }
+
+    public LocalDateTime getOfferExpiresAt() {
+        return offerExpiresAt;
+    }
+
+    public void setOfferExpiresAt(LocalDateTime offerExpiresAt) {
+        this.offerExpiresAt = offerExpiresAt;
+    }
+}
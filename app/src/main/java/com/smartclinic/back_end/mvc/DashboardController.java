@@ -7,6 +7,8 @@ import com.smartclinic.back_end.models.Patient;
 import com.smartclinic.back_end.repo.AdminRepository;
 import com.smartclinic.back_end.repo.DoctorRepository;
 import com.smartclinic.back_end.repo.PatientRepository;
+import com.smartclinic.back_end.services.PasswordService;
+import com.smartclinic.back_end.services.RefreshTokenService;
 import com.smartclinic.back_end.services.Services;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +16,8 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @Controller
 public class DashboardController {
 
@@ -29,6 +33,12 @@ public class DashboardController {
     @Autowired
     private PatientRepository patientRepo;
 
+    @Autowired
+    private PasswordService passwordService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @GetMapping("/")
     public String root() {
         return "forward:/pages/defineRole.html";
@@ -69,14 +79,19 @@ public String processLogin(
 
     System.out.println("➡️ Login attempt: role=" + role + ", email=" + login.getEmail());
 
+    try {
     switch (role) {
         case "admin":
             Admin admin = adminRepo.findByUsername(login.getEmail().split("@")[0]);
-            if (admin != null && admin.getPassword().equals(login.getPassword())) {
-                String token = service.getTokenService().generateToken(admin.getUsername(), "admin");
+            if (admin != null && passwordService.verify(login.getPassword(), admin.getPassword(), hash -> {
+                admin.setPassword(hash);
+                adminRepo.save(admin);
+            })) {
+                Map<String, Object> tokens = refreshTokenService.issueTokens(admin.getUsername(), "admin", admin.getId());
+                String token = (String) tokens.get("token");
                 session.setAttribute("token", token);
-                System.out.println("✅ Admin login successful. Redirecting to /adminDashboard/" + token);
-                return "redirect:/adminDashboard/" + token;
+                exposeSession(model, tokens, "admin", "/adminDashboard/" + token);
+                return "sessionHandoff";
             } else {
                 System.out.println("❌ Invalid admin credentials.");
             }
@@ -84,12 +99,16 @@ public String processLogin(
 
         case "doctor":
             Doctor doctor = doctorRepo.findByEmail(login.getEmail());
-            if (doctor != null && doctor.getPassword().equals(login.getPassword())) {
-                String token = service.getTokenService().generateToken(doctor.getEmail(), "doctor");
+            if (doctor != null && passwordService.verify(login.getPassword(), doctor.getPassword(), hash -> {
+                doctor.setPassword(hash);
+                doctorRepo.save(doctor);
+            })) {
+                Map<String, Object> tokens = refreshTokenService.issueTokens(doctor.getEmail(), "doctor", doctor.getId());
+                String token = (String) tokens.get("token");
                 session.setAttribute("token", token);
                 session.setAttribute("doctorId", doctor.getId());
-                System.out.println("✅ Doctor login successful. Redirecting to /doctorDashboard/" + token);
-                return "redirect:/doctorDashboard/" + token;
+                exposeSession(model, tokens, "doctor", "/doctorDashboard/" + token);
+                return "sessionHandoff";
             } else {
                 System.out.println("❌ Invalid doctor credentials.");
             }
@@ -99,17 +118,18 @@ public String processLogin(
     Patient patient = patientRepo.findByEmail(login.getEmail().trim().toLowerCase());
     if (patient != null) {
         System.out.println("🧪 Patient found: email = " + patient.getEmail());
-        System.out.println("🧪 DB password: [" + patient.getPassword() + "]");
-        System.out.println("🧪 Input password: [" + login.getPassword() + "]");
-        System.out.println("🧪 DB password (trimmed): [" + patient.getPassword().trim() + "]");
-        
+
         if (patient.getPassword() != null &&
-            patient.getPassword().trim().equals(login.getPassword())) {
+            passwordService.verify(login.getPassword(), patient.getPassword().trim(), hash -> {
+                patient.setPassword(hash);
+                patientRepo.save(patient);
+            })) {
 
-            String token = service.getTokenService().generateToken(patient.getEmail(), "patient");
+            Map<String, Object> tokens = refreshTokenService.issueTokens(patient.getEmail(), "patient", patient.getId());
+            String token = (String) tokens.get("token");
             session.setAttribute("token", token);
             session.setAttribute("patientId", patient.getId());
-            System.out.println("✅ Patient login successful. Redirecting to pages/loggedPatientDashboard.html");
+            exposeSession(model, tokens, "loggedPatient", null);
             return "loginPatient" ;
         } else {
             System.out.println("❌ Password mismatch.");
@@ -120,6 +140,12 @@ public String processLogin(
     break;
 
     }
+    } catch (PasswordService.LoginBusyException e) {
+        model.addAttribute("error", e.getMessage());
+        model.addAttribute("role", role);
+        model.addAttribute("login", new Login());
+        return "login";
+    }
 
     model.addAttribute("error", "Invalid email or password");
     model.addAttribute("role", role);
@@ -129,8 +155,6 @@ public String processLogin(
 
   @GetMapping("/adminDashboard/{token}")
 public String adminDashboard(@PathVariable String token) {
-    System.out.println("🔐 Validating admin token: " + token);
-    
     boolean isValid = service.getTokenService().validateToken(token, "admin");
 
     if (isValid) {
@@ -145,6 +169,14 @@ public String adminDashboard(@PathVariable String token) {
 }
 
 
+    // The page stores the tokens (refresh token included) in localStorage through the
+    // fragments/session script and then goes on to `next`, if any
+    private static void exposeSession(Model model, Map<String, Object> tokens, String role, String next) {
+        model.addAttribute("tokens", tokens);
+        model.addAttribute("sessionRole", role);
+        model.addAttribute("next", next);
+    }
+
     @GetMapping("/doctorDashboard/{token}")
     public String doctorDashboard(@PathVariable String token) {
         if (service.getTokenService().validateToken(token, "doctor")) {
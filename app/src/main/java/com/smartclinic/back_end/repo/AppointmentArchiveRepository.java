@@ -0,0 +1,93 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.DTO.ScheduleEntry;
+import com.smartclinic.back_end.models.ArchivedAppointment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Counterparts of the AppointmentRepository reads that can reach past the retention window
+@Repository
+public interface AppointmentArchiveRepository extends JpaRepository<ArchivedAppointment, Long> {
+
+    // 1. Copies a chunk of appointments into the archive; the caller deletes them in the same transaction
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO appointment_archive (id, doctor_id, patient_id, appointment_time, status, archived_at) " +
+                   "SELECT a.id, a.doctor_id, a.patient_id, a.appointment_time, a.status, :now " +
+                   "FROM appointment a WHERE a.id IN (:ids)", nativeQuery = true)
+    int copyFromAppointments(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("SELECT MAX(a.appointmentTime) FROM ArchivedAppointment a")
+    LocalDateTime findLatestAppointmentTime();
+
+    @Query("SELECT MIN(a.appointmentTime) FROM ArchivedAppointment a")
+    LocalDateTime findEarliestAppointmentTime();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ArchivedAppointment a WHERE a.doctor.id = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") Long doctorId);
+
+    // 2. Doctor ranges
+    List<ArchivedAppointment> findByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
+
+    List<ArchivedAppointment> findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
+            Long doctorId, String patientName, LocalDateTime start, LocalDateTime end
+    );
+
+    @Query("SELECT new com.smartclinic.back_end.DTO.ScheduleEntry(a.id, a.appointmentTime, p.id, p.name, a.status) " +
+           "FROM ArchivedAppointment a JOIN a.patient p WHERE a.doctor.id = :doctorId " +
+           "AND a.appointmentTime BETWEEN :start AND :end ORDER BY a.appointmentTime, a.id")
+    List<ScheduleEntry> findScheduleEntries(@Param("doctorId") Long doctorId,
+                                            @Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
+
+    // 3. Patient history
+    List<ArchivedAppointment> findByPatientId(Long patientId);
+
+    List<ArchivedAppointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
+
+    List<ArchivedAppointment> findByPatient_IdAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(Long patientId, LocalDateTime time);
+
+    List<ArchivedAppointment> findByDoctor_NameContainingIgnoreCaseAndPatientId(String doctorName, Long patientId);
+
+    List<ArchivedAppointment> findByDoctor_NameContainingIgnoreCaseAndPatientIdAndStatus(
+            String doctorName, Long patientId, int status
+    );
+
+    List<ArchivedAppointment> findByDoctor_NameContainingIgnoreCaseAndPatientIdAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(
+            String doctorName, Long patientId, LocalDateTime time
+    );
+
+    @Query("SELECT a FROM ArchivedAppointment a WHERE a.patient.id = :patientId AND " +
+           "(a.appointmentTime > :time OR (a.appointmentTime = :time AND a.id > :id)) " +
+           "ORDER BY a.appointmentTime ASC, a.id ASC")
+    List<ArchivedAppointment> findPatientTimelineAfter(@Param("patientId") Long patientId,
+                                                       @Param("time") LocalDateTime time,
+                                                       @Param("id") Long id,
+                                                       Pageable pageable);
+
+    @Query("SELECT a FROM ArchivedAppointment a WHERE a.patient.id = :patientId AND " +
+           "(a.appointmentTime < :time OR (a.appointmentTime = :time AND a.id < :id)) " +
+           "ORDER BY a.appointmentTime DESC, a.id DESC")
+    List<ArchivedAppointment> findPatientTimelineBefore(@Param("patientId") Long patientId,
+                                                        @Param("time") LocalDateTime time,
+                                                        @Param("id") Long id,
+                                                        Pageable pageable);
+
+    // 4. Same shape as AppointmentRepository.countByDayAndDoctor, for report recounts
+    @Query(value = "SELECT DATE(a.appointment_time) AS day, a.doctor_id AS doctorId, " +
+                   "COUNT(*) AS booked, SUM(CASE WHEN a.status = 1 THEN 1 ELSE 0 END) AS completed " +
+                   "FROM appointment_archive a WHERE a.appointment_time >= :from AND a.appointment_time < :before " +
+                   "GROUP BY DATE(a.appointment_time), a.doctor_id", nativeQuery = true)
+    List<AppointmentRepository.DailyCount> countByDayAndDoctor(@Param("from") LocalDateTime from,
+                                                               @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,66 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.DTO.ReportRow;
+import com.smartclinic.back_end.models.AppointmentDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AppointmentDailyRollupRepository
+        extends JpaRepository<AppointmentDailyRollup, AppointmentDailyRollup.Key> {
+
+    // Adds the deltas to the (day, doctor) row, creating it on first use. Runs inside the
+    // caller's transaction so the counters commit or roll back with the appointment change.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO appointment_daily_rollup (day, doctor_id, specialty, booked, completed, cancelled) " +
+                   "SELECT :day, d.id, d.specialty, :booked, :completed, :cancelled FROM doctor d WHERE d.id = :doctorId " +
+                   "ON DUPLICATE KEY UPDATE booked = booked + VALUES(booked), " +
+                   "completed = completed + VALUES(completed), cancelled = cancelled + VALUES(cancelled)",
+           nativeQuery = true)
+    int add(@Param("day") LocalDate day, @Param("doctorId") Long doctorId,
+            @Param("booked") int booked, @Param("completed") int completed, @Param("cancelled") int cancelled);
+
+    // Counts a chunk of just-completed appointments, grouped by day and doctor in one statement
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO appointment_daily_rollup (day, doctor_id, specialty, booked, completed, cancelled) " +
+                   "SELECT DATE(a.appointment_time), a.doctor_id, d.specialty, 0, COUNT(*), 0 " +
+                   "FROM appointment a JOIN doctor d ON d.id = a.doctor_id WHERE a.id IN (:ids) " +
+                   "GROUP BY DATE(a.appointment_time), a.doctor_id, d.specialty " +
+                   "ON DUPLICATE KEY UPDATE completed = completed + VALUES(completed)",
+           nativeQuery = true)
+    int addCompleted(@Param("ids") List<Long> ids);
+
+    // Clears booked/completed of a day range before a recount, so (day, doctor) rows whose
+    // appointments are all gone end up at zero instead of keeping their old counts
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppointmentDailyRollup r SET r.booked = 0, r.completed = 0 WHERE r.day BETWEEN :from AND :to")
+    int zeroCounts(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Overwrites booked/completed with recounted values; cancellations cannot be recounted and are kept
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO appointment_daily_rollup (day, doctor_id, specialty, booked, completed, cancelled) " +
+                   "SELECT :day, d.id, d.specialty, :booked, :completed, 0 FROM doctor d WHERE d.id = :doctorId " +
+                   "ON DUPLICATE KEY UPDATE booked = VALUES(booked), completed = VALUES(completed)",
+           nativeQuery = true)
+    int resetCounts(@Param("day") LocalDate day, @Param("doctorId") Long doctorId,
+                    @Param("booked") int booked, @Param("completed") int completed);
+
+    List<AppointmentDailyRollup> findByDayBetweenOrderByDayAscDoctorIdAsc(LocalDate from, LocalDate to);
+
+    @Query("SELECT new com.smartclinic.back_end.DTO.ReportRow(r.day, r.specialty, " +
+           "SUM(r.booked), SUM(r.completed), SUM(r.cancelled)) " +
+           "FROM AppointmentDailyRollup r WHERE r.day BETWEEN :from AND :to " +
+           "GROUP BY r.day, r.specialty ORDER BY r.day, r.specialty")
+    List<ReportRow> sumBySpecialty(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
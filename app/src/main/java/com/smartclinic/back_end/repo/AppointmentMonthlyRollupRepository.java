@@ -0,0 +1,50 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.DTO.ReportRow;
+import com.smartclinic.back_end.models.AppointmentMonthlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AppointmentMonthlyRollupRepository
+        extends JpaRepository<AppointmentMonthlyRollup, AppointmentMonthlyRollup.Key> {
+
+    List<AppointmentMonthlyRollup> findByMonthOrderByDoctorIdAsc(LocalDate month);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AppointmentMonthlyRollup r WHERE r.month = :month")
+    int deleteByMonth(@Param("month") LocalDate month);
+
+    // Writes one doctor's totals for the month, overwriting an existing row. Rebuilds of the same
+    // month on several nodes then overwrite each other instead of colliding on the primary key.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO appointment_monthly_rollup (month, doctor_id, specialty, booked, completed, cancelled) " +
+                   "VALUES (:month, :doctorId, :specialty, :booked, :completed, :cancelled) " +
+                   "ON DUPLICATE KEY UPDATE specialty = VALUES(specialty), booked = VALUES(booked), " +
+                   "completed = VALUES(completed), cancelled = VALUES(cancelled)",
+           nativeQuery = true)
+    int upsert(@Param("month") LocalDate month, @Param("doctorId") Long doctorId, @Param("specialty") String specialty,
+               @Param("booked") int booked, @Param("completed") int completed, @Param("cancelled") int cancelled);
+
+    // Drops the rows of doctors that no longer have daily rows in the month
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AppointmentMonthlyRollup r WHERE r.month = :month AND r.doctorId NOT IN :doctorIds")
+    int deleteByMonthExcept(@Param("month") LocalDate month, @Param("doctorIds") Collection<Long> doctorIds);
+
+    @Query("SELECT new com.smartclinic.back_end.DTO.ReportRow(r.month, r.specialty, " +
+           "SUM(r.booked), SUM(r.completed), SUM(r.cancelled)) " +
+           "FROM AppointmentMonthlyRollup r WHERE r.month = :month " +
+           "GROUP BY r.month, r.specialty ORDER BY r.specialty")
+    List<ReportRow> sumBySpecialty(@Param("month") LocalDate month);
+}
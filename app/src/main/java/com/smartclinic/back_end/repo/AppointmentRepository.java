@@ -1,14 +1,20 @@
 package com.smartclinic.back_end.repo;
 
+import com.smartclinic.back_end.DTO.ScheduleEntry;
 import com.smartclinic.back_end.models.Appointment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -108,5 +114,113 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     @Transactional
    @Query("UPDATE Appointment a SET a.status = :status WHERE a.id = :id")
     void updateAppointmentStatusById(@Param("status") int status, @Param("id") long id);
-   
+
+    // 9. IDs of scheduled appointments starting in [from, before), walked through the (status, appointment_time) index
+    @Query("SELECT a.id FROM Appointment a WHERE a.status = 0 AND a.appointmentTime >= :from " +
+           "AND a.appointmentTime < :before ORDER BY a.appointmentTime")
+    List<Long> findScheduledIdsStartingBetween(@Param("from") LocalDateTime from,
+                                               @Param("before") LocalDateTime before,
+                                               Pageable pageable);
+
+    // 10. Mark a chunk of scheduled appointments as completed in one statement
+    @Modifying
+    @Transactional
+    @Query("UPDATE Appointment a SET a.status = 1 WHERE a.status = 0 AND a.id IN :ids")
+    int completeScheduledByIds(@Param("ids") List<Long> ids);
+
+    // 11. Patient appointments split on appointment time instead of status (patient_id, appointment_time index)
+    List<Appointment> findByPatient_IdAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(Long patientId, LocalDateTime time);
+
+    List<Appointment> findByPatient_IdAndAppointmentTimeGreaterThanEqualOrderByAppointmentTimeAsc(Long patientId, LocalDateTime time);
+
+    List<Appointment> findByDoctor_NameContainingIgnoreCaseAndPatientIdAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(
+            String doctorName, Long patientId, LocalDateTime time
+    );
+
+    List<Appointment> findByDoctor_NameContainingIgnoreCaseAndPatientIdAndAppointmentTimeGreaterThanEqualOrderByAppointmentTimeAsc(
+            String doctorName, Long patientId, LocalDateTime time
+    );
+
+    // 12. Keyset pages of a patient's timeline, positioned by (appointmentTime, id)
+    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId AND " +
+           "(a.appointmentTime > :time OR (a.appointmentTime = :time AND a.id > :id)) " +
+           "ORDER BY a.appointmentTime ASC, a.id ASC")
+    List<Appointment> findPatientTimelineAfter(@Param("patientId") Long patientId,
+                                               @Param("time") LocalDateTime time,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+
+    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId AND " +
+           "(a.appointmentTime < :time OR (a.appointmentTime = :time AND a.id < :id)) " +
+           "ORDER BY a.appointmentTime DESC, a.id DESC")
+    List<Appointment> findPatientTimelineBefore(@Param("patientId") Long patientId,
+                                                @Param("time") LocalDateTime time,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
+
+    // 13. Flat schedule rows for one doctor and time range, without hydrating the entity graph
+    @Query("SELECT new com.smartclinic.back_end.DTO.ScheduleEntry(a.id, a.appointmentTime, p.id, p.name, a.status) " +
+           "FROM Appointment a JOIN a.patient p WHERE a.doctor.id = :doctorId " +
+           "AND a.appointmentTime BETWEEN :start AND :end ORDER BY a.appointmentTime, a.id")
+    List<ScheduleEntry> findScheduleEntries(@Param("doctorId") Long doctorId,
+                                            @Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
+
+    // 14. Status change that reports whether the row actually changed (0 when it already had the status)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Appointment a SET a.status = :status WHERE a.id = :id AND a.status <> :status")
+    int changeStatusIfDifferent(@Param("status") int status, @Param("id") long id);
+
+    // 15. Locks the still-scheduled subset of a chunk so completing it and counting it agree;
+    // doctor and time come along for the slot events
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id AS id, a.doctor.id AS doctorId, a.appointmentTime AS time FROM Appointment a " +
+           "WHERE a.status = 0 AND a.id IN :ids")
+    List<ScheduledSlot> lockScheduledByIds(@Param("ids") List<Long> ids);
+
+    // 16. Live per-day, per-doctor counts for [from, before), used to rebuild the reporting rollup
+    @Query(value = "SELECT DATE(a.appointment_time) AS day, a.doctor_id AS doctorId, " +
+                   "COUNT(*) AS booked, SUM(CASE WHEN a.status = 1 THEN 1 ELSE 0 END) AS completed " +
+                   "FROM appointment a WHERE a.appointment_time >= :from AND a.appointment_time < :before " +
+                   "GROUP BY DATE(a.appointment_time), a.doctor_id", nativeQuery = true)
+    List<DailyCount> countByDayAndDoctor(@Param("from") LocalDateTime from, @Param("before") LocalDateTime before);
+
+    // 17. Completed appointments that ended up behind the retention window, oldest first ((status, appointment_time) index)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id FROM Appointment a WHERE a.status = 1 AND a.appointmentTime < :before ORDER BY a.appointmentTime")
+    List<Long> findArchivableIds(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // 18. Removes a chunk already copied to appointment_archive
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Appointment a WHERE a.id IN :ids")
+    int deleteAllByIds(@Param("ids") List<Long> ids);
+
+    // 19. Taken (doctor, time) pairs for a set of doctors and time range, for free-slot searches (doctor_id, appointment_time index)
+    @Query("SELECT a.doctor.id AS doctorId, a.appointmentTime AS time FROM Appointment a " +
+           "WHERE a.doctor.id IN :doctorIds AND a.appointmentTime BETWEEN :start AND :end")
+    List<BookedSlot> findBookedSlots(@Param("doctorIds") Collection<Long> doctorIds,
+                                     @Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end);
+
+    // 20. Start of the oldest appointment still in the table, where the reporting backfill begins
+    @Query("SELECT MIN(a.appointmentTime) FROM Appointment a")
+    LocalDateTime findEarliestAppointmentTime();
+
+    interface BookedSlot {
+        Long getDoctorId();
+        LocalDateTime getTime();
+    }
+
+    interface ScheduledSlot extends BookedSlot {
+        Long getId();
+    }
+
+    interface DailyCount {
+        LocalDate getDay();
+        Long getDoctorId();
+        long getBooked();
+        long getCompleted();
+    }
 }
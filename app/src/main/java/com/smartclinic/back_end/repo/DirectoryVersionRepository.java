@@ -0,0 +1,26 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.DirectoryVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface DirectoryVersionRepository extends JpaRepository<DirectoryVersion, String> {
+
+    // Current version, 0 before the first change
+    @Query("SELECT COALESCE(MAX(v.version), 0) FROM DirectoryVersion v WHERE v.name = :name")
+    long currentVersion(@Param("name") String name);
+
+    // Increments the version, creating the row on first use. Runs inside the caller's
+    // transaction so the new version commits or rolls back with the change.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO directory_version (name, version) VALUES (:name, 1) " +
+                   "ON DUPLICATE KEY UPDATE version = version + 1",
+           nativeQuery = true)
+    int bump(@Param("name") String name);
+}
@@ -4,6 +4,7 @@ import com.smartclinic.back_end.models.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -58,4 +59,8 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long>  {
     // 4. Find doctors by specialty (case-insensitive)
     List<Doctor> findBySpecialtyIgnoreCase(String specialty);
 
+    // 5. Doctors of a specialty with their slot times in one query, for availability searches
+    @Query("SELECT DISTINCT d FROM Doctor d LEFT JOIN FETCH d.availableTimes WHERE LOWER(d.specialty) = LOWER(:specialty)")
+    List<Doctor> findBySpecialtyWithTimes(@Param("specialty") String specialty);
+
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.DoctorScheduleSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DoctorScheduleSlotRepository extends JpaRepository<DoctorScheduleSlot, Long> {
+
+    // 1. Templates of several doctors at once, for searches across a specialty
+    List<DoctorScheduleSlot> findByDoctorIdIn(Collection<Long> doctorIds);
+
+    List<DoctorScheduleSlot> findByDoctorIdAndDayOfWeek(Long doctorId, DayOfWeek dayOfWeek);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DoctorScheduleSlot s WHERE s.doctorId = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") Long doctorId);
+}
@@ -0,0 +1,12 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.Medication;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MedicationRepository extends MongoRepository<Medication, Integer> {
+
+    // 1. Find a catalog entry by its normalized medication text
+    Medication findByName(String name);
+}
@@ -0,0 +1,58 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.PrescriptionOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PrescriptionOutboxRepository extends JpaRepository<PrescriptionOutbox, Long> {
+
+    Optional<PrescriptionOutbox> findByAppointmentId(Long appointmentId);
+
+    boolean existsByAppointmentId(Long appointmentId);
+
+    @Query("SELECT o.appointmentId FROM PrescriptionOutbox o WHERE o.appointmentId IN :appointmentIds")
+    List<Long> findAppointmentIdsIn(@Param("appointmentIds") Collection<Long> appointmentIds);
+
+    // Delivered, payload-less marker for a prescription that reached Mongo before the outbox
+    // existed; a row recorded meanwhile wins (uk_prescription_outbox_appointment)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO prescription_outbox (appointment_id, payload, created_at, delivered_at) " +
+                   "VALUES (:appointmentId, '', :now, :now)",
+           nativeQuery = true)
+    int insertDeliveredMarker(@Param("appointmentId") Long appointmentId, @Param("now") LocalDateTime now);
+
+    long countByDeliveredAtIsNullAndConflictAtIsNull();
+
+    long countByConflictAtIsNotNull();
+
+    // Oldest undelivered rows first, served by idx_prescription_outbox_delivered
+    List<PrescriptionOutbox> findByDeliveredAtIsNullAndConflictAtIsNullOrderByIdAsc(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PrescriptionOutbox o SET o.deliveredAt = :now WHERE o.id IN :ids")
+    int markDelivered(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PrescriptionOutbox o SET o.conflictAt = :now WHERE o.id IN :ids")
+    int markConflict(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    // Keeps the row, so existsByAppointmentId still rejects a second prescription after the purge
+    @Modifying
+    @Transactional
+    @Query("UPDATE PrescriptionOutbox o SET o.payload = '' WHERE o.deliveredAt < :before AND o.payload <> ''")
+    int clearDeliveredBefore(@Param("before") LocalDateTime before);
+}
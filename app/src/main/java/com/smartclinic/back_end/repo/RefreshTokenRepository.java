@@ -0,0 +1,39 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    RefreshToken findByTokenHash(String tokenHash);
+
+    // Compare-and-set used by rotation: 0 when another request already used or revoked the token
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.id = :id AND r.revokedAt IS NULL")
+    int revokeIfActive(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.familyId = :familyId AND r.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now " +
+           "WHERE r.role = :role AND r.userId = :userId AND r.revokedAt IS NULL")
+    int revokeUser(@Param("role") String role, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
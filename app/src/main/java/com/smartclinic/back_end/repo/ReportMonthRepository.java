@@ -0,0 +1,27 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.ReportMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ReportMonthRepository extends JpaRepository<ReportMonth, LocalDate> {
+
+    boolean existsByMonthAndRecountedTrue(LocalDate month);
+
+    // Records a rebuild inside the rebuilding transaction; once recounted, a month stays recounted
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO report_month (month, recounted, rebuilt_at) VALUES (:month, :recounted, :now) " +
+                   "ON DUPLICATE KEY UPDATE recounted = recounted OR VALUES(recounted), rebuilt_at = VALUES(rebuilt_at)",
+           nativeQuery = true)
+    int markRebuilt(@Param("month") LocalDate month, @Param("recounted") boolean recounted,
+                    @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,27 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.ScheduleException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ScheduleExceptionRepository extends JpaRepository<ScheduleException, Long> {
+
+    // 1. Exceptions from a date on ((doctor_id, exception_date) index)
+    List<ScheduleException> findByDoctorIdInAndDateGreaterThanEqual(Collection<Long> doctorIds, LocalDate from);
+
+    List<ScheduleException> findByDoctorIdAndDateGreaterThanEqualOrderByDateAscStartTimeAsc(Long doctorId, LocalDate from);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ScheduleException e WHERE e.doctorId = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") Long doctorId);
+}
@@ -0,0 +1,62 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.SlotHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SlotHoldRepository extends JpaRepository<SlotHold, Long> {
+
+    // 1. Takes the hold unless the slot is already held; returns 0 in that case instead of
+    //    raising a constraint violation, which would mark the caller's transaction rollback-only
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO slot_hold (doctor_id, slot_time, patient_id, entry_id, expires_at) " +
+                   "VALUES (:doctorId, :slotTime, :patientId, :entryId, :expiresAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("doctorId") Long doctorId, @Param("slotTime") LocalDateTime slotTime,
+                       @Param("patientId") Long patientId, @Param("entryId") Long entryId,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    // 2. Lookups for booking and availability; only unexpired holds count
+    @Query("SELECT COUNT(h) > 0 FROM SlotHold h WHERE h.doctorId = :doctorId AND h.slotTime = :slotTime " +
+           "AND h.patientId <> :patientId AND h.expiresAt > :now")
+    boolean isHeldForOther(@Param("doctorId") Long doctorId, @Param("slotTime") LocalDateTime slotTime,
+                           @Param("patientId") Long patientId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT h.slotTime FROM SlotHold h WHERE h.doctorId = :doctorId " +
+           "AND h.slotTime BETWEEN :start AND :end AND h.expiresAt > :now")
+    List<LocalDateTime> findHeldTimes(@Param("doctorId") Long doctorId, @Param("start") LocalDateTime start,
+                                      @Param("end") LocalDateTime end, @Param("now") LocalDateTime now);
+
+    @Query("SELECT h.doctorId AS doctorId, h.slotTime AS time FROM SlotHold h WHERE h.doctorId IN :doctorIds " +
+           "AND h.slotTime BETWEEN :start AND :end AND h.expiresAt > :now")
+    List<AppointmentRepository.BookedSlot> findHeldSlots(@Param("doctorIds") Collection<Long> doctorIds,
+                                                         @Param("start") LocalDateTime start,
+                                                         @Param("end") LocalDateTime end,
+                                                         @Param("now") LocalDateTime now);
+
+    // 3. Release
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SlotHold h WHERE h.entryId = :entryId")
+    int deleteByEntryId(@Param("entryId") Long entryId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SlotHold h WHERE h.doctorId = :doctorId AND h.slotTime = :slotTime AND h.expiresAt <= :now")
+    int deleteExpired(@Param("doctorId") Long doctorId, @Param("slotTime") LocalDateTime slotTime,
+                      @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SlotHold h WHERE h.doctorId = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") Long doctorId);
+}
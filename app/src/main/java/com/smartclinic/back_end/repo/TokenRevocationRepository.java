@@ -0,0 +1,24 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    // Revocations recorded since a time (idx_token_revocation_time); read on load and by every poll
+    List<TokenRevocation> findByRevokedAtAfterOrderByIdAsc(LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocation t WHERE t.revokedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
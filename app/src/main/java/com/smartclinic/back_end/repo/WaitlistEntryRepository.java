@@ -0,0 +1,55 @@
+package com.smartclinic.back_end.repo;
+
+import com.smartclinic.back_end.models.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // 1. Queue rebuilds, oldest first
+    List<WaitlistEntry> findByStatusOrderByCreatedAtAscIdAsc(WaitlistEntry.Status status);
+
+    // 2. Patient views and limits
+    List<WaitlistEntry> findByPatientIdAndStatusInOrderByCreatedAtAsc(Long patientId, Collection<WaitlistEntry.Status> statuses);
+
+    long countByPatientIdAndStatusIn(Long patientId, Collection<WaitlistEntry.Status> statuses);
+
+    boolean existsByPatientIdAndDoctorIdAndStatusIn(Long patientId, Long doctorId, Collection<WaitlistEntry.Status> statuses);
+
+    // 3. Conditional transitions: 0 rows means another node or request got there first
+    @Modifying
+    @Transactional
+    @Query("UPDATE WaitlistEntry w SET w.status = com.smartclinic.back_end.models.WaitlistEntry.Status.OFFERED, " +
+           "w.offeredTime = :time, w.offerExpiresAt = :expiresAt " +
+           "WHERE w.id = :id AND w.status = com.smartclinic.back_end.models.WaitlistEntry.Status.WAITING")
+    int claimForOffer(@Param("id") Long id, @Param("time") LocalDateTime time, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WaitlistEntry w SET w.status = :to WHERE w.id = :id AND w.status = :from")
+    int transition(@Param("id") Long id, @Param("from") WaitlistEntry.Status from, @Param("to") WaitlistEntry.Status to);
+
+    // 4. Sweeps
+    List<WaitlistEntry> findByStatusAndOfferExpiresAtBefore(WaitlistEntry.Status status, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WaitlistEntry w SET w.status = com.smartclinic.back_end.models.WaitlistEntry.Status.EXPIRED " +
+           "WHERE w.status = com.smartclinic.back_end.models.WaitlistEntry.Status.WAITING AND w.toDate < :today")
+    int expireWaitingBefore(@Param("today") LocalDate today);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WaitlistEntry w WHERE w.doctorId = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") Long doctorId);
+}
@@ -0,0 +1,128 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.models.Appointment;
+import com.smartclinic.back_end.models.ArchivedAppointment;
+import com.smartclinic.back_end.repo.AppointmentArchiveRepository;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Keeps `appointment` small: completed appointments older than archive.retention-days are moved
+// to appointment_archive in chunks, each chunk copied and deleted in one transaction.
+// Everything in the archive starts before the archive boundary, so a read whose range starts at or
+// after it never touches the archive; the read paths call covers() and only then add archived rows.
+@Service
+public class AppointmentArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentArchiveService.class);
+
+    // Ascending (appointmentTime, id), the order of every merged read
+    public static final Comparator<Appointment> TIMELINE_ORDER =
+            Comparator.comparing(Appointment::getAppointmentTime).thenComparing(Appointment::getId);
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentArchiveRepository archiveRepository;
+    private final TransactionTemplate transactions;
+
+    @Value("${archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archive.retention-days:365}")
+    private long retentionDays;
+
+    @Value("${archive.batch-size:1000}")
+    private int batchSize;
+
+    // Latest appointment time in the archive, so rows archived under a shorter retention stay
+    // reachable after it is raised. null while the archive is empty.
+    private volatile LocalDateTime archivedThrough;
+    private volatile boolean archivedThroughLoaded;
+
+    public AppointmentArchiveService(AppointmentRepository appointmentRepository,
+                                     AppointmentArchiveRepository archiveRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.archiveRepository = archiveRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    // True when [start, ...) may include archived appointments; null means unbounded
+    public boolean covers(LocalDateTime start) {
+        return start == null || !start.isAfter(boundary());
+    }
+
+    // Nothing in the archive is later than this
+    public LocalDateTime boundary() {
+        LocalDateTime cutoff = cutoff();
+        LocalDateTime through = archivedThroughLoaded ? archivedThrough : refreshArchivedThrough();
+        return through != null && through.isAfter(cutoff) ? through : cutoff;
+    }
+
+    // Hot and archived rows in ascending (appointmentTime, id) order
+    public static List<Appointment> merge(List<Appointment> hot, List<ArchivedAppointment> archived) {
+        if (archived.isEmpty()) return hot;
+        List<Appointment> merged = new ArrayList<>(hot.size() + archived.size());
+        merged.addAll(hot);
+        archived.forEach(a -> merged.add(a.toAppointment()));
+        merged.sort(TIMELINE_ORDER);
+        return merged;
+    }
+
+    @Scheduled(cron = "${archive.cron:0 30 2 * * *}")
+    public void archiveCompleted() {
+        if (!enabled) return;
+        LocalDateTime cutoff = cutoff();
+        long start = System.nanoTime();
+        int moved = 0;
+        try {
+            int count;
+            do {
+                // The chunk is selected FOR UPDATE, so a second node running the job waits and then skips it
+                Integer chunk = transactions.execute(status -> {
+                    List<Long> ids = appointmentRepository.findArchivableIds(cutoff, PageRequest.of(0, batchSize));
+                    if (ids.isEmpty()) return 0;
+                    archiveRepository.copyFromAppointments(ids, LocalDateTime.now());
+                    appointmentRepository.deleteAllByIds(ids);
+                    return ids.size();
+                });
+                count = chunk == null ? 0 : chunk;
+                moved += count;
+            } while (count == batchSize);
+        } catch (Exception e) {
+            // Committed chunks stay archived; the rest is picked up by the next run
+            logger.error("Appointment archival stopped after {} rows", moved, e);
+        }
+        refreshArchivedThrough();
+        if (moved > 0) {
+            logger.info("Archived {} appointments completed before {} in {} ms", moved, cutoff,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDate.now().minusDays(retentionDays).atStartOfDay();
+    }
+
+    private LocalDateTime refreshArchivedThrough() {
+        try {
+            archivedThrough = archiveRepository.findLatestAppointmentTime();
+            archivedThroughLoaded = true;
+        } catch (DataAccessException e) {
+            logger.warn("Could not read the archive boundary: {}", e.getMessage());
+        }
+        return archivedThrough;
+    }
+}
@@ -0,0 +1,248 @@
+package com.smartclinic.back_end.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Full appointment dumps for auditors and billing, streamed straight from MySQL to the response.
+// Rows are read through a forward-only, read-only cursor with a fixed fetch size and written
+// through a gzip stream, so memory stays flat however large the table is. The cursor needs
+// useCursorFetch, which would also turn every other fetch-size query into a server-side cursor,
+// so exports use a small connection pool of their own with only that property set.
+// Exports run on their own small pool with a bounded queue; when it is full the executor rejects
+// the task and the caller answers 503, leaving servlet threads and the JDBC pool to clinical traffic.
+@Service
+public class AppointmentExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentExportService.class);
+
+    private static final String CSV_HEADER =
+            "appointment_id,appointment_time,status,doctor_id,doctor_name,specialty,patient_id,patient_name\n";
+
+    public enum Format {
+        CSV("csv"),
+        NDJSON("ndjson");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    private final HikariDataSource cursorDataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final AppointmentArchiveService archive;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor executor;
+    private final Counter rowCounter;
+
+    @Value("${export.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${export.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public AppointmentExportService(DataSourceProperties dataSourceProperties,
+                                    AppointmentArchiveService archive,
+                                    ObjectMapper objectMapper,
+                                    @Value("${export.threads:2}") int threads,
+                                    @Value("${export.queue:2}") int queueSize,
+                                    MeterRegistry meterRegistry) {
+        // Same database and credentials as the main pool; connections are opened on the first export
+        // and closed again once idle
+        this.cursorDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        cursorDataSource.setPoolName("export");
+        cursorDataSource.setMaximumPoolSize(threads);
+        cursorDataSource.setMinimumIdle(0);
+        cursorDataSource.setIdleTimeout(TimeUnit.MINUTES.toMillis(1));
+        cursorDataSource.setReadOnly(true);
+        cursorDataSource.addDataSourceProperty("useCursorFetch", "true");
+        this.jdbcTemplate = new JdbcTemplate(cursorDataSource);
+        this.archive = archive;
+        this.objectMapper = objectMapper;
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueSize);
+        executor.setThreadNamePrefix("appointment-export-");
+        executor.setDaemon(true);
+        executor.initialize();
+
+        this.rowCounter = Counter.builder("clinic.export.rows")
+                .description("Appointment rows written by exports")
+                .register(meterRegistry);
+        meterRegistry.gauge("clinic.export.active", executor, ThreadPoolTaskExecutor::getActiveCount);
+    }
+
+    // The returned task writes the whole body itself; a full pool surfaces as TaskRejectedException
+    // when Spring MVC submits it, before any header has been set.
+    public WebAsyncTask<Void> exportTask(Format format, LocalDate from, LocalDate to, HttpServletResponse response) {
+        return new WebAsyncTask<>(timeoutMs, executor, () -> {
+            String name = "appointments" + (from != null ? "-" + from : "") + (to != null ? "-" + to : "");
+            response.setContentType("application/gzip");
+            response.setHeader("Content-Disposition",
+                    "attachment; filename=\"" + name + "." + format.extension + ".gz\"");
+
+            long start = System.nanoTime();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(response.getOutputStream(), 8192), StandardCharsets.UTF_8), 16384)) {
+                long rows = write(format, from, to, writer);
+                logger.info("Exported {} appointments as {} in {} ms", rows, format,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return null;
+        });
+    }
+
+    private long write(Format format, LocalDate from, LocalDate to, Writer writer) throws IOException {
+        RowWriter rowWriter;
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            rowWriter = rs -> writeCsv(rs, writer);
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            rowWriter = rs -> writeJson(rs, generator, writer);
+        }
+
+        long[] rows = {0};
+        RowCallbackHandler handler = rs -> {
+            try {
+                rowWriter.write(rs);
+            } catch (IOException e) {
+                // Client went away; abandon the cursor
+                throw new SQLException("Export aborted: " + e.getMessage(), e);
+            }
+            rows[0]++;
+        };
+        try {
+            // Archived (older) appointments first, then the live table; one cursor at a time, no server-side sort
+            if (archive.covers(from == null ? null : from.atStartOfDay())) {
+                jdbcTemplate.query(cursor("appointment_archive", from, to), handler);
+            }
+            jdbcTemplate.query(cursor("appointment", from, to), handler);
+        } finally {
+            rowCounter.increment(rows[0]);
+        }
+        return rows[0];
+    }
+
+    private PreparedStatementCreator cursor(String table, LocalDate from, LocalDate to) {
+        return connection -> {
+            StringBuilder sql = new StringBuilder(
+                    "SELECT a.id, a.appointment_time, a.status, a.doctor_id, d.name, d.specialty, a.patient_id, p.name " +
+                    "FROM " + table + " a JOIN doctor d ON d.id = a.doctor_id JOIN patient p ON p.id = a.patient_id " +
+                    "WHERE 1 = 1");
+            List<Object> args = new ArrayList<>(2);
+            if (from != null) {
+                sql.append(" AND a.appointment_time >= ?");
+                args.add(from.atStartOfDay());
+            }
+            if (to != null) {
+                sql.append(" AND a.appointment_time < ?");
+                args.add(to.plusDays(1).atStartOfDay());
+            }
+            // Primary key order needs no sort on the server
+            sql.append(" ORDER BY a.id");
+
+            PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        };
+    }
+
+    private static void writeCsv(ResultSet rs, Writer writer) throws SQLException, IOException {
+        writer.write(Long.toString(rs.getLong(1)));
+        writer.write(',');
+        writer.write(rs.getObject(2, LocalDateTime.class).toString());
+        writer.write(',');
+        writer.write(Integer.toString(rs.getInt(3)));
+        writer.write(',');
+        writer.write(Long.toString(rs.getLong(4)));
+        writer.write(',');
+        writeCsvText(rs.getString(5), writer);
+        writer.write(',');
+        writeCsvText(rs.getString(6), writer);
+        writer.write(',');
+        writer.write(Long.toString(rs.getLong(7)));
+        writer.write(',');
+        writeCsvText(rs.getString(8), writer);
+        writer.write('\n');
+    }
+
+    // RFC 4180 quoting; a leading formula character is prefixed so spreadsheets show it as text
+    private static void writeCsvText(String value, Writer writer) throws IOException {
+        if (value == null || value.isEmpty()) return;
+        boolean formula = "=+-@".indexOf(value.charAt(0)) >= 0;
+        boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) writer.write('\'');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeJson(ResultSet rs, JsonGenerator generator, Writer writer) throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("appointmentId", rs.getLong(1));
+        generator.writeStringField("appointmentTime", rs.getObject(2, LocalDateTime.class).toString());
+        generator.writeNumberField("status", rs.getInt(3));
+        generator.writeNumberField("doctorId", rs.getLong(4));
+        generator.writeStringField("doctorName", rs.getString(5));
+        generator.writeStringField("specialty", rs.getString(6));
+        generator.writeNumberField("patientId", rs.getLong(7));
+        generator.writeStringField("patientName", rs.getString(8));
+        generator.writeEndObject();
+        generator.flush();
+        writer.write('\n');
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        cursorDataSource.close();
+    }
+}
@@ -1,16 +1,24 @@
 package com.smartclinic.back_end.services;
 
+import com.smartclinic.back_end.DTO.ScheduleEntry;
+import com.smartclinic.back_end.DTO.SlotEvent;
 import com.smartclinic.back_end.models.Appointment;
 import com.smartclinic.back_end.models.Doctor;
 import com.smartclinic.back_end.models.Patient;
+import com.smartclinic.back_end.repo.AppointmentArchiveRepository;
 import com.smartclinic.back_end.repo.AppointmentRepository;
 import com.smartclinic.back_end.repo.DoctorRepository;
 import com.smartclinic.back_end.repo.PatientRepository;
+import com.smartclinic.back_end.repo.SlotHoldRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import com.smartclinic.back_end.services.TokenService;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -62,6 +70,12 @@ private final AppointmentRepository appointmentRepository;
     private final PatientRepository patientRepository;
     //private final Service sharedService;
     private final TokenService tokenService;
+    private final ScheduleSnapshotService scheduleSnapshots;
+    private final ApplicationEventPublisher events;
+    private final ReportingService reporting;
+    private final AppointmentArchiveRepository archiveRepository;
+    private final AppointmentArchiveService archive;
+    private final SlotHoldRepository holdRepository;
 
     @Autowired
     public AppointmentService(
@@ -69,21 +83,44 @@ private final AppointmentRepository appointmentRepository;
             DoctorRepository doctorRepository,
             PatientRepository patientRepository,
             //Service sharedService,
-            TokenService tokenService
+            TokenService tokenService,
+            ScheduleSnapshotService scheduleSnapshots,
+            ApplicationEventPublisher events,
+            ReportingService reporting,
+            AppointmentArchiveRepository archiveRepository,
+            AppointmentArchiveService archive,
+            SlotHoldRepository holdRepository
     ) {
         this.appointmentRepository = appointmentRepository;
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
         //this.sharedService = sharedService;
         this.tokenService = tokenService;
+        this.scheduleSnapshots = scheduleSnapshots;
+        this.events = events;
+        this.reporting = reporting;
+        this.archiveRepository = archiveRepository;
+        this.archive = archive;
+        this.holdRepository = holdRepository;
     }
 
     // 4. Book Appointment
+    // -1 when the slot is held for another patient by a waitlist offer, -2 when it is already booked
     @Transactional
     public int bookAppointment(Appointment appointment) {
+        if (isHeldForOther(appointment)) {
+            return -1;
+        }
         try {
-            appointmentRepository.save(appointment);
+            // Flushed here so a booking that lost the race fails on uk_appointment_doctor_time inside this try
+            Appointment saved = appointmentRepository.saveAndFlush(appointment);
+            reporting.booked(saved.getDoctor().getId(), saved.getAppointmentTime());
+            scheduleSnapshots.appointmentSaved(saved.getDoctor().getId(), toScheduleEntry(saved));
+            publishSlotEvent("booked", saved.getDoctor().getId(), saved.getAppointmentTime(), saved.getId(), saved.getStatus());
             return 1;
+        } catch (DataIntegrityViolationException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return -2;
         } catch (Exception e) {
             e.printStackTrace();
             return 0;
@@ -99,6 +136,10 @@ private final AppointmentRepository appointmentRepository;
         }
 
         Appointment existing = optionalAppointment.get();
+        // Captured before save(), which merges the new state into the managed entity
+        Long previousDoctorId = existing.getDoctor().getId();
+        LocalDateTime previousTime = existing.getAppointmentTime();
+        int previousStatus = existing.getStatus();
 
         if (!existing.getPatient().getId().equals(updatedAppointment.getPatient().getId())) {
             return "Unauthorized: Patient mismatch";
@@ -116,8 +157,29 @@ private final AppointmentRepository appointmentRepository;
             conflictingAppointments.stream().noneMatch(a -> a.getId().equals(updatedAppointment.getId()))) {
             return "Doctor not available at selected time";
         }
+        if (isHeldForOther(updatedAppointment)) {
+            return "Slot is held for a waitlisted patient";
+        }
 
-        appointmentRepository.save(updatedAppointment);
+        Appointment saved;
+        try {
+            saved = appointmentRepository.saveAndFlush(updatedAppointment);
+        } catch (DataIntegrityViolationException e) {
+            // Another booking took the exact slot after the check above
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return "Doctor not available at selected time";
+        }
+        reporting.moved(previousDoctorId, previousTime, previousStatus,
+                saved.getDoctor().getId(), saved.getAppointmentTime(), saved.getStatus());
+        scheduleSnapshots.appointmentRemoved(previousDoctorId, previousTime, saved.getId());
+        scheduleSnapshots.appointmentSaved(saved.getDoctor().getId(), toScheduleEntry(saved));
+        // Only a move frees a slot; subscribers and the waitlist must not see a release otherwise
+        if (!previousDoctorId.equals(saved.getDoctor().getId()) || !previousTime.equals(saved.getAppointmentTime())) {
+            publishSlotEvent("released", previousDoctorId, previousTime, saved.getId(), saved.getStatus());
+            publishSlotEvent("booked", saved.getDoctor().getId(), saved.getAppointmentTime(), saved.getId(), saved.getStatus());
+        } else if (previousStatus != saved.getStatus()) {
+            publishSlotEvent("status", previousDoctorId, previousTime, saved.getId(), saved.getStatus());
+        }
         return "Updated successfully";
     }
 
@@ -135,23 +197,70 @@ private final AppointmentRepository appointmentRepository;
         }
 
         appointmentRepository.deleteById(id);
+        reporting.cancelled(appointment.getDoctor().getId(), appointment.getAppointmentTime(), appointment.getStatus());
+        scheduleSnapshots.appointmentRemoved(appointment.getDoctor().getId(), appointment.getAppointmentTime(), id);
+        publishSlotEvent("released", appointment.getDoctor().getId(), appointment.getAppointmentTime(), id, appointment.getStatus());
         return "Appointment cancelled successfully";
     }
 
     // 7. Get Appointments
     @Transactional(readOnly = true)
     public List<Appointment> getAppointments(Long doctorId, String patientName, LocalDateTime start, LocalDateTime end) {
+        boolean archived = archive.covers(start);
         if (patientName.equalsIgnoreCase("none")) {
-            return appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
+            List<Appointment> hot = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
+            return archived ? AppointmentArchiveService.merge(hot,
+                    archiveRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end)) : hot;
         }
-        return appointmentRepository.findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
+        List<Appointment> hot = appointmentRepository.findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
                 doctorId, patientName, start, end
         );
+        return archived ? AppointmentArchiveService.merge(hot,
+                archiveRepository.findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
+                        doctorId, patientName, start, end)) : hot;
+    }
+
+    // 7b. Daily schedule for the doctor dashboard, served from the in-memory snapshot
+    public List<ScheduleEntry> getDailySchedule(Long doctorId, LocalDate date, String patientName) {
+        String filter = patientName == null || patientName.equalsIgnoreCase("none")
+                || patientName.equalsIgnoreCase("null") ? null : patientName;
+        return scheduleSnapshots.getSchedule(doctorId, date, filter);
     }
 
     // 8. Change Status
     @Transactional
     public void changeStatus(int status, long appointmentId) {
-        appointmentRepository.updateAppointmentStatusById(status, appointmentId);
+        Optional<Appointment> appointment = appointmentRepository.findById(appointmentId);
+        // Read before the update, which bypasses the persistence context
+        int previousStatus = appointment.map(Appointment::getStatus).orElse(status);
+        if (appointmentRepository.changeStatusIfDifferent(status, appointmentId) == 0) {
+            return;
+        }
+        scheduleSnapshots.statusChanged(List.of(appointmentId), status);
+        appointment.ifPresent(a -> {
+            reporting.statusChanged(a.getDoctor().getId(), a.getAppointmentTime(), previousStatus, status);
+            publishSlotEvent("status", a.getDoctor().getId(), a.getAppointmentTime(), appointmentId, status);
+        });
+    }
+
+    // Delivered to stream subscribers by SlotEventBus once the transaction commits
+    private void publishSlotEvent(String type, Long doctorId, LocalDateTime time, Long appointmentId, int status) {
+        events.publishEvent(new SlotEvent(type, doctorId, time.toLocalDate(), time.toLocalTime(), appointmentId, status));
+    }
+
+    private boolean isHeldForOther(Appointment appointment) {
+        return holdRepository.isHeldForOther(appointment.getDoctor().getId(), appointment.getAppointmentTime(),
+                appointment.getPatient().getId(), LocalDateTime.now());
+    }
+
+    private ScheduleEntry toScheduleEntry(Appointment appointment) {
+        Long patientId = appointment.getPatient().getId();
+        String patientName = appointment.getPatient().getName();
+        if (patientName == null) {
+            // Booking requests usually reference the patient by id only
+            patientName = patientRepository.findById(patientId).map(Patient::getName).orElse(null);
+        }
+        return new ScheduleEntry(appointment.getId(), appointment.getAppointmentTime(),
+                patientId, patientName, appointment.getStatus());
     }
 }
@@ -0,0 +1,94 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.SlotEvent;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Moves scheduled appointments whose end time has passed to completed (status 1).
+// Each run walks the (status, appointment_time) index from the last committed
+// watermark up to the cutoff in fixed-size chunks, one short transaction per chunk.
+@Component
+public class AppointmentStatusScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentStatusScheduler.class);
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final AppointmentRepository appointmentRepository;
+    private final ScheduleSnapshotService scheduleSnapshots;
+    private final ReportingService reporting;
+    private final TransactionTemplate transactions;
+    private final ApplicationEventPublisher events;
+
+    @Value("${appointment.status.chunk-size:500}")
+    private int chunkSize;
+
+    // Everything before the watermark has already been transitioned
+    private volatile LocalDateTime watermark = EPOCH;
+
+    public AppointmentStatusScheduler(AppointmentRepository appointmentRepository,
+                                      ScheduleSnapshotService scheduleSnapshots,
+                                      ReportingService reporting,
+                                      PlatformTransactionManager transactionManager,
+                                      ApplicationEventPublisher events) {
+        this.appointmentRepository = appointmentRepository;
+        this.scheduleSnapshots = scheduleSnapshots;
+        this.reporting = reporting;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.events = events;
+    }
+
+    @Scheduled(fixedDelayString = "${appointment.status.sweep-interval-ms:60000}",
+               initialDelayString = "${appointment.status.initial-delay-ms:30000}")
+    public void completeEndedAppointments() {
+        // An appointment ends one hour after it starts (see Appointment.getEndTime)
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(1);
+        try {
+            int completed = 0;
+            List<Long> ids;
+            do {
+                ids = appointmentRepository.findScheduledIdsStartingBetween(
+                        watermark, cutoff, PageRequest.of(0, chunkSize));
+                if (!ids.isEmpty()) {
+                    completed += completeChunk(ids);
+                    scheduleSnapshots.statusChanged(ids, 1);
+                }
+            } while (ids.size() == chunkSize);
+
+            watermark = cutoff;
+            if (completed > 0) {
+                logger.info("Marked {} appointments as completed (ended before {})", completed, cutoff);
+            }
+        } catch (Exception e) {
+            // Watermark is left unchanged so the next run retries the same range
+            logger.error("Appointment status sweep failed", e);
+        }
+    }
+
+    // Completes the chunk and counts it in the reporting rollup in one transaction; the row
+    // locks keep a concurrent changeStatus from completing (and counting) the same appointment.
+    // Dashboards following the doctors' days get a status event per appointment after commit.
+    private int completeChunk(List<Long> ids) {
+        Integer completed = transactions.execute(status -> {
+            List<AppointmentRepository.ScheduledSlot> scheduled = appointmentRepository.lockScheduledByIds(ids);
+            if (scheduled.isEmpty()) return 0;
+            List<Long> scheduledIds = scheduled.stream().map(AppointmentRepository.ScheduledSlot::getId).toList();
+            int updated = appointmentRepository.completeScheduledByIds(scheduledIds);
+            reporting.completed(scheduledIds);
+            scheduled.forEach(slot -> events.publishEvent(new SlotEvent("status", slot.getDoctorId(),
+                    slot.getTime().toLocalDate(), slot.getTime().toLocalTime(), slot.getId(), 1)));
+            return updated;
+        });
+        return completed == null ? 0 : completed;
+    }
+}
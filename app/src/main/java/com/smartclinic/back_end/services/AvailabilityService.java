@@ -0,0 +1,213 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.AvailabilityCalendar;
+import com.smartclinic.back_end.DTO.AvailableSlot;
+import com.smartclinic.back_end.models.Doctor;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import com.smartclinic.back_end.repo.DoctorRepository;
+import com.smartclinic.back_end.repo.SlotHoldRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Free-slot searches over many doctors or days, answered with a fixed number of queries:
+// the doctors, then every taken slot (appointments and waitlist holds) in the range at once.
+// Free slots are never materialised up front; each doctor gets a cursor that walks its slot
+// times (DoctorScheduleService) day by day, skipping taken ones, and the cursors are merged in time order.
+@Service
+public class AvailabilityService {
+
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final SlotHoldRepository holdRepository;
+    private final DoctorScheduleService scheduleService;
+
+    @Value("${availability.search.max-days:60}")
+    private int maxDays;
+
+    @Value("${availability.search.max-results:50}")
+    private int maxResults;
+
+    public AvailabilityService(DoctorRepository doctorRepository,
+                               AppointmentRepository appointmentRepository,
+                               SlotHoldRepository holdRepository,
+                               DoctorScheduleService scheduleService) {
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.holdRepository = holdRepository;
+        this.scheduleService = scheduleService;
+    }
+
+    // Earliest `limit` open slots over the next `days` days (today included) among doctors of the
+    // specialty, optionally only AM or PM slots. With leastLoaded, doctors free at the same time
+    // are ordered by how many of their slots in the range are already taken.
+    @Transactional(readOnly = true)
+    public List<AvailableSlot> nextAvailable(String specialty, String period, int days, int limit, boolean leastLoaded) {
+        int horizon = Math.max(1, Math.min(days, maxDays));
+        int wanted = Math.max(1, Math.min(limit, maxResults));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate lastDay = now.toLocalDate().plusDays(horizon - 1L);
+
+        List<Doctor> doctors = doctorRepository.findBySpecialtyWithTimes(specialty);
+        if (doctors.isEmpty()) return List.of();
+        Map<Long, Set<LocalDateTime>> taken = takenSlots(doctors, now, lastDay.atTime(LocalTime.MAX));
+        scheduleService.preload(doctors);
+        boolean am = "AM".equalsIgnoreCase(period);
+        boolean pm = "PM".equalsIgnoreCase(period);
+        Predicate<LocalTime> inPeriod = t -> (!am || t.isBefore(LocalTime.NOON)) && (!pm || !t.isBefore(LocalTime.NOON));
+
+        Comparator<FreeSlots> order = Comparator.comparing(FreeSlots::current);
+        if (leastLoaded) {
+            order = order.thenComparingInt(FreeSlots::load);
+        }
+        order = order.thenComparing(cursor -> cursor.doctor.getId());
+
+        PriorityQueue<FreeSlots> heap = new PriorityQueue<>(order);
+        for (Doctor doctor : doctors) {
+            FreeSlots cursor = new FreeSlots(doctor, date -> scheduleService.slotsOn(doctor, date), inPeriod,
+                    taken.getOrDefault(doctor.getId(), Set.of()), now, lastDay);
+            if (cursor.advance()) heap.add(cursor);
+        }
+
+        List<AvailableSlot> slots = new ArrayList<>(wanted);
+        while (slots.size() < wanted && !heap.isEmpty()) {
+            FreeSlots cursor = heap.poll();
+            slots.add(new AvailableSlot(cursor.doctor.getId(), cursor.doctor.getName(),
+                    cursor.doctor.getSpecialty(), cursor.current()));
+            if (cursor.advance()) heap.add(cursor);
+        }
+        return slots;
+    }
+
+    // Free slots of one doctor for `days` consecutive days from `from`, with one query for the
+    // appointments in the whole range. null when the doctor does not exist.
+    @Transactional(readOnly = true)
+    public AvailabilityCalendar calendar(Long doctorId, LocalDate from, int days) {
+        Optional<Doctor> optionalDoctor = doctorRepository.findById(doctorId);
+        if (optionalDoctor.isEmpty()) return null;
+        Doctor doctor = optionalDoctor.get();
+
+        int span = Math.max(1, Math.min(days, maxDays));
+        LocalDate to = from.plusDays(span - 1L);
+        LocalDateTime now = LocalDateTime.now();
+        Set<LocalDateTime> taken = takenSlots(List.of(doctor), from.atStartOfDay(), to.atTime(LocalTime.MAX))
+                .getOrDefault(doctorId, Set.of());
+
+        // Days can have different slots (weekly template, exceptions); bits index their union
+        TreeSet<LocalTime> union = new TreeSet<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            union.addAll(Arrays.asList(scheduleService.slotsOn(doctor, day)));
+        }
+        LocalTime[] times = union.toArray(new LocalTime[0]);
+
+        List<String> free = new ArrayList<>(span);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            BitSet open = new BitSet(times.length);
+            for (LocalTime time : scheduleService.slotsOn(doctor, day)) {
+                LocalDateTime slot = day.atTime(time);
+                if (slot.isAfter(now) && !taken.contains(slot)) open.set(Arrays.binarySearch(times, time));
+            }
+            free.add(toHex(open));
+        }
+        return new AvailabilityCalendar(doctorId, from, to, List.of(times), free);
+    }
+
+    // Taken slots per doctor: appointments and unexpired waitlist holds
+    private Map<Long, Set<LocalDateTime>> takenSlots(List<Doctor> doctors, LocalDateTime start, LocalDateTime end) {
+        List<Long> ids = doctors.stream().map(Doctor::getId).toList();
+        Map<Long, Set<LocalDateTime>> taken = new HashMap<>();
+        appointmentRepository.findBookedSlots(ids, start, end)
+                .forEach(s -> taken.computeIfAbsent(s.getDoctorId(), k -> new HashSet<>()).add(s.getTime()));
+        holdRepository.findHeldSlots(ids, start, end, start)
+                .forEach(s -> taken.computeIfAbsent(s.getDoctorId(), k -> new HashSet<>()).add(s.getTime()));
+        return taken;
+    }
+
+    private static String toHex(BitSet bits) {
+        if (bits.isEmpty()) return "0";
+        return new BigInteger(1, reverse(bits.toByteArray())).toString(16);
+    }
+
+    // BitSet.toByteArray is little-endian, BigInteger expects big-endian
+    private static byte[] reverse(byte[] bytes) {
+        for (int i = 0, j = bytes.length - 1; i < j; i++, j--) {
+            byte b = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = b;
+        }
+        return bytes;
+    }
+
+    // Lazily walks one doctor's free slots in time order
+    private static final class FreeSlots {
+
+        private final Doctor doctor;
+        private final Function<LocalDate, LocalTime[]> slotsOn;
+        private final Predicate<LocalTime> inPeriod;
+        private final Set<LocalDateTime> taken;
+        private final LocalDateTime notBefore;
+        private final LocalDate lastDay;
+        private final int load;
+        private LocalDate day;
+        private LocalTime[] times;
+        private int index;
+        private LocalDateTime current;
+
+        private FreeSlots(Doctor doctor, Function<LocalDate, LocalTime[]> slotsOn, Predicate<LocalTime> inPeriod,
+                          Set<LocalDateTime> taken, LocalDateTime notBefore, LocalDate lastDay) {
+            this.doctor = doctor;
+            this.slotsOn = slotsOn;
+            this.inPeriod = inPeriod;
+            this.taken = taken;
+            this.notBefore = notBefore;
+            this.lastDay = lastDay;
+            this.load = taken.size();
+            this.day = notBefore.toLocalDate();
+        }
+
+        private boolean advance() {
+            while (!day.isAfter(lastDay)) {
+                if (times == null) times = slotsOn.apply(day);
+                while (index < times.length) {
+                    LocalTime time = times[index++];
+                    LocalDateTime slot = day.atTime(time);
+                    if (inPeriod.test(time) && slot.isAfter(notBefore) && !taken.contains(slot)) {
+                        current = slot;
+                        return true;
+                    }
+                }
+                day = day.plusDays(1);
+                times = null;
+                index = 0;
+            }
+            return false;
+        }
+
+        private LocalDateTime current() {
+            return current;
+        }
+
+        private int load() {
+            return load;
+        }
+    }
+}
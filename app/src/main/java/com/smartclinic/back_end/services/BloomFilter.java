@@ -0,0 +1,63 @@
+package com.smartclinic.back_end.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size, lock-free Bloom filter over strings. Used as the fast negative check
+// in front of the exact revocation map: most tokens were never revoked, and for
+// those the answer comes from a few bit reads without touching the map.
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final int numBits;
+    private final int numHashes;
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, bits));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        this.words = new AtomicLongArray((numBits + 63) >>> 6);
+    }
+
+    void put(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+            long mask = 1L << bit;
+            int index = bit >>> 6;
+            long word;
+            do {
+                word = words.get(index);
+                if ((word & mask) != 0) break;
+            } while (!words.compareAndSet(index, word, word | mask));
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    // FNV-1a over the UTF-16 code units, finished with the murmur3 fmix64 avalanche step
+    private static long hash64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
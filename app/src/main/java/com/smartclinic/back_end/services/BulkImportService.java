@@ -0,0 +1,429 @@
+package com.smartclinic.back_end.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.smartclinic.back_end.DTO.ImportReport;
+import com.smartclinic.back_end.models.Doctor;
+import com.smartclinic.back_end.models.Patient;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bulk onboarding of doctors and patients from CSV (header row, availableTimes separated by ';')
+// or NDJSON (one JSON object per line).
+// The input is read line by line in chunks of batch-size rows. Each chunk is validated against
+// the entity's bean constraints and deduplicated in input order against the emails/phones preloaded
+// from the database and the rows before it; only the surviving rows have their passwords hashed, in
+// parallel, and they are then written with one JDBC batch per table (rewriteBatchedStatements turns
+// it into multi-row INSERTs).
+// When a batch fails, its rows are retried one by one so only the offending rows are rejected.
+// One import runs at a time; the dedupe sets are only valid while nothing else is importing.
+@Service
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    private static final String INSERT_DOCTOR =
+            "INSERT INTO doctor (name, specialty, email, password, phone) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_DOCTOR_TIME =
+            "INSERT INTO doctor_available_times (doctor_id, available_times) VALUES (?, ?)";
+    private static final String INSERT_PATIENT =
+            "INSERT INTO patient (name, email, address, phone, password) VALUES (?, ?, ?, ?, ?)";
+
+    public enum Format { CSV, NDJSON }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactions;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final Validator validator;
+    private final PasswordService passwordService;
+    private final DoctorService doctorService;
+    private final ForkJoinPool pool;
+    private final ReentrantLock running = new ReentrantLock();
+
+    @Value("${import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${import.max-errors:1000}")
+    private int maxErrors;
+
+    public BulkImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             PasswordService passwordService,
+                             DoctorService doctorService,
+                             @Value("${import.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        this.validator = validator;
+        this.passwordService = passwordService;
+        this.doctorService = doctorService;
+        // Password hashing dominates; by default leave half the cores to the requests served meanwhile
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public ImportReport importDoctors(InputStream in, Format format) throws IOException {
+        return run(in, format, new DoctorImport());
+    }
+
+    public ImportReport importPatients(InputStream in, Format format) throws IOException {
+        return run(in, format, new PatientImport());
+    }
+
+    private <T> ImportReport run(InputStream in, Format format, EntityImport<T> target) throws IOException {
+        if (!running.tryLock()) {
+            throw new ImportBusyException();
+        }
+        try {
+            long start = System.nanoTime();
+            Progress progress = new Progress();
+            target.preload();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 65536);
+            long line = 0;
+            ObjectReader rowReader;
+            if (format == Format.CSV) {
+                String header = reader.readLine();
+                line++;
+                rowReader = header == null ? null : csvReader(header, target.type);
+            } else {
+                rowReader = objectMapper.readerFor(target.type);
+            }
+
+            List<Row<T>> chunk = new ArrayList<>(batchSize);
+            String text;
+            while (rowReader != null && (text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) continue;
+                progress.received++;
+                try {
+                    chunk.add(new Row<>(line, rowReader.readValue(text)));
+                } catch (JsonProcessingException e) {
+                    progress.reject(line, null, "Unreadable row: " + e.getOriginalMessage());
+                }
+                if (chunk.size() == batchSize) {
+                    process(chunk, target, progress);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                process(chunk, target, progress);
+            }
+            target.finish(progress.imported);
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            logger.info("Imported {} of {} {} rows in {} ms ({} rejected)", progress.imported, progress.received,
+                    target.type.getSimpleName(), elapsedMs, progress.rejected);
+            return new ImportReport(progress.received, progress.imported, progress.rejected, elapsedMs, progress.errors);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    // Maps columns by the header names, which must match the JSON property names
+    private ObjectReader csvReader(String header, Class<?> type) throws IOException {
+        String[] columns = csvMapper.readerFor(String[].class).readValue(header);
+        CsvSchema.Builder schema = CsvSchema.builder().setArrayElementSeparator(";");
+        for (String column : columns) {
+            schema.addColumn(column.trim());
+        }
+        return csvMapper.readerFor(type).with(schema.build());
+    }
+
+    private <T> void process(List<Row<T>> chunk, EntityImport<T> target, Progress progress) {
+        // 1. Bean constraints and duplicates, in input order so the first occurrence wins
+        List<Row<T>> accepted = new ArrayList<>(chunk.size());
+        for (Row<T> row : chunk) {
+            String error = violation(row.value);
+            if (error == null) {
+                error = target.claim(row.value);
+            }
+            if (error != null) {
+                progress.reject(row.line, target.email(row.value), error);
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) return;
+
+        // 2. Password hashing of the rows that will be written, spread over the pool
+        pool.submit(() -> accepted.parallelStream().forEach(row -> target.prepare(row.value))).join();
+
+        // 3. One batch per table; on failure fall back to row by row to find the culprits
+        try {
+            transactions.executeWithoutResult(status -> target.insert(accepted));
+            progress.imported += accepted.size();
+        } catch (DataAccessException batchFailure) {
+            for (Row<T> row : accepted) {
+                try {
+                    transactions.executeWithoutResult(status -> target.insert(List.of(row)));
+                    progress.imported++;
+                } catch (DataAccessException e) {
+                    target.release(row.value);
+                    progress.reject(row.line, target.email(row.value),
+                            NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                }
+            }
+        }
+    }
+
+    private <T> String violation(T value) {
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        ConstraintViolation<T> violation = violations.iterator().next();
+        return violation.getPropertyPath() + " " + violation.getMessage();
+    }
+
+    private static String key(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Row<T> {
+        private final long line;
+        private final T value;
+
+        private Row(long line, T value) {
+            this.line = line;
+            this.value = value;
+        }
+    }
+
+    private final class Progress {
+        private long received;
+        private long imported;
+        private long rejected;
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+
+        private void reject(long line, String email, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportReport.RowError(line, email, message));
+            }
+        }
+    }
+
+    // Per-entity steps of the pipeline
+    private abstract static class EntityImport<T> {
+        private final Class<T> type;
+
+        EntityImport(Class<T> type) {
+            this.type = type;
+        }
+
+        abstract void preload();
+
+        // Runs on the pool
+        abstract void prepare(T value);
+
+        // Records the row's unique keys; returns why it is a duplicate, or null
+        abstract String claim(T value);
+
+        // Forgets the keys of a row that could not be written
+        abstract void release(T value);
+
+        abstract String email(T value);
+
+        abstract void insert(List<Row<T>> rows);
+
+        void finish(long imported) {
+        }
+    }
+
+    private final class DoctorImport extends EntityImport<Doctor> {
+        private Set<String> emails;
+
+        DoctorImport() {
+            super(Doctor.class);
+        }
+
+        @Override
+        void preload() {
+            emails = new HashSet<>(jdbcTemplate.queryForList("SELECT LOWER(email) FROM doctor", String.class));
+        }
+
+        @Override
+        void prepare(Doctor doctor) {
+            doctor.setPassword(passwordService.encodeIfNeeded(doctor.getPassword()));
+        }
+
+        @Override
+        String claim(Doctor doctor) {
+            return emails.add(key(doctor.getEmail())) ? null : "Email already registered";
+        }
+
+        @Override
+        void release(Doctor doctor) {
+            emails.remove(key(doctor.getEmail()));
+        }
+
+        @Override
+        String email(Doctor doctor) {
+            return doctor.getEmail();
+        }
+
+        @Override
+        void insert(List<Row<Doctor>> rows) {
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_DOCTOR, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Doctor doctor = rows.get(i).value;
+                            ps.setString(1, doctor.getName());
+                            ps.setString(2, doctor.getSpecialty());
+                            ps.setString(3, doctor.getEmail());
+                            ps.setString(4, doctor.getPassword());
+                            ps.setString(5, doctor.getPhone());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return rows.size();
+                        }
+                    }, keys);
+
+            // Keys come back in statement order
+            List<Object[]> times = new ArrayList<>();
+            List<Map<String, Object>> generated = keys.getKeyList();
+            for (int i = 0; i < rows.size(); i++) {
+                List<String> availableTimes = rows.get(i).value.getAvailableTimes();
+                if (availableTimes == null) continue;
+                Number id = (Number) generated.get(i).values().iterator().next();
+                for (String time : availableTimes) {
+                    times.add(new Object[]{id.longValue(), time});
+                }
+            }
+            if (!times.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_DOCTOR_TIME, times);
+            }
+        }
+
+        @Override
+        void finish(long imported) {
+            if (imported > 0) {
+                doctorService.directoryChanged();
+            }
+        }
+    }
+
+    private final class PatientImport extends EntityImport<Patient> {
+        private Set<String> emails;
+        private Set<String> phones;
+
+        PatientImport() {
+            super(Patient.class);
+        }
+
+        @Override
+        void preload() {
+            emails = new HashSet<>(jdbcTemplate.queryForList("SELECT LOWER(email) FROM patient", String.class));
+            phones = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT phone FROM patient WHERE phone IS NOT NULL", String.class));
+        }
+
+        @Override
+        void prepare(Patient patient) {
+            patient.setPassword(passwordService.encodeIfNeeded(patient.getPassword()));
+        }
+
+        // Same rule as Services.validatePatient: neither the email nor the phone may be taken
+        @Override
+        String claim(Patient patient) {
+            String email = key(patient.getEmail());
+            if (emails.contains(email)) return "Email already registered";
+            if (patient.getPhone() != null && phones.contains(patient.getPhone())) return "Phone already registered";
+            emails.add(email);
+            if (patient.getPhone() != null) phones.add(patient.getPhone());
+            return null;
+        }
+
+        @Override
+        void release(Patient patient) {
+            emails.remove(key(patient.getEmail()));
+            if (patient.getPhone() != null) phones.remove(patient.getPhone());
+        }
+
+        @Override
+        String email(Patient patient) {
+            return patient.getEmail();
+        }
+
+        @Override
+        void insert(List<Row<Patient>> rows) {
+            jdbcTemplate.batchUpdate(INSERT_PATIENT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Patient patient = rows.get(i).value;
+                    ps.setString(1, patient.getName());
+                    ps.setString(2, patient.getEmail());
+                    ps.setString(3, patient.getAddress());
+                    ps.setString(4, patient.getPhone());
+                    ps.setString(5, patient.getPassword());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Thrown when an import is requested while another one is still running
+    public static class ImportBusyException extends RuntimeException {
+        public ImportBusyException() {
+            super("Another import is already running");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.ScheduleEntry;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Immutable, column-oriented copy of one doctor's appointments for one day.
+// Rows are kept sorted by (time, id); every change produces a new snapshot so
+// readers never need a lock.
+final class DailyScheduleSnapshot {
+
+    static final DailyScheduleSnapshot EMPTY =
+            new DailyScheduleSnapshot(new long[0], new int[0], new long[0], new String[0], new byte[0]);
+
+    private final long[] ids;
+    private final int[] secondsOfDay;
+    private final long[] patientIds;
+    private final String[] patientNames;
+    private final byte[] statuses;
+
+    private DailyScheduleSnapshot(long[] ids, int[] secondsOfDay, long[] patientIds, String[] patientNames, byte[] statuses) {
+        this.ids = ids;
+        this.secondsOfDay = secondsOfDay;
+        this.patientIds = patientIds;
+        this.patientNames = patientNames;
+        this.statuses = statuses;
+    }
+
+    // Entries must already be sorted by appointment time
+    static DailyScheduleSnapshot of(List<ScheduleEntry> entries) {
+        DailyScheduleSnapshot snapshot = EMPTY;
+        for (ScheduleEntry entry : entries) {
+            snapshot = snapshot.with(entry);
+        }
+        return snapshot;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int indexOf(long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) return i;
+        }
+        return -1;
+    }
+
+    // Inserts the entry, replacing any existing row with the same appointment id
+    DailyScheduleSnapshot with(ScheduleEntry entry) {
+        DailyScheduleSnapshot base = without(entry.getId());
+        int second = entry.getAppointmentTime().toLocalTime().toSecondOfDay();
+
+        int at = 0;
+        while (at < base.size() && (base.secondsOfDay[at] < second
+                || (base.secondsOfDay[at] == second && base.ids[at] < entry.getId()))) {
+            at++;
+        }
+
+        int n = base.size() + 1;
+        long[] newIds = new long[n];
+        int[] newSeconds = new int[n];
+        long[] newPatientIds = new long[n];
+        String[] newNames = new String[n];
+        byte[] newStatuses = new byte[n];
+        base.copyInto(0, at, newIds, newSeconds, newPatientIds, newNames, newStatuses, 0);
+        newIds[at] = entry.getId();
+        newSeconds[at] = second;
+        newPatientIds[at] = entry.getPatientId() != null ? entry.getPatientId() : 0L;
+        newNames[at] = entry.getPatientName();
+        newStatuses[at] = (byte) entry.getStatus();
+        base.copyInto(at, base.size() - at, newIds, newSeconds, newPatientIds, newNames, newStatuses, at + 1);
+        return new DailyScheduleSnapshot(newIds, newSeconds, newPatientIds, newNames, newStatuses);
+    }
+
+    DailyScheduleSnapshot without(long id) {
+        int at = indexOf(id);
+        if (at < 0) return this;
+
+        int n = size() - 1;
+        long[] newIds = new long[n];
+        int[] newSeconds = new int[n];
+        long[] newPatientIds = new long[n];
+        String[] newNames = new String[n];
+        byte[] newStatuses = new byte[n];
+        copyInto(0, at, newIds, newSeconds, newPatientIds, newNames, newStatuses, 0);
+        copyInto(at + 1, n - at, newIds, newSeconds, newPatientIds, newNames, newStatuses, at);
+        return new DailyScheduleSnapshot(newIds, newSeconds, newPatientIds, newNames, newStatuses);
+    }
+
+    // Sets the status of every listed appointment present in this snapshot
+    DailyScheduleSnapshot withStatus(Collection<Long> appointmentIds, int status) {
+        byte[] newStatuses = null;
+        for (Long id : appointmentIds) {
+            int at = indexOf(id);
+            if (at < 0 || statuses[at] == status) continue;
+            if (newStatuses == null) newStatuses = statuses.clone();
+            newStatuses[at] = (byte) status;
+        }
+        if (newStatuses == null) return this;
+        return new DailyScheduleSnapshot(ids, secondsOfDay, patientIds, patientNames, newStatuses);
+    }
+
+    // Materializes the rows for the response, optionally keeping only matching patient names
+    List<ScheduleEntry> toEntries(LocalDate date, String patientNameFilter) {
+        String filter = patientNameFilter != null ? patientNameFilter.toLowerCase() : null;
+        List<ScheduleEntry> entries = new ArrayList<>(size());
+        for (int i = 0; i < ids.length; i++) {
+            if (filter != null && (patientNames[i] == null || !patientNames[i].toLowerCase().contains(filter))) {
+                continue;
+            }
+            entries.add(new ScheduleEntry(ids[i], date.atTime(LocalTime.ofSecondOfDay(secondsOfDay[i])),
+                    patientIds[i], patientNames[i], statuses[i]));
+        }
+        return entries;
+    }
+
+    private void copyInto(int from, int length, long[] newIds, int[] newSeconds, long[] newPatientIds,
+                          String[] newNames, byte[] newStatuses, int to) {
+        System.arraycopy(ids, from, newIds, to, length);
+        System.arraycopy(secondsOfDay, from, newSeconds, to, length);
+        System.arraycopy(patientIds, from, newPatientIds, to, length);
+        System.arraycopy(patientNames, from, newNames, to, length);
+        System.arraycopy(statuses, from, newStatuses, to, length);
+    }
+}
@@ -0,0 +1,273 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.models.Doctor;
+import com.smartclinic.back_end.models.DoctorScheduleSlot;
+import com.smartclinic.back_end.models.ScheduleException;
+import com.smartclinic.back_end.repo.DirectoryVersionRepository;
+import com.smartclinic.back_end.repo.DoctorRepository;
+import com.smartclinic.back_end.repo.DoctorScheduleSlotRepository;
+import com.smartclinic.back_end.repo.ScheduleExceptionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Doctors' bookable slot times per date: a weekly template (doctor_schedule_slot) adjusted by dated
+// exceptions (doctor_schedule_exception). Doctors without a template keep using the flat
+// Doctor.availableTimes list for every day.
+// Each doctor's schedule is compiled once and kept for schedule.cache-ttl-ms (edits on this node
+// drop it at once); days are expanded on first use and memoised in it.
+@Service
+public class DoctorScheduleService {
+
+    private static final LocalTime[] NONE = new LocalTime[0];
+
+    private final DoctorScheduleSlotRepository slotRepository;
+    private final ScheduleExceptionRepository exceptionRepository;
+    private final DoctorRepository doctorRepository;
+    private final DirectoryVersionRepository versionRepository;
+    private final Map<Long, Schedule> schedules = new ConcurrentHashMap<>();
+
+    @Value("${schedule.cache-ttl-ms:60000}")
+    private long cacheTtlMs;
+
+    public DoctorScheduleService(DoctorScheduleSlotRepository slotRepository,
+                                 ScheduleExceptionRepository exceptionRepository,
+                                 DoctorRepository doctorRepository,
+                                 DirectoryVersionRepository versionRepository) {
+        this.slotRepository = slotRepository;
+        this.exceptionRepository = exceptionRepository;
+        this.doctorRepository = doctorRepository;
+        this.versionRepository = versionRepository;
+    }
+
+    // Ascending slot start times of the doctor on the date; the returned array must not be modified
+    public LocalTime[] slotsOn(Doctor doctor, LocalDate date) {
+        Schedule schedule = schedules.get(doctor.getId());
+        if (schedule == null || schedule.isStale()) {
+            schedule = load(List.of(doctor)).get(doctor.getId());
+        }
+        return schedule.on(date);
+    }
+
+    // Compiles the schedules of several doctors with two queries, ahead of a search over all of them
+    public void preload(Collection<Doctor> doctors) {
+        List<Doctor> missing = doctors.stream()
+                .filter(d -> {
+                    Schedule schedule = schedules.get(d.getId());
+                    return schedule == null || schedule.isStale();
+                })
+                .toList();
+        if (!missing.isEmpty()) load(missing);
+    }
+
+    // Weekly template and the exceptions from today on, for the admin schedule editor
+    @Transactional(readOnly = true)
+    public Map<String, Object> getSchedule(Long doctorId) {
+        Map<DayOfWeek, List<LocalTime>> weekly = new EnumMap<>(DayOfWeek.class);
+        slotRepository.findByDoctorIdIn(List.of(doctorId)).forEach(slot ->
+                weekly.computeIfAbsent(slot.getDayOfWeek(), d -> new ArrayList<>()).add(slot.getStartTime()));
+        weekly.values().forEach(times -> times.sort(null));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("weekly", weekly);
+        result.put("exceptions", exceptionRepository
+                .findByDoctorIdAndDateGreaterThanEqualOrderByDateAscStartTimeAsc(doctorId, LocalDate.now()));
+        return result;
+    }
+
+    // Replaces one weekday of the template by inserting and deleting only the slots that differ.
+    // An empty list clears the weekday; a doctor whose template becomes empty falls back to availableTimes.
+    @Transactional
+    public Map<String, Object> setWeekday(Long doctorId, DayOfWeek day, List<String> times) {
+        requireDoctor(doctorId);
+        Set<LocalTime> wanted = new TreeSet<>();
+        for (String time : times == null ? List.<String>of() : times) {
+            LocalTime start = slotStart(time);
+            if (start == null) throw new IllegalArgumentException("Invalid slot time: " + time);
+            wanted.add(start);
+        }
+
+        List<DoctorScheduleSlot> current = slotRepository.findByDoctorIdAndDayOfWeek(doctorId, day);
+        List<DoctorScheduleSlot> removed = current.stream()
+                .filter(slot -> !wanted.contains(slot.getStartTime()))
+                .toList();
+        Set<LocalTime> existing = current.stream().map(DoctorScheduleSlot::getStartTime).collect(Collectors.toSet());
+        List<DoctorScheduleSlot> added = wanted.stream()
+                .filter(time -> !existing.contains(time))
+                .map(time -> new DoctorScheduleSlot(doctorId, day, time))
+                .toList();
+
+        slotRepository.deleteAllInBatch(removed);
+        slotRepository.saveAll(added);
+        scheduleChanged(doctorId);
+        versionRepository.bump(DoctorService.DIRECTORY);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("added", added.size());
+        result.put("removed", removed.size());
+        return result;
+    }
+
+    @Transactional
+    public ScheduleException addException(Long doctorId, ScheduleException exception) {
+        requireDoctor(doctorId);
+        if (exception.getDate() == null || exception.getKind() == null) {
+            throw new IllegalArgumentException("date and kind are required");
+        }
+        if (exception.getKind() == ScheduleException.Kind.EXTRA && exception.getStartTime() == null) {
+            throw new IllegalArgumentException("An EXTRA exception needs a startTime");
+        }
+        exception.setId(null);
+        exception.setDoctorId(doctorId);
+        ScheduleException saved = exceptionRepository.save(exception);
+        scheduleChanged(doctorId);
+        versionRepository.bump(DoctorService.DIRECTORY);
+        return saved;
+    }
+
+    // False when the exception does not exist or belongs to another doctor
+    @Transactional
+    public boolean removeException(Long doctorId, Long exceptionId) {
+        return exceptionRepository.findById(exceptionId)
+                .filter(e -> e.getDoctorId().equals(doctorId))
+                .map(e -> {
+                    exceptionRepository.delete(e);
+                    scheduleChanged(doctorId);
+                    versionRepository.bump(DoctorService.DIRECTORY);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    // Called by DoctorService inside the transactions that delete a doctor or change availableTimes
+    void doctorChanged(Long doctorId, boolean deleted) {
+        if (deleted) {
+            slotRepository.deleteAllByDoctorId(doctorId);
+            exceptionRepository.deleteAllByDoctorId(doctorId);
+        }
+        scheduleChanged(doctorId);
+    }
+
+    // Slot strings are either a start time ("09:00") or a range ("09:00-10:00"); null when unparseable
+    static LocalTime slotStart(String slot) {
+        if (slot == null) return null;
+        int dash = slot.indexOf('-');
+        try {
+            return LocalTime.parse((dash > 0 ? slot.substring(0, dash) : slot).trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private Map<Long, Schedule> load(List<Doctor> doctors) {
+        List<Long> ids = doctors.stream().map(Doctor::getId).toList();
+        Map<Long, Map<DayOfWeek, TreeSet<LocalTime>>> weekly = new HashMap<>();
+        slotRepository.findByDoctorIdIn(ids).forEach(slot -> weekly
+                .computeIfAbsent(slot.getDoctorId(), k -> new EnumMap<>(DayOfWeek.class))
+                .computeIfAbsent(slot.getDayOfWeek(), d -> new TreeSet<>())
+                .add(slot.getStartTime()));
+        // Earlier days need no exceptions: slots in the past are never open
+        Map<Long, Map<LocalDate, List<ScheduleException>>> exceptions = new HashMap<>();
+        exceptionRepository.findByDoctorIdInAndDateGreaterThanEqual(ids, LocalDate.now()).forEach(e -> exceptions
+                .computeIfAbsent(e.getDoctorId(), k -> new HashMap<>())
+                .computeIfAbsent(e.getDate(), d -> new ArrayList<>())
+                .add(e));
+
+        long expiresAt = System.currentTimeMillis() + cacheTtlMs;
+        Map<Long, Schedule> loaded = new HashMap<>();
+        for (Doctor doctor : doctors) {
+            Map<DayOfWeek, LocalTime[]> template = new EnumMap<>(DayOfWeek.class);
+            weekly.getOrDefault(doctor.getId(), Map.of())
+                    .forEach((day, times) -> template.put(day, times.toArray(NONE)));
+            LocalTime[] flat = doctor.getAvailableTimes() == null ? NONE : doctor.getAvailableTimes().stream()
+                    .map(DoctorScheduleService::slotStart)
+                    .filter(t -> t != null)
+                    .distinct()
+                    .sorted()
+                    .toArray(LocalTime[]::new);
+            Schedule schedule = new Schedule(flat, template, exceptions.getOrDefault(doctor.getId(), Map.of()), expiresAt);
+            schedules.put(doctor.getId(), schedule);
+            loaded.put(doctor.getId(), schedule);
+        }
+        return loaded;
+    }
+
+    private void requireDoctor(Long doctorId) {
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new IllegalArgumentException("Doctor not found");
+        }
+    }
+
+    // Dropped now and again after commit, so a read racing the edit cannot keep the old schedule
+    private void scheduleChanged(Long doctorId) {
+        schedules.remove(doctorId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    schedules.remove(doctorId);
+                }
+            });
+        }
+    }
+
+    private static final class Schedule {
+
+        private final LocalTime[] flat;
+        private final Map<DayOfWeek, LocalTime[]> weekly;
+        private final Map<LocalDate, List<ScheduleException>> exceptions;
+        private final long expiresAt;
+        private final Map<LocalDate, LocalTime[]> days = new ConcurrentHashMap<>();
+
+        private Schedule(LocalTime[] flat, Map<DayOfWeek, LocalTime[]> weekly,
+                         Map<LocalDate, List<ScheduleException>> exceptions, long expiresAt) {
+            this.flat = flat;
+            this.weekly = weekly;
+            this.exceptions = exceptions;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isStale() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+
+        private LocalTime[] on(LocalDate date) {
+            return days.computeIfAbsent(date, this::expand);
+        }
+
+        private LocalTime[] expand(LocalDate date) {
+            LocalTime[] base = weekly.isEmpty() ? flat : weekly.getOrDefault(date.getDayOfWeek(), NONE);
+            List<ScheduleException> changes = exceptions.get(date);
+            if (changes == null) return base;
+
+            TreeSet<LocalTime> times = new TreeSet<>(List.of(base));
+            for (ScheduleException change : changes) {
+                if (change.getKind() != ScheduleException.Kind.CLOSED) continue;
+                if (change.getStartTime() == null) times.clear();
+                else times.remove(change.getStartTime());
+            }
+            // Extra slots apply even on a day that is otherwise closed
+            for (ScheduleException change : changes) {
+                if (change.getKind() == ScheduleException.Kind.EXTRA) times.add(change.getStartTime());
+            }
+            return times.toArray(NONE);
+        }
+    }
+}
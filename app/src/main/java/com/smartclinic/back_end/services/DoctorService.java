@@ -2,12 +2,19 @@ package com.smartclinic.back_end.services;
 
 import com.smartclinic.back_end.models.Doctor;
 import com.smartclinic.back_end.models.Appointment;
+import com.smartclinic.back_end.repo.AppointmentArchiveRepository;
 import com.smartclinic.back_end.repo.AppointmentRepository;
+import com.smartclinic.back_end.repo.DirectoryVersionRepository;
 import com.smartclinic.back_end.repo.DoctorRepository;
+import com.smartclinic.back_end.repo.SlotHoldRepository;
+import com.smartclinic.back_end.repo.WaitlistEntryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,7 +28,7 @@ public class DoctorService {
 //    - Instruction: Add `@Service` above the class declaration.
 
 // 2. **Constructor Injection for Dependencies**:
-//    - The `DoctorService` class depends on `DoctorRepository`, `AppointmentRepository`, and `TokenService`.
+//    - The `DoctorService` class depends on `DoctorRepository`, `AppointmentRepository`, and `RefreshTokenService`.
 //    - These dependencies should be injected via the constructor for proper dependency management.
 //    - Instruction: Ensure constructor injection is used for injecting dependencies into the service.
 
@@ -103,13 +110,36 @@ public class DoctorService {
 
  private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
-    private final TokenService tokenService;
+    private final AppointmentArchiveRepository archiveRepository;
+    private final SlotHoldRepository holdRepository;
+    private final WaitlistEntryRepository waitlistRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final PasswordService passwordService;
+    private final DoctorScheduleService scheduleService;
+    // Directory version behind the /doctor/get and /doctor/filter ETags, shared by all nodes
+    private final DirectoryVersionRepository versionRepository;
+
+    // Also bumped by DoctorScheduleService, since schedules decide the AM/PM filter results
+    static final String DIRECTORY = "doctors";
+
+    @Value("${doctor.filter.days:7}")
+    private int filterDays;
 
     @Autowired
-    public DoctorService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository, TokenService tokenService) {
+    public DoctorService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository,
+                         AppointmentArchiveRepository archiveRepository,
+                         SlotHoldRepository holdRepository, WaitlistEntryRepository waitlistRepository,
+                         RefreshTokenService refreshTokenService, PasswordService passwordService,
+                         DoctorScheduleService scheduleService, DirectoryVersionRepository versionRepository) {
         this.doctorRepository = doctorRepository;
         this.appointmentRepository = appointmentRepository;
-        this.tokenService = tokenService;
+        this.archiveRepository = archiveRepository;
+        this.holdRepository = holdRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.passwordService = passwordService;
+        this.scheduleService = scheduleService;
+        this.versionRepository = versionRepository;
     }
 
     @Transactional(readOnly = true)
@@ -118,9 +148,8 @@ public class DoctorService {
         if (optionalDoctor.isEmpty()) return Collections.emptyList();
 
         Doctor doctor = optionalDoctor.get();
-        List<LocalTime> availableSlots = doctor.getAvailableTimes().stream()
-                .map(LocalTime::parse)
-                .collect(Collectors.toList());
+        // Weekly template and exceptions for the date, or the flat availableTimes without a template
+        List<LocalTime> availableSlots = Arrays.asList(scheduleService.slotsOn(doctor, LocalDate.parse(date)));
 
         List<Appointment> bookedAppointments = appointmentRepository
                 .findByDoctorIdAndAppointmentTimeBetween(doctorId,
@@ -129,6 +158,9 @@ public class DoctorService {
         Set<LocalTime> bookedTimes = bookedAppointments.stream()
                 .map(a -> a.getAppointmentTime().toLocalTime())
                 .collect(Collectors.toSet());
+        // Slots held for a waitlisted patient are not bookable until the offer ends
+        holdRepository.findHeldTimes(doctorId, getStartOfDay(date), getEndOfDay(date), LocalDateTime.now())
+                .forEach(time -> bookedTimes.add(time.toLocalTime()));
 
         return availableSlots.stream()
                 .filter(time -> !bookedTimes.contains(time))
@@ -139,7 +171,9 @@ public class DoctorService {
     public int saveDoctor(Doctor doctor) {
         if (doctorRepository.findByEmail(doctor.getEmail()) != null) return -1;
         try {
+            doctor.setPassword(passwordService.encodeIfNeeded(doctor.getPassword()));
             doctorRepository.save(doctor);
+            directoryChanged();
             return 1;
         } catch (Exception e) {
             e.printStackTrace();
@@ -149,9 +183,23 @@ public class DoctorService {
 
     @Transactional
     public int updateDoctor(Doctor doctor) {
-        if (!doctorRepository.existsById(doctor.getId())) return -1;
+        Optional<Doctor> optionalDoctor = doctorRepository.findById(doctor.getId());
+        if (optionalDoctor.isEmpty()) return -1;
         try {
-            doctorRepository.save(doctor);
+            Doctor current = optionalDoctor.get();
+            current.setName(doctor.getName());
+            current.setSpecialty(doctor.getSpecialty());
+            current.setEmail(doctor.getEmail());
+            current.setPhone(doctor.getPhone());
+            current.setPassword(passwordService.encodeIfNeeded(doctor.getPassword()));
+            // Merging the request's list would delete and reinsert the whole element collection
+            // even when nothing changed; per-weekday edits go through DoctorScheduleService
+            List<String> times = current.getAvailableTimes() == null ? null : new ArrayList<>(current.getAvailableTimes());
+            if (!Objects.equals(times, doctor.getAvailableTimes())) {
+                current.setAvailableTimes(doctor.getAvailableTimes());
+                scheduleService.doctorChanged(current.getId(), false);
+            }
+            directoryChanged();
             return 1;
         } catch (Exception e) {
             e.printStackTrace();
@@ -159,6 +207,20 @@ public class DoctorService {
         }
     }
 
+    // Strong ETag for the doctor directory; changes whenever a doctor or a schedule is changed, and
+    // daily because the AM/PM filters look at the coming days.
+    // Read from the directory_version row (one primary-key lookup), so every node hands out the
+    // same tag for the same data. It is read before the listing: a change committing in between
+    // yields an old tag on new data, which only costs the client one extra full response.
+    public String getDirectoryETag() {
+        return "\"doctors-" + versionRepository.currentVersion(DIRECTORY) + "-" + LocalDate.now().toEpochDay() + "\"";
+    }
+
+    // Bumped in the caller's transaction; the row lock it takes also orders concurrent directory writes
+    void directoryChanged() {
+        versionRepository.bump(DIRECTORY);
+    }
+
     @Transactional(readOnly = true)
     public List<Doctor> getDoctors() {
         return doctorRepository.findAll();
@@ -169,7 +231,15 @@ public class DoctorService {
         if (!doctorRepository.existsById(doctorId)) return -1;
         try {
             appointmentRepository.deleteAllByDoctorId(doctorId);
+            archiveRepository.deleteAllByDoctorId(doctorId);
+            // Queued entries for the doctor fail their claim and drop out of the in-memory queues
+            holdRepository.deleteAllByDoctorId(doctorId);
+            waitlistRepository.deleteAllByDoctorId(doctorId);
+            scheduleService.doctorChanged(doctorId, true);
             doctorRepository.deleteById(doctorId);
+            directoryChanged();
+            // Sign the doctor out everywhere; their access tokens stop working within one poll interval
+            refreshTokenService.revokeUser("doctor", doctorId);
             return 1;
         } catch (Exception e) {
             e.printStackTrace();
@@ -181,13 +251,20 @@ public class DoctorService {
         Map<String, Object> result = new HashMap<>();
         Doctor doctor = doctorRepository.findByEmail(email);
 
-        if (doctor == null || !doctor.getPassword().equals(password)) {
-            result.put("error", "Invalid credentials");
+        try {
+            if (doctor == null || !passwordService.verify(password, doctor.getPassword(), hash -> {
+                doctor.setPassword(hash);
+                doctorRepository.save(doctor);
+            })) {
+                result.put("error", "Invalid credentials");
+                return result;
+            }
+        } catch (PasswordService.LoginBusyException e) {
+            result.put("error", e.getMessage());
             return result;
         }
 
-        String token = tokenService.generateToken("doctor", String.valueOf(doctor.getId()));
-        result.put("token", token);
+        result.putAll(refreshTokenService.issueTokens(doctor.getEmail(), "doctor", doctor.getId()));
         result.put("id", doctor.getId());
         result.put("name", doctor.getName());
         return result;
@@ -204,12 +281,20 @@ public class DoctorService {
         return filterDoctorByTime(doctors, time);
     }
 
+    // Doctors with at least one AM (before noon) or PM slot in the next filterDays days, as given by
+    // their weekly template and exceptions (or availableTimes without a template)
     public List<Doctor> filterDoctorByTime(List<Doctor> doctors, String time) {
-        int hourBoundary = time.equalsIgnoreCase("AM") ? 12 : 12;
-        return doctors.stream().filter(d -> d.getAvailableTimes().stream()
-                .map(LocalTime::parse)
-                .anyMatch(t -> time.equalsIgnoreCase("AM") ? t.isBefore(LocalTime.NOON) : t.isAfter(LocalTime.NOON)))
-                .collect(Collectors.toList());
+        boolean am = time.equalsIgnoreCase("AM");
+        LocalDate today = LocalDate.now();
+        scheduleService.preload(doctors);
+        return doctors.stream().filter(d -> {
+            for (int i = 0; i < filterDays; i++) {
+                for (LocalTime t : scheduleService.slotsOn(d, today.plusDays(i))) {
+                    if (am == t.isBefore(LocalTime.NOON)) return true;
+                }
+            }
+            return false;
+        }).collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,48 @@
+package com.smartclinic.back_end.services;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Shared rate limit counts for multi-node deployments, kept in the MySQL database all
+// nodes already use. Buckets are approximated by fixed windows: one upsert per attempt
+// bumps the counter of the current window (or restarts it when the window rolled over).
+// Created by RateLimitConfig when security.rate-limit.store=shared.
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcRateLimitStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Called by RateLimitConfig before the store is handed out
+    public void init() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rate_limit_bucket (" +
+                "bucket_key VARCHAR(191) NOT NULL PRIMARY KEY, " +
+                "window_start BIGINT NOT NULL, " +
+                "hits INT NOT NULL)");
+    }
+
+    @Override
+    public long tryAcquire(String key, int capacity, long periodSeconds) {
+        long periodMs = periodSeconds * 1000;
+        long now = System.currentTimeMillis();
+        long windowStart = now - (now % periodMs);
+
+        // MySQL evaluates assignments left to right, so hits still sees the old window_start
+        jdbcTemplate.update("INSERT INTO rate_limit_bucket (bucket_key, window_start, hits) VALUES (?, ?, 1) " +
+                "ON DUPLICATE KEY UPDATE hits = IF(window_start = VALUES(window_start), hits + 1, 1), " +
+                "window_start = VALUES(window_start)", key, windowStart);
+        Integer hits = jdbcTemplate.queryForObject(
+                "SELECT hits FROM rate_limit_bucket WHERE bucket_key = ?", Integer.class, key);
+
+        return hits != null && hits > capacity ? windowStart + periodMs - now : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${security.rate-limit.sweep-ms:60000}")
+    public void evictIdle() {
+        // Windows are at most a few minutes long; anything older than an hour is dead
+        jdbcTemplate.update("DELETE FROM rate_limit_bucket WHERE window_start < ?",
+                System.currentTimeMillis() - 3_600_000L);
+    }
+}
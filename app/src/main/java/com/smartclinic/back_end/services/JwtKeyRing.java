@@ -0,0 +1,249 @@
+package com.smartclinic.back_end.services;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Signing and verification keys for access tokens, addressed by the "kid" header.
+// One key signs (jwt.active-kid); every key in the ring verifies. jwt.secret is always the
+// jwt.secret-kid key, so an HMAC rotation is: 1. add the new secret to jwt.retired-secrets
+// everywhere, 2. switch active-kid to its kid, 3. drop the old key once the longest-lived token
+// signed with it has expired. An active-kid without a key fails startup.
+// In RS256/ES256 mode the HMAC kids only verify tokens from before the switch, and only until
+// jwt.accept-hmac-until; without a cutoff, or once it has passed, they are not in the ring.
+// The parser is built once and shared: JwtParser is immutable and thread-safe.
+@Component
+public class JwtKeyRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private final SecureDigestAlgorithm<Key, Key> algorithm;
+    private final String activeKid;
+    private final Key signingKey;
+    private final Map<String, Key> verificationKeys;
+    private final Map<String, PublicKey> publicKeys;
+    // Tokens issued before kid headers existed are checked against the jwt.secret key
+    private final String legacyKid;
+    // HMAC kids still accepted in asymmetric mode, and the instant they stop verifying (null: no end)
+    private final Set<String> expiringKids;
+    private final Instant expiringUntil;
+    private final JwtParser parser;
+
+    @SuppressWarnings("unchecked")
+    public JwtKeyRing(ResourceLoader resourceLoader,
+                      @Value("${jwt.algorithm:HS256}") String algorithmId,
+                      @Value("${jwt.active-kid:hs-1}") String activeKid,
+                      @Value("${jwt.secret}") String secret,
+                      @Value("${jwt.secret-kid:hs-1}") String secretKid,
+                      @Value("${jwt.retired-secrets:}") List<String> retiredSecrets,
+                      @Value("${jwt.private-key-location:}") String privateKeyLocation,
+                      @Value("${jwt.public-key-location:}") String publicKeyLocation,
+                      @Value("${jwt.key-pair-kid:${jwt.active-kid:hs-1}}") String keyPairKid,
+                      @Value("${jwt.retired-public-keys:}") List<String> retiredPublicKeys,
+                      @Value("${jwt.accept-hmac-until:}") String acceptHmacUntil) {
+
+        SecureDigestAlgorithm<?, ?> resolved = Jwts.SIG.get().forKey(algorithmId.toUpperCase());
+        this.algorithm = (SecureDigestAlgorithm<Key, Key>) resolved;
+        this.activeKid = activeKid;
+
+        Map<String, Key> keys = new LinkedHashMap<>();
+        Map<String, PublicKey> published = new LinkedHashMap<>();
+
+        // jwt.secret keeps its own kid whatever signs, so switching active-kid never relabels it.
+        // Tokens issued before kid headers existed were signed with it.
+        addKey(keys, secretKid, Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
+        this.legacyKid = secretKid;
+        for (Map.Entry<String, String> entry : parsePairs(retiredSecrets).entrySet()) {
+            addKey(keys, entry.getKey(), Keys.hmacShaKeyFor(entry.getValue().getBytes(StandardCharsets.UTF_8)));
+        }
+        Set<String> hmacKids = Set.copyOf(keys.keySet());
+
+        if (!(resolved instanceof SignatureAlgorithm asymmetric)) {
+            // Any secret in the ring can sign
+            this.signingKey = keys.get(activeKid);
+            this.expiringKids = Set.of();
+            this.expiringUntil = null;
+        } else {
+            KeyPair pair;
+            if (privateKeyLocation.isBlank()) {
+                // Development fallback: tokens will not survive a restart and differ per node
+                logger.warn("No jwt.private-key-location configured; generating an ephemeral {} key pair", algorithmId);
+                pair = asymmetric.keyPair().build();
+            } else {
+                pair = new KeyPair(readPublicKey(resourceLoader, publicKeyLocation),
+                        readPrivateKey(resourceLoader, privateKeyLocation));
+            }
+            addKey(keys, keyPairKid, pair.getPublic());
+            published.put(keyPairKid, pair.getPublic());
+            for (Map.Entry<String, String> entry : parsePairs(retiredPublicKeys).entrySet()) {
+                PublicKey key = readPublicKey(resourceLoader, entry.getValue());
+                addKey(keys, entry.getKey(), key);
+                published.put(entry.getKey(), key);
+            }
+            // Only the configured pair has a private key
+            this.signingKey = keyPairKid.equals(activeKid) ? pair.getPrivate() : null;
+            Instant cutoff = parseCutoff(acceptHmacUntil);
+            if (cutoff != null && Instant.now().isBefore(cutoff)) {
+                logger.info("Accepting HMAC-signed tokens (kids {}) until {}", hmacKids, cutoff);
+                this.expiringKids = hmacKids;
+                this.expiringUntil = cutoff;
+            } else {
+                keys.keySet().removeAll(hmacKids);
+                this.expiringKids = Set.of();
+                this.expiringUntil = null;
+            }
+        }
+
+        if (signingKey == null) {
+            throw new IllegalStateException("jwt.active-kid '" + activeKid + "' has no signing key; configured kids: "
+                    + keys.keySet() + (isHmac() ? "" : " (only jwt.key-pair-kid can sign)"));
+        }
+
+        this.verificationKeys = Collections.unmodifiableMap(keys);
+        this.publicKeys = Collections.unmodifiableMap(published);
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+
+        logger.info("JWT key ring ready: algorithm={}, active kid={}, verification kids={}",
+                algorithm.getId(), activeKid, verificationKeys.keySet());
+    }
+
+    public SecureDigestAlgorithm<Key, Key> getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    public Key getSigningKey() {
+        return signingKey;
+    }
+
+    // Unknown kids resolve to null, which makes the parser reject the token
+    public Key verificationKey(String kid) {
+        String resolved = kid != null ? kid : legacyKid;
+        if (expiringKids.contains(resolved) && !Instant.now().isBefore(expiringUntil)) {
+            return null;
+        }
+        return verificationKeys.get(resolved);
+    }
+
+    public JwtParser getParser() {
+        return parser;
+    }
+
+    public boolean isHmac() {
+        return algorithm.getId().startsWith("HS");
+    }
+
+    // JWK set of the public verification keys, so other services can check tokens locally.
+    // Empty in HMAC mode, where the secret must never leave this service.
+    public Map<String, Object> jwkSet() {
+        List<Map<String, ?>> jwks = new ArrayList<>();
+        publicKeys.forEach((kid, key) -> jwks.add(Jwks.builder().key(key).id(kid).build()));
+        return Map.of("keys", jwks);
+    }
+
+    private static void addKey(Map<String, Key> keys, String kid, Key key) {
+        if (keys.putIfAbsent(kid, key) != null) {
+            throw new IllegalStateException("JWT kid '" + kid + "' is configured more than once");
+        }
+    }
+
+    // ISO-8601 instant, e.g. 2026-11-01T00:00:00Z; blank means no cutoff was configured
+    private static Instant parseCutoff(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalStateException("Invalid jwt.accept-hmac-until '" + value + "'", e);
+        }
+    }
+
+    // "kid=value" entries; a value may itself contain '='
+    private static Map<String, String> parsePairs(List<String> entries) {
+        Map<String, String> pairs = new LinkedHashMap<>();
+        for (String entry : entries) {
+            int split = entry.indexOf('=');
+            if (split > 0) {
+                pairs.put(entry.substring(0, split).trim(), entry.substring(split + 1).trim());
+            }
+        }
+        return pairs;
+    }
+
+    private PrivateKey readPrivateKey(ResourceLoader loader, String location) {
+        try {
+            PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(readPem(loader, location));
+            return KeyFactory.getInstance(keyFamily()).generatePrivate(spec);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid JWT private key at " + location, e);
+        }
+    }
+
+    private PublicKey readPublicKey(ResourceLoader loader, String location) {
+        try {
+            X509EncodedKeySpec spec = new X509EncodedKeySpec(readPem(loader, location));
+            return KeyFactory.getInstance(keyFamily()).generatePublic(spec);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid JWT public key at " + location, e);
+        }
+    }
+
+    private String keyFamily() {
+        return algorithm.getId().startsWith("ES") ? "EC" : "RSA";
+    }
+
+    private static byte[] readPem(ResourceLoader loader, String location) {
+        Resource resource = loader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            String pem = new String(in.readAllBytes(), StandardCharsets.US_ASCII)
+                    .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                    .replaceAll("\\s", "");
+            return Base64.getDecoder().decode(pem);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read JWT key from " + location, e);
+        }
+    }
+}
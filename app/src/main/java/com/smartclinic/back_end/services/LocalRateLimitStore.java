@@ -0,0 +1,82 @@
+package com.smartclinic.back_end.services;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free token buckets held in memory.
+// Each bucket is a single AtomicLong holding its "theoretical arrival time" (GCRA):
+// a request is allowed while that time stays within one period of now, and taking
+// a token is one compare-and-set. A bucket whose arrival time has passed is full
+// again and carries no state, so the sweeper simply drops it.
+// Every key keeps its own bucket. When max-keys is reached, a new key first triggers a sweep of
+// full buckets; if the map is still full, the buckets with the oldest arrival time (the least
+// recently throttled) are dropped, a tenth of the map at a time so the scan is amortised.
+// Created by RateLimitConfig when security.rate-limit.store=local.
+public class LocalRateLimitStore implements RateLimitStore {
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    // One thread makes room at a time; the others insert meanwhile and overshoot max-keys briefly
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final int maxKeys;
+
+    public LocalRateLimitStore(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public long tryAcquire(String key, int capacity, long periodSeconds) {
+        long period = TimeUnit.SECONDS.toNanos(periodSeconds);
+        long interval = period / capacity;
+
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) makeRoom();
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        }
+
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + interval;
+            long allowAt = next - period;
+            if (allowAt > now) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(allowAt - now));
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.rate-limit.sweep-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void makeRoom() {
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            evictIdle();
+            int excess = buckets.size() - maxKeys + Math.max(1, maxKeys / 10);
+            if (excess <= 0) return;
+            buckets.entrySet().stream()
+                    .map(e -> Map.entry(e.getKey(), e.getValue().get()))
+                    .sorted(Map.Entry.comparingByValue((a, b) -> Long.compare(a - b, 0)))
+                    .limit(excess)
+                    .forEach(e -> buckets.remove(e.getKey()));
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.models.Medication;
+import com.smartclinic.back_end.repo.MedicationRepository;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class MedicationCatalogService {
+
+    private static final String COUNTERS_COLLECTION = "counters";
+    private static final String MEDICATION_SEQUENCE = "medications";
+
+    private final MedicationRepository medicationRepository;
+    private final MongoTemplate mongoTemplate;
+
+    // The catalog only ever grows, so entries can be cached for the lifetime of the node
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+
+    public MedicationCatalogService(MedicationRepository medicationRepository, MongoTemplate mongoTemplate) {
+        this.medicationRepository = medicationRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Returns the catalog id for the given medication text, registering it on first use
+    public Integer idFor(String medication) {
+        String name = normalize(medication);
+        if (name == null) return null;
+
+        Integer cached = idsByName.get(name);
+        if (cached != null) return cached;
+
+        Medication existing = medicationRepository.findByName(name);
+        if (existing == null) {
+            try {
+                existing = medicationRepository.insert(new Medication(nextId(), name));
+            } catch (DuplicateKeyException e) {
+                // Another node registered the same medication first
+                existing = medicationRepository.findByName(name);
+            }
+        }
+        remember(existing);
+        return existing.getId();
+    }
+
+    // Resolves a catalog id back to the medication text, or null if unknown
+    public String nameOf(Integer id) {
+        if (id == null) return null;
+
+        String cached = namesById.get(id);
+        if (cached != null) return cached;
+
+        Optional<Medication> medication = medicationRepository.findById(id);
+        medication.ifPresent(this::remember);
+        return medication.map(Medication::getName).orElse(null);
+    }
+
+    private void remember(Medication medication) {
+        idsByName.put(medication.getName(), medication.getId());
+        namesById.put(medication.getId(), medication.getName());
+    }
+
+    private int nextId() {
+        Document counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(MEDICATION_SEQUENCE)),
+                new Update().inc("seq", 1),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Document.class,
+                COUNTERS_COLLECTION);
+        return counter.getInteger("seq");
+    }
+
+    private static String normalize(String medication) {
+        if (medication == null) return null;
+        String name = medication.trim().replaceAll("\\s+", " ");
+        return name.isEmpty() ? null : name;
+    }
+}
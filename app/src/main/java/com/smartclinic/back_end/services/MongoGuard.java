@@ -0,0 +1,184 @@
+package com.smartclinic.back_end.services;
+
+import com.mongodb.MongoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Runs MongoDB calls on a dedicated bounded pool (bulkhead) with a per-call timeout and a
+// circuit breaker, so a slow or unreachable clinicdb costs servlet threads at most the
+// timeout and never touches the MySQL-only endpoints such as booking.
+// After failure-threshold consecutive failures the circuit opens and calls fail fast;
+// once open-ms has passed a single probe call is let through (half-open) and its
+// outcome closes or re-opens the circuit.
+@Component
+public class MongoGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoGuard.class);
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMs;
+    private final int failureThreshold;
+    private final long openMs;
+
+    private final Counter failureCounter;
+    private final Counter rejectedCounter;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+
+    public MongoGuard(@Value("${mongo.resilience.threads:8}") int threads,
+                      @Value("${mongo.resilience.queue:32}") int queueSize,
+                      @Value("${mongo.resilience.timeout-ms:2000}") long timeoutMs,
+                      @Value("${mongo.resilience.failure-threshold:5}") int failureThreshold,
+                      @Value("${mongo.resilience.open-ms:30000}") long openMs,
+                      MeterRegistry meterRegistry) {
+        this.timeoutMs = timeoutMs;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "mongo-call");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.failureCounter = Counter.builder("clinic.mongo.failures")
+                .description("Mongo calls that timed out or failed with a connectivity error")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("clinic.mongo.rejected")
+                .description("Mongo calls refused because the circuit was open or the pool was full")
+                .register(meterRegistry);
+        meterRegistry.gauge("clinic.mongo.circuit.open", this, guard -> guard.currentState() == State.CLOSED ? 0 : 1);
+        meterRegistry.gauge("clinic.mongo.queue", pool, p -> p.getQueue().size());
+    }
+
+    public <T> T call(Callable<T> action) {
+        if (!acquirePermission()) {
+            rejectedCounter.increment();
+            throw new MongoUnavailableException("Prescription storage is temporarily unavailable");
+        }
+
+        Future<T> result;
+        try {
+            result = pool.submit(action);
+        } catch (RejectedExecutionException e) {
+            // A full bulkhead says nothing about Mongo itself, so the circuit is not charged
+            releaseProbe();
+            rejectedCounter.increment();
+            throw new MongoUnavailableException("Prescription storage is busy, please retry shortly");
+        }
+
+        try {
+            T value = result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            onSuccess();
+            return value;
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            onFailure("timed out after " + timeoutMs + " ms");
+            throw new MongoUnavailableException("Prescription storage did not answer in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseProbe();
+            throw new MongoUnavailableException("Interrupted while waiting for prescription storage");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isConnectivityFailure(cause)) {
+                onFailure(cause.getMessage());
+                throw new MongoUnavailableException("Prescription storage is temporarily unavailable");
+            }
+            // Mongo answered; the error belongs to the caller
+            onSuccess();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // True when a call would be attempted now, either closed or due for a half-open probe
+    public synchronized boolean isAvailable() {
+        return state == State.CLOSED || (state == State.OPEN && System.currentTimeMillis() >= openUntil);
+    }
+
+    synchronized State currentState() {
+        return state;
+    }
+
+    private synchronized boolean acquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) return false;
+                state = State.HALF_OPEN;
+                logger.info("Mongo circuit half-open, probing");
+                return true;
+            default:
+                // A probe is already in flight
+                return false;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Mongo circuit closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void onFailure(String reason) {
+        failureCounter.increment();
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                logger.warn("Mongo circuit open for {} ms after {} failure(s), last: {}", openMs, consecutiveFailures, reason);
+            }
+            state = State.OPEN;
+            openUntil = System.currentTimeMillis() + openMs;
+        }
+    }
+
+    // The probe never reached Mongo; let the next call probe instead
+    private synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openUntil = System.currentTimeMillis();
+        }
+    }
+
+    private static boolean isConnectivityFailure(Throwable cause) {
+        return cause instanceof DataAccessResourceFailureException
+                || cause instanceof TransientDataAccessException
+                || cause instanceof MongoException;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Thrown instead of waiting on Mongo: the circuit is open, the pool is full or the call timed out
+    public static class MongoUnavailableException extends RuntimeException {
+        public MongoUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
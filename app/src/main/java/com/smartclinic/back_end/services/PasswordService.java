@@ -0,0 +1,145 @@
+package com.smartclinic.back_end.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Hashes and verifies account passwords with bcrypt.
+// Verification is CPU-heavy by design, so it runs on a dedicated pool with a bounded
+// queue: a login burst fills that queue and is turned away with LoginBusyException
+// instead of occupying the servlet threads that booking requests need.
+// Accounts still holding a plaintext password are rehashed on their next successful login.
+@Service
+public class PasswordService {
+
+    private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor verifyPool;
+    private final long verifyTimeoutMs;
+
+    private final Timer matchTimer;
+    private final Timer mismatchTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordService(@Value("${security.password.bcrypt-strength:10}") int strength,
+                           @Value("${security.password.verify-threads:4}") int threads,
+                           @Value("${security.password.verify-queue:64}") int queueSize,
+                           @Value("${security.password.verify-timeout-ms:3000}") long verifyTimeoutMs,
+                           MeterRegistry meterRegistry) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.verifyTimeoutMs = verifyTimeoutMs;
+        this.verifyPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "password-verify");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.matchTimer = Timer.builder("clinic.login.verify").tag("result", "match")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.mismatchTimer = Timer.builder("clinic.login.verify").tag("result", "mismatch")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.rejectedCounter = Counter.builder("clinic.login.rejected")
+                .description("Logins turned away because the verification pool was saturated")
+                .register(meterRegistry);
+        meterRegistry.gauge("clinic.login.queue", verifyPool, pool -> pool.getQueue().size());
+    }
+
+    public String encode(String rawPassword) {
+        return encoder.encode(rawPassword);
+    }
+
+    public boolean isHashed(String storedPassword) {
+        return storedPassword != null && BCRYPT.matcher(storedPassword).matches();
+    }
+
+    // Hashes the password unless it already is a bcrypt hash
+    public String encodeIfNeeded(String password) {
+        if (password == null || isHashed(password)) return password;
+        return encode(password);
+    }
+
+    // Checks the raw password against the stored value on the verification pool.
+    // When the stored value is plaintext or uses an outdated cost, the fresh hash is
+    // handed to rehashSink so the caller can persist it.
+    public boolean verify(String rawPassword, String storedPassword, Consumer<String> rehashSink) {
+        if (rawPassword == null || storedPassword == null) return false;
+
+        Future<String> result;
+        try {
+            result = verifyPool.submit(() -> check(rawPassword, storedPassword));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new LoginBusyException();
+        }
+
+        String rehash;
+        try {
+            rehash = result.get(verifyTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            rejectedCounter.increment();
+            throw new LoginBusyException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginBusyException();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password verification failed", e.getCause());
+        }
+
+        if (rehash == null) return false;
+        if (!rehash.isEmpty() && rehashSink != null) {
+            rehashSink.accept(rehash);
+        }
+        return true;
+    }
+
+    // Returns null on mismatch, "" on a match needing no upgrade, or the new hash
+    private String check(String rawPassword, String storedPassword) {
+        long start = System.nanoTime();
+        String outcome;
+        if (isHashed(storedPassword)) {
+            if (!encoder.matches(rawPassword, storedPassword)) {
+                outcome = null;
+            } else {
+                outcome = encoder.upgradeEncoding(storedPassword) ? encoder.encode(rawPassword) : "";
+            }
+        } else {
+            // Legacy plaintext value; compare in constant time before migrating it
+            boolean equal = MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                    storedPassword.getBytes(StandardCharsets.UTF_8));
+            outcome = equal ? encoder.encode(rawPassword) : null;
+        }
+        (outcome != null ? matchTimer : mismatchTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return outcome;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verifyPool.shutdownNow();
+    }
+
+    // Thrown when a login cannot be verified right now because the pool is saturated
+    public static class LoginBusyException extends RuntimeException {
+        public LoginBusyException() {
+            super("Login service is busy, please retry shortly");
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package com.smartclinic.back_end.services;
 
 import com.smartclinic.back_end.DTO.AppointmentDTO;
+import com.smartclinic.back_end.DTO.AppointmentTimelineResponse;
 import com.smartclinic.back_end.models.Appointment;
+import com.smartclinic.back_end.models.ArchivedAppointment;
 import com.smartclinic.back_end.models.Patient;
+import com.smartclinic.back_end.repo.AppointmentArchiveRepository;
 import com.smartclinic.back_end.repo.AppointmentRepository;
 import com.smartclinic.back_end.repo.PatientRepository;
 import com.smartclinic.back_end.services.TokenService;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -57,8 +66,8 @@ public class PatientService {
 //    - Instruction: Ensure that the filter handles both doctor name and condition properly, and catches errors for invalid input.
 
 // 8. **getPatientDetails Method**:
-//    - Retrieves patient details using the `tokenService` to extract the patient's email from the provided token.
-//    - Once the email is extracted, it fetches the corresponding patient from the `patientRepository`.
+//    - Retrieves patient details by the id carried in the authenticated bearer token.
+//    - It fetches the corresponding patient from the `patientRepository`.
 //    - It returns the patient's information in the response body.
     //    - Instruction: Make sure that the token extraction process works correctly and patient details are fetched properly based on the extracted email.
 
@@ -72,16 +81,29 @@ public class PatientService {
 
 private final PatientRepository patientRepository;
     private final AppointmentRepository appointmentRepository;
+    private final AppointmentArchiveRepository archiveRepository;
+    private final AppointmentArchiveService archive;
     private final TokenService tokenService;
+    private final PasswordService passwordService;
 
-    public PatientService(PatientRepository patientRepository, AppointmentRepository appointmentRepository, TokenService tokenService) {
+    // Split past/future on appointment time instead of the completion status
+    @Value("${patient.appointments.time-based-filter:false}")
+    private boolean timeBasedFilter;
+
+    public PatientService(PatientRepository patientRepository, AppointmentRepository appointmentRepository,
+                          AppointmentArchiveRepository archiveRepository, AppointmentArchiveService archive,
+                          TokenService tokenService, PasswordService passwordService) {
         this.patientRepository = patientRepository;
         this.appointmentRepository = appointmentRepository;
+        this.archiveRepository = archiveRepository;
+        this.archive = archive;
         this.tokenService = tokenService;
+        this.passwordService = passwordService;
     }
 
     public int createPatient(Patient patient) {
         try {
+            patient.setPassword(passwordService.encodeIfNeeded(patient.getPassword()));
             patientRepository.save(patient);
             return 1;
         } catch (Exception e) {
@@ -93,20 +115,11 @@ private final PatientRepository patientRepository;
     @Transactional
     public ResponseEntity<?> getPatientAppointment(Long id) {
         try {
-            List<Appointment> appointments = appointmentRepository.findByPatientId(id);
+            // The whole history, so the archive is always read
+            List<Appointment> appointments = AppointmentArchiveService.merge(
+                    appointmentRepository.findByPatientId(id), archiveRepository.findByPatientId(id));
             List<AppointmentDTO> result = appointments.stream()
-                .map(a -> new AppointmentDTO(
-                    a.getId(),
-                    a.getDoctor() != null ? a.getDoctor().getId() : null,
-                    a.getDoctor() != null ? a.getDoctor().getName() : null,
-                    a.getPatient() != null ? a.getPatient().getId() : null,
-                    a.getPatient() != null ? a.getPatient().getName() : null,
-                    a.getPatient() != null ? a.getPatient().getEmail() : null,
-                    a.getPatient() != null ? a.getPatient().getPhone() : null,
-                    a.getPatient() != null ? a.getPatient().getAddress() : null,
-                    a.getAppointmentTime(),
-                    a.getStatus()
-                ))
+                .map(this::toDTO)
                 .collect(Collectors.toList());
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -121,20 +134,24 @@ private final PatientRepository patientRepository;
             if (status == -1) {
                 return new ResponseEntity<>("Invalid condition", HttpStatus.BAD_REQUEST);
             }
-            List<Appointment> appointments = appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patientId, status);
+            LocalDateTime now = LocalDateTime.now();
+            List<Appointment> appointments;
+            // Only completed appointments are archived, so only "past" reads the archive
+            if (!timeBasedFilter) {
+                appointments = appointmentRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patientId, status);
+                if (status == 1) {
+                    appointments = AppointmentArchiveService.merge(appointments,
+                            archiveRepository.findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patientId, status));
+                }
+            } else if (status == 1) {
+                appointments = AppointmentArchiveService.merge(
+                        appointmentRepository.findByPatient_IdAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(patientId, now),
+                        archiveRepository.findByPatient_IdAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(patientId, now));
+            } else {
+                appointments = appointmentRepository.findByPatient_IdAndAppointmentTimeGreaterThanEqualOrderByAppointmentTimeAsc(patientId, now);
+            }
             List<AppointmentDTO> result = appointments.stream()
-                .map(a -> new AppointmentDTO(
-                    a.getId(),
-                    a.getDoctor() != null ? a.getDoctor().getId() : null,
-                    a.getDoctor() != null ? a.getDoctor().getName() : null,
-                    a.getPatient() != null ? a.getPatient().getId() : null,
-                    a.getPatient() != null ? a.getPatient().getName() : null,
-                    a.getPatient() != null ? a.getPatient().getEmail() : null,
-                    a.getPatient() != null ? a.getPatient().getPhone() : null,
-                    a.getPatient() != null ? a.getPatient().getAddress() : null,
-                    a.getAppointmentTime(),
-                    a.getStatus()
-                ))
+                .map(this::toDTO)
                 .collect(Collectors.toList());
             return new ResponseEntity<>(result, HttpStatus.OK);
         } catch (Exception e) {
@@ -144,20 +161,11 @@ private final PatientRepository patientRepository;
 
     public ResponseEntity<?> filterByDoctor(String name, Long patientId) {
         try {
-            List<Appointment> appointments = appointmentRepository.findByDoctor_NameContainingIgnoreCaseAndPatientId(name, patientId);
+            List<Appointment> appointments = AppointmentArchiveService.merge(
+                    appointmentRepository.findByDoctor_NameContainingIgnoreCaseAndPatientId(name, patientId),
+                    archiveRepository.findByDoctor_NameContainingIgnoreCaseAndPatientId(name, patientId));
             List<AppointmentDTO> result = appointments.stream()
-                .map(a -> new AppointmentDTO(
-                    a.getId(),
-                    a.getDoctor() != null ? a.getDoctor().getId() : null,
-                    a.getDoctor() != null ? a.getDoctor().getName() : null,
-                    a.getPatient() != null ? a.getPatient().getId() : null,
-                    a.getPatient() != null ? a.getPatient().getName() : null,
-                    a.getPatient() != null ? a.getPatient().getEmail() : null,
-                    a.getPatient() != null ? a.getPatient().getPhone() : null,
-                    a.getPatient() != null ? a.getPatient().getAddress() : null,
-                    a.getAppointmentTime(),
-                    a.getStatus()
-                ))
+                .map(this::toDTO)
                 .collect(Collectors.toList());
             return new ResponseEntity<>(result, HttpStatus.OK);
         } catch (Exception e) {
@@ -171,20 +179,26 @@ private final PatientRepository patientRepository;
             if (status == -1) {
                 return new ResponseEntity<>("Invalid condition", HttpStatus.BAD_REQUEST);
             }
-            List<Appointment> appointments = appointmentRepository.findByDoctor_NameContainingIgnoreCaseAndPatientIdAndStatus(name, patientId, status);
+            LocalDateTime now = LocalDateTime.now();
+            List<Appointment> appointments;
+            if (!timeBasedFilter) {
+                appointments = appointmentRepository.findByDoctor_NameContainingIgnoreCaseAndPatientIdAndStatus(name, patientId, status);
+                if (status == 1) {
+                    appointments = AppointmentArchiveService.merge(appointments,
+                            archiveRepository.findByDoctor_NameContainingIgnoreCaseAndPatientIdAndStatus(name, patientId, status));
+                }
+            } else if (status == 1) {
+                appointments = AppointmentArchiveService.merge(
+                        appointmentRepository
+                                .findByDoctor_NameContainingIgnoreCaseAndPatientIdAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(name, patientId, now),
+                        archiveRepository
+                                .findByDoctor_NameContainingIgnoreCaseAndPatientIdAndAppointmentTimeLessThanOrderByAppointmentTimeAsc(name, patientId, now));
+            } else {
+                appointments = appointmentRepository
+                        .findByDoctor_NameContainingIgnoreCaseAndPatientIdAndAppointmentTimeGreaterThanEqualOrderByAppointmentTimeAsc(name, patientId, now);
+            }
             List<AppointmentDTO> result = appointments.stream()
-                .map(a -> new AppointmentDTO(
-                    a.getId(),
-                    a.getDoctor() != null ? a.getDoctor().getId() : null,
-                    a.getDoctor() != null ? a.getDoctor().getName() : null,
-                    a.getPatient() != null ? a.getPatient().getId() : null,
-                    a.getPatient() != null ? a.getPatient().getName() : null,
-                    a.getPatient() != null ? a.getPatient().getEmail() : null,
-                    a.getPatient() != null ? a.getPatient().getPhone() : null,
-                    a.getPatient() != null ? a.getPatient().getAddress() : null,
-                    a.getAppointmentTime(),
-                    a.getStatus()
-                ))
+                .map(this::toDTO)
                 .collect(Collectors.toList());
             return new ResponseEntity<>(result, HttpStatus.OK);
         } catch (Exception e) {
@@ -192,13 +206,88 @@ private final PatientRepository patientRepository;
         }
     }
 
-    public ResponseEntity<?> getPatientDetails(String token) {
+    // Merged past/upcoming timeline in ascending time order, paged by an (appointmentTime, id) keyset.
+    // Without a cursor the page holds the last `limit` past and the next `limit` upcoming visits;
+    // with a cursor it continues "before" or "after" that position in a single indexed range scan.
+    public ResponseEntity<?> getTimeline(Long patientId, String direction, LocalDateTime cursorTime, Long cursorId, int limit) {
         try {
-            String email = tokenService.extractEmail(token);
-            Patient patient = patientRepository.findByEmail(email);
-            return new ResponseEntity<>(patient, HttpStatus.OK);
+            if (limit < 1 || limit > 100) {
+                return new ResponseEntity<>("Limit must be between 1 and 100", HttpStatus.BAD_REQUEST);
+            }
+            Pageable page = PageRequest.of(0, limit);
+            List<Appointment> before = new ArrayList<>();
+            List<Appointment> after = new ArrayList<>();
+
+            if (cursorTime == null) {
+                LocalDateTime now = LocalDateTime.now();
+                // id 0 puts the split exactly at `now`: earlier visits are past, the rest upcoming
+                before = timelineBefore(patientId, now, 0L, page);
+                after = appointmentRepository.findPatientTimelineAfter(patientId, now, 0L, page);
+            } else if (direction.equalsIgnoreCase("before")) {
+                before = timelineBefore(patientId, cursorTime, cursorId, page);
+            } else if (direction.equalsIgnoreCase("after")) {
+                after = appointmentRepository.findPatientTimelineAfter(patientId, cursorTime, cursorId, page);
+                if (archive.covers(cursorTime)) {
+                    List<Appointment> merged = AppointmentArchiveService.merge(after,
+                            archiveRepository.findPatientTimelineAfter(patientId, cursorTime, cursorId, page));
+                    after = merged.subList(0, Math.min(limit, merged.size()));
+                }
+            } else {
+                return new ResponseEntity<>("Invalid direction", HttpStatus.BAD_REQUEST);
+            }
+
+            Collections.reverse(before);
+            List<AppointmentDTO> timeline = new ArrayList<>(before.size() + after.size());
+            before.stream().map(this::toDTO).forEach(timeline::add);
+            after.stream().map(this::toDTO).forEach(timeline::add);
+
+            AppointmentTimelineResponse result = timeline.isEmpty()
+                    ? new AppointmentTimelineResponse(timeline, null, null)
+                    : new AppointmentTimelineResponse(timeline,
+                            AppointmentTimelineResponse.Cursor.of(timeline.get(0)),
+                            AppointmentTimelineResponse.Cursor.of(timeline.get(timeline.size() - 1)));
+            return new ResponseEntity<>(result, HttpStatus.OK);
         } catch (Exception e) {
-            return new ResponseEntity<>("Invalid or expired token", HttpStatus.UNAUTHORIZED);
+            return new ResponseEntity<>("Internal Server Error", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    // Newest first. Archived rows all lie before the archive boundary, so they can only belong on
+    // this page when the hot page is short or already reaches back past the boundary.
+    private List<Appointment> timelineBefore(Long patientId, LocalDateTime time, Long id, Pageable page) {
+        List<Appointment> hot = appointmentRepository.findPatientTimelineBefore(patientId, time, id, page);
+        if (hot.size() == page.getPageSize() && !archive.covers(hot.get(hot.size() - 1).getAppointmentTime())) {
+            return hot;
+        }
+        List<ArchivedAppointment> archived = archiveRepository.findPatientTimelineBefore(patientId, time, id, page);
+        // Both inputs are newest first, but merge() only re-sorts when there are archived rows
+        List<Appointment> merged = new ArrayList<>(hot.size() + archived.size());
+        merged.addAll(hot);
+        archived.forEach(a -> merged.add(a.toAppointment()));
+        merged.sort(AppointmentArchiveService.TIMELINE_ORDER.reversed());
+        return merged.subList(0, Math.min(page.getPageSize(), merged.size()));
+    }
+
+    public ResponseEntity<Map<String, Object>> getPatientDetails(Long patientId) {
+        Optional<Patient> patient = patientRepository.findById(patientId);
+        if (patient.isEmpty()) {
+            return new ResponseEntity<>(Map.of("message", "Patient not found"), HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(Map.of("patient", patient.get()), HttpStatus.OK);
+    }
+
+    private AppointmentDTO toDTO(Appointment a) {
+        return new AppointmentDTO(
+            a.getId(),
+            a.getDoctor() != null ? a.getDoctor().getId() : null,
+            a.getDoctor() != null ? a.getDoctor().getName() : null,
+            a.getPatient() != null ? a.getPatient().getId() : null,
+            a.getPatient() != null ? a.getPatient().getName() : null,
+            a.getPatient() != null ? a.getPatient().getEmail() : null,
+            a.getPatient() != null ? a.getPatient().getPhone() : null,
+            a.getPatient() != null ? a.getPatient().getAddress() : null,
+            a.getAppointmentTime(),
+            a.getStatus()
+        );
+    }
 }
@@ -0,0 +1,87 @@
+package com.smartclinic.back_end.services;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Converts prescriptions written with free-text medication into the compact form.
+// Runs once at startup when prescription.migration.enabled=true; documents are walked
+// in _id order in fixed-size batches so the collection is never loaded at once.
+// The flag is checked at run time, not as a bean condition, so it also works on AOT-built jars.
+@Component
+public class PrescriptionCompactionMigrator implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrescriptionCompactionMigrator.class);
+    private static final String COLLECTION = "prescriptions";
+
+    private final MongoTemplate mongoTemplate;
+    private final MedicationCatalogService medicationCatalog;
+
+    @Value("${prescription.migration.enabled:false}")
+    private boolean enabled;
+
+    @Value("${prescription.migration.batch-size:500}")
+    private int batchSize;
+
+    public PrescriptionCompactionMigrator(MongoTemplate mongoTemplate, MedicationCatalogService medicationCatalog) {
+        this.mongoTemplate = mongoTemplate;
+        this.medicationCatalog = medicationCatalog;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        try {
+            long migrated = migrate();
+            logger.info("Prescription compaction finished, {} documents converted", migrated);
+        } catch (Exception e) {
+            logger.error("Prescription compaction stopped", e);
+        }
+    }
+
+    public long migrate() {
+        long migrated = 0;
+        Object lastId = null;
+
+        while (true) {
+            Criteria criteria = Criteria.where("medication").exists(true).and("med_id").exists(false);
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            Query query = Query.query(criteria).with(Sort.by("_id")).limit(batchSize);
+            query.fields().include("_id", "medication");
+
+            List<Document> batch = mongoTemplate.find(query, Document.class, COLLECTION);
+            if (batch.isEmpty()) break;
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+            int updates = 0;
+            for (Document document : batch) {
+                Integer medicationId = medicationCatalog.idFor(document.getString("medication"));
+                if (medicationId == null) continue;
+                bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))),
+                        new Update().set("med_id", medicationId).unset("medication"));
+                updates++;
+            }
+            if (updates > 0) {
+                migrated += bulk.execute().getModifiedCount();
+            }
+
+            lastId = batch.get(batch.size() - 1).get("_id");
+            logger.debug("Compacted prescriptions up to _id {}", lastId);
+        }
+        return migrated;
+    }
+}
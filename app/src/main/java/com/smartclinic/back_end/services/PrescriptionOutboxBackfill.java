@@ -0,0 +1,99 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.repo.PrescriptionOutboxRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Gives every prescription already in Mongo a delivered outbox marker, so savePrescription
+// (which only checks prescription_outbox) also rejects a second prescription for appointments
+// prescribed before the outbox existed. Runs at startup, before the node reports ready, when
+// prescription.outbox.backfill.enabled=true; documents are walked in _id order in batches and
+// only appointments without a row are inserted, so later runs only read.
+// The flag is checked at run time, not as a bean condition, so it also works on AOT-built jars.
+@Component
+public class PrescriptionOutboxBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrescriptionOutboxBackfill.class);
+    private static final String COLLECTION = "prescriptions";
+
+    private final MongoTemplate mongoTemplate;
+    private final PrescriptionOutboxRepository outboxRepository;
+    private final TransactionTemplate transactions;
+
+    @Value("${prescription.outbox.backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${prescription.migration.batch-size:500}")
+    private int batchSize;
+
+    public PrescriptionOutboxBackfill(MongoTemplate mongoTemplate, PrescriptionOutboxRepository outboxRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.mongoTemplate = mongoTemplate;
+        this.outboxRepository = outboxRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        try {
+            long inserted = backfill();
+            if (inserted > 0) {
+                logger.info("Prescription outbox backfill finished, {} markers added", inserted);
+            }
+        } catch (Exception e) {
+            logger.error("Prescription outbox backfill stopped, it resumes at the next start", e);
+        }
+    }
+
+    public long backfill() {
+        long inserted = 0;
+        Object lastId = null;
+
+        while (true) {
+            Criteria criteria = Criteria.where("appointment_id").exists(true);
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            Query query = Query.query(criteria).with(Sort.by("_id")).limit(batchSize);
+            query.fields().include("_id", "appointment_id");
+
+            List<Document> batch = mongoTemplate.find(query, Document.class, COLLECTION);
+            if (batch.isEmpty()) break;
+
+            Set<Long> appointmentIds = new HashSet<>();
+            for (Document document : batch) {
+                Object appointmentId = document.get("appointment_id");
+                if (appointmentId instanceof Number number) appointmentIds.add(number.longValue());
+            }
+            outboxRepository.findAppointmentIdsIn(appointmentIds).forEach(appointmentIds::remove);
+            if (!appointmentIds.isEmpty()) {
+                LocalDateTime now = LocalDateTime.now();
+                Integer added = transactions.execute(status -> appointmentIds.stream()
+                        .mapToInt(id -> outboxRepository.insertDeliveredMarker(id, now))
+                        .sum());
+                inserted += added == null ? 0 : added;
+            }
+
+            lastId = batch.get(batch.size() - 1).get("_id");
+            if (batch.size() < batchSize) break;
+        }
+        return inserted;
+    }
+}
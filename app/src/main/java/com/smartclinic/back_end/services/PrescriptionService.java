@@ -1,41 +1,127 @@
 package com.smartclinic.back_end.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.smartclinic.back_end.models.Appointment;
 import com.smartclinic.back_end.models.Prescription;
+import com.smartclinic.back_end.models.PrescriptionOutbox;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import com.smartclinic.back_end.repo.PrescriptionOutboxRepository;
 import com.smartclinic.back_end.repo.PrescriptionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
+// Saving a prescription is one MySQL transaction: the prescription goes into
+// prescription_outbox and its appointment is marked completed, together or not at all.
+// relayOutbox then copies undelivered rows to Mongo in batches. The copy is an upsert
+// keyed on appointment_id that only sets fields on insert, so a batch redelivered after a
+// crash, or by a second node, leaves the stored document unchanged. A row whose upsert matched
+// a document with different content is stamped as a conflict instead of delivered.
+// Outbox rows outlive retention as payload-less markers, which is what rejects a second
+// prescription for the same appointment; PrescriptionOutboxBackfill adds the markers of
+// prescriptions written to Mongo before the outbox existed.
+// Every Mongo call goes through MongoGuard, so a slow clinicdb delays the relay, not the doctor.
 @Service
 public class PrescriptionService {
 
     private static final Logger logger = LoggerFactory.getLogger(PrescriptionService.class);
     private final PrescriptionRepository prescriptionRepository;
+    private final PrescriptionOutboxRepository outboxRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentService appointmentService;
+    private final MedicationCatalogService medicationCatalog;
+    private final MongoTemplate mongoTemplate;
+    private final MongoGuard mongoGuard;
+    private final ObjectMapper objectMapper;
+
+    // When enabled, medication text is replaced by a catalog id before the document is written
+    @Value("${prescription.storage.compact:false}")
+    private boolean compactStorage;
+
+    @Value("${prescription.outbox.batch-size:200}")
+    private int relayBatchSize;
+
+    @Value("${prescription.outbox.retention-days:7}")
+    private long retentionDays;
 
     @Autowired
-    public PrescriptionService(PrescriptionRepository prescriptionRepository) {
+    public PrescriptionService(PrescriptionRepository prescriptionRepository,
+                               PrescriptionOutboxRepository outboxRepository,
+                               AppointmentRepository appointmentRepository,
+                               AppointmentService appointmentService,
+                               MedicationCatalogService medicationCatalog,
+                               MongoTemplate mongoTemplate,
+                               MongoGuard mongoGuard,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
         this.prescriptionRepository = prescriptionRepository;
+        this.outboxRepository = outboxRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.appointmentService = appointmentService;
+        this.medicationCatalog = medicationCatalog;
+        this.mongoTemplate = mongoTemplate;
+        this.mongoGuard = mongoGuard;
+        this.objectMapper = objectMapper;
+        meterRegistry.gauge("clinic.prescription.outbox.pending", outboxRepository,
+                PrescriptionOutboxRepository::countByDeliveredAtIsNullAndConflictAtIsNull);
+        meterRegistry.gauge("clinic.prescription.outbox.conflicts", outboxRepository,
+                PrescriptionOutboxRepository::countByConflictAtIsNotNull);
     }
 
-    public ResponseEntity<Map<String, Object>> savePrescription(Prescription prescription) {
+    @Transactional
+    public ResponseEntity<Map<String, Object>> savePrescription(Prescription prescription, Long doctorId) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Prescription> existing = prescriptionRepository.findByAppointmentId(prescription.getAppointmentId());
-            if (!existing.isEmpty()) {
+            Long appointmentId = prescription.getAppointmentId();
+            Appointment appointment = appointmentId == null ? null
+                    : appointmentRepository.findById(appointmentId).orElse(null);
+            if (appointment == null || !appointment.getDoctor().getId().equals(doctorId)) {
+                response.put("message", "Appointment not found.");
+                return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+            }
+            if (outboxRepository.existsByAppointmentId(appointmentId)) {
                 response.put("message", "Prescription already exists for this appointment.");
                 return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
             }
 
-            Prescription saved = prescriptionRepository.save(prescription);
+            PrescriptionOutbox entry = new PrescriptionOutbox();
+            entry.setAppointmentId(appointmentId);
+            entry.setPayload(objectMapper.writeValueAsString(prescription));
+            entry.setCreatedAt(LocalDateTime.now());
+            // Flush now so a concurrent duplicate fails on the unique index inside this try
+            outboxRepository.saveAndFlush(entry);
+            appointmentService.changeStatus(1, appointmentId);
+
             response.put("message", "Prescription saved successfully.");
-            response.put("prescription", saved);
+            response.put("prescription", prescription);
             return new ResponseEntity<>(response, HttpStatus.CREATED);
+        } catch (DataIntegrityViolationException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            response.put("message", "Prescription already exists for this appointment.");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             logger.error("Error while saving prescription", e);
             response.put("message", "Error while saving prescription: " + e.getMessage());
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -45,13 +131,36 @@ public class PrescriptionService {
     public ResponseEntity<Map<String, Object>> getPrescription(Long appointmentId) {
         Map<String, Object> response = new HashMap<>();
         try {
-            List<Prescription> prescriptions = prescriptionRepository.findByAppointmentId(appointmentId);
-            if (prescriptions.isEmpty()) {
+            Optional<PrescriptionOutbox> recorded = outboxRepository.findByAppointmentId(appointmentId);
+            if (recorded.isPresent() && recorded.get().getDeliveredAt() == null) {
+                response.put("prescription", fromPayload(recorded.get()));
+                response.put("pending", true);
+                if (recorded.get().getConflictAt() != null) {
+                    response.put("conflict", true);
+                }
+                return new ResponseEntity<>(response, HttpStatus.OK);
+            }
+
+            Prescription prescription;
+            try {
+                prescription = mongoGuard.call(() -> {
+                    List<Prescription> prescriptions = prescriptionRepository.findByAppointmentId(appointmentId);
+                    return prescriptions.isEmpty() ? null : expand(prescriptions.get(0));
+                });
+            } catch (MongoGuard.MongoUnavailableException e) {
+                if (recorded.isEmpty() || recorded.get().getPayload().isEmpty()) {
+                    response.put("message", e.getMessage());
+                    return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+                }
+                // Delivered payloads are kept for retention-days and can stand in for Mongo
+                prescription = fromPayload(recorded.get());
+            }
+            if (prescription == null) {
                 response.put("message", "No prescription found for this appointment.");
                 return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
             }
 
-            response.put("prescription", prescriptions.get(0));
+            response.put("prescription", prescription);
             return new ResponseEntity<>(response, HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error retrieving prescription", e);
@@ -59,4 +168,116 @@ public class PrescriptionService {
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    // Copies undelivered outbox rows to Mongo, one bulk upsert per batch, oldest first.
+    // A batch is stamped delivered only after Mongo acknowledged it; on failure it is retried next run.
+    // Rows that conflict with an existing document are stamped conflict_at, logged and left for an admin.
+    @Scheduled(fixedDelayString = "${prescription.outbox.relay-ms:2000}")
+    public void relayOutbox() {
+        if (!mongoGuard.isAvailable()) return;
+
+        int delivered = 0;
+        try {
+            List<PrescriptionOutbox> batch;
+            do {
+                batch = outboxRepository.findByDeliveredAtIsNullAndConflictAtIsNullOrderByIdAsc(
+                        PageRequest.of(0, relayBatchSize));
+                if (batch.isEmpty()) break;
+
+                List<PrescriptionOutbox> entries = batch;
+                Set<Long> conflicting = mongoGuard.call(() -> upsertAll(entries));
+                List<Long> ids = new ArrayList<>(batch.size());
+                List<Long> conflicts = new ArrayList<>();
+                for (PrescriptionOutbox entry : batch) {
+                    (conflicting.contains(entry.getAppointmentId()) ? conflicts : ids).add(entry.getId());
+                }
+                LocalDateTime now = LocalDateTime.now();
+                if (!ids.isEmpty()) {
+                    outboxRepository.markDelivered(ids, now);
+                }
+                if (!conflicts.isEmpty()) {
+                    outboxRepository.markConflict(conflicts, now);
+                    logger.error("Mongo already holds a different prescription for appointment(s) {}; "
+                            + "outbox rows {} were not delivered", conflicting, conflicts);
+                }
+                delivered += ids.size();
+            } while (batch.size() == relayBatchSize);
+        } catch (MongoGuard.MongoUnavailableException e) {
+            logger.warn("Prescription relay paused: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Prescription relay failed", e);
+        }
+        if (delivered > 0) {
+            logger.info("Relayed {} prescription(s) to Mongo", delivered);
+        }
+    }
+
+    @Scheduled(cron = "${prescription.outbox.purge-cron:0 45 3 * * *}")
+    public void purgeDelivered() {
+        int cleared = outboxRepository.clearDeliveredBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (cleared > 0) {
+            logger.info("Purged the payload of {} delivered prescription outbox rows", cleared);
+        }
+    }
+
+    // Runs on the Mongo pool. Returns the appointment ids whose upsert matched a document that
+    // differs from the outbox payload; a matching identical document is a redelivery and is fine.
+    Set<Long> upsertAll(List<PrescriptionOutbox> entries) throws JsonProcessingException {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Prescription.class);
+        for (PrescriptionOutbox entry : entries) {
+            Prescription prescription = fromPayload(entry);
+            if (compactStorage) {
+                compact(prescription);
+            }
+            Document document = new Document();
+            mongoTemplate.getConverter().write(prescription, document);
+            document.remove("_id");
+            Update update = new Update();
+            document.forEach(update::setOnInsert);
+            bulk.upsert(Query.query(Criteria.where("appointment_id").is(prescription.getAppointmentId())), update);
+        }
+        List<BulkWriteUpsert> upserts = bulk.execute().getUpserts();
+        if (upserts.size() == entries.size()) return Set.of();
+
+        Set<Integer> inserted = new HashSet<>();
+        upserts.forEach(upsert -> inserted.add(upsert.getIndex()));
+        Map<Long, PrescriptionOutbox> matched = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (!inserted.contains(i)) matched.put(entries.get(i).getAppointmentId(), entries.get(i));
+        }
+        Set<Long> conflicting = new HashSet<>(matched.keySet());
+        for (Prescription stored : mongoTemplate.find(
+                Query.query(Criteria.where("appointment_id").in(matched.keySet())), Prescription.class)) {
+            if (sameContent(expand(stored), fromPayload(matched.get(stored.getAppointmentId())))) {
+                conflicting.remove(stored.getAppointmentId());
+            }
+        }
+        return conflicting;
+    }
+
+    private static boolean sameContent(Prescription stored, Prescription submitted) {
+        return Objects.equals(stored.getPatientName(), submitted.getPatientName())
+                && Objects.equals(stored.getMedication(), submitted.getMedication())
+                && Objects.equals(stored.getDoctorNotes(), submitted.getDoctorNotes());
+    }
+
+    private Prescription fromPayload(PrescriptionOutbox entry) throws JsonProcessingException {
+        return objectMapper.readValue(entry.getPayload(), Prescription.class);
+    }
+
+    private void compact(Prescription prescription) {
+        Integer medicationId = medicationCatalog.idFor(prescription.getMedication());
+        if (medicationId != null) {
+            prescription.setMedicationId(medicationId);
+            prescription.setMedication(null);
+        }
+    }
+
+    // Restores the medication text for documents written in compact mode
+    private Prescription expand(Prescription prescription) {
+        if (prescription.getMedication() == null && prescription.getMedicationId() != null) {
+            prescription.setMedication(medicationCatalog.nameOf(prescription.getMedicationId()));
+        }
+        return prescription;
+    }
 }
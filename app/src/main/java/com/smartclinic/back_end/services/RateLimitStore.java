@@ -0,0 +1,11 @@
+package com.smartclinic.back_end.services;
+
+// Backing store for the login rate limiter.
+// LocalRateLimitStore keeps buckets in this JVM; JdbcRateLimitStore shares counts
+// between nodes through MySQL. Other stores (e.g. Redis) only need to implement this.
+public interface RateLimitStore {
+
+    // Takes one token from the bucket for `key`, which refills `capacity` tokens every
+    // `periodSeconds`. Returns 0 when allowed, otherwise the milliseconds until a retry may succeed.
+    long tryAcquire(String key, int capacity, long periodSeconds);
+}
@@ -0,0 +1,143 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.models.RefreshToken;
+import com.smartclinic.back_end.repo.RefreshTokenRepository;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+// Issues short-lived access tokens together with opaque, single-use refresh tokens.
+// A refresh token is exchanged exactly once for a new pair (rotation). Presenting an
+// already rotated token means it leaked, so the whole login family is revoked.
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenService tokenService;
+    private final TokenRevocationList revocations;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${jwt.refresh-ttl-days:14}")
+    private long refreshTtlDays;
+
+    // Two tabs refreshing at once both present the same token; the loser is not treated as theft
+    @Value("${jwt.refresh-reuse-grace-seconds:10}")
+    private long reuseGraceSeconds;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               TokenService tokenService,
+                               TokenRevocationList revocations) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenService = tokenService;
+        this.revocations = revocations;
+    }
+
+    // Starts a new login family; the result goes straight into the login response
+    @Transactional
+    public Map<String, Object> issueTokens(String subject, String role, Long userId) {
+        return issue(subject, role, userId, randomToken(16));
+    }
+
+    // Returns null when the refresh token is unknown, expired or already used
+    @Transactional
+    public Map<String, Object> rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) return null;
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(hash(rawToken));
+        LocalDateTime now = LocalDateTime.now();
+        if (stored == null || stored.getExpiresAt().isBefore(now)) return null;
+
+        if (stored.getRevokedAt() != null) {
+            if (stored.getRevokedAt().isBefore(now.minusSeconds(reuseGraceSeconds))) {
+                logger.warn("Refresh token reuse for {} {}; revoking login family", stored.getRole(), stored.getUserId());
+                refreshTokenRepository.revokeFamily(stored.getFamilyId(), now);
+            }
+            return null;
+        }
+
+        // Two requests can both read the token as unused; only the one whose update lands may rotate.
+        // The other lost a race of a few milliseconds, which is the in-grace reuse case above.
+        if (refreshTokenRepository.revokeIfActive(stored.getId(), now) == 0) {
+            logger.debug("Refresh token for {} {} was rotated concurrently", stored.getRole(), stored.getUserId());
+            return null;
+        }
+        return issue(stored.getSubject(), stored.getRole(), stored.getUserId(), stored.getFamilyId());
+    }
+
+    // Ends one login: its refresh family and, when given, the access token in hand
+    @Transactional
+    public void logout(String rawRefreshToken, Claims accessClaims) {
+        if (rawRefreshToken != null && !rawRefreshToken.isBlank()) {
+            RefreshToken stored = refreshTokenRepository.findByTokenHash(hash(rawRefreshToken));
+            if (stored != null) {
+                refreshTokenRepository.revokeFamily(stored.getFamilyId(), LocalDateTime.now());
+            }
+        }
+        if (accessClaims != null && accessClaims.getId() != null) {
+            revocations.revokeToken(accessClaims.getId());
+        }
+    }
+
+    // Signs the user out everywhere, e.g. when the account is removed
+    @Transactional
+    public void revokeUser(String role, Long userId) {
+        refreshTokenRepository.revokeUser(role, userId, LocalDateTime.now());
+        revocations.revokeUser(role, userId);
+    }
+
+    @Scheduled(cron = "${jwt.refresh-purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        int removed = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            logger.info("Purged {} expired refresh tokens", removed);
+        }
+    }
+
+    private Map<String, Object> issue(String subject, String role, Long userId, String familyId) {
+        String rawToken = randomToken(32);
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUserId(userId);
+        refreshToken.setRole(role);
+        refreshToken.setSubject(subject);
+        refreshToken.setExpiresAt(LocalDateTime.now().plusDays(refreshTtlDays));
+        refreshTokenRepository.save(refreshToken);
+
+        Map<String, Object> tokens = new HashMap<>();
+        tokens.put("token", tokenService.generateToken(subject, role, userId));
+        tokens.put("refreshToken", rawToken);
+        tokens.put("expiresIn", tokenService.getAccessTtlSeconds());
+        return tokens;
+    }
+
+    private String randomToken(int bytes) {
+        byte[] value = new byte[bytes];
+        random.nextBytes(value);
+        return BASE64URL.encodeToString(value);
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return BASE64URL.encodeToString(digest.digest(rawToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
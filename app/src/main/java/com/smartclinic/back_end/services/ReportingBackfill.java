@@ -0,0 +1,40 @@
+package com.smartclinic.back_end.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+// Recounts the daily rollup and rebuilds the monthly rows of past months that predate the
+// rollup (ReportingService.backfill). Runs at startup when reporting.backfill.enabled=true;
+// months are marked in report_month as they are done, so later starts only check the markers.
+// The flag is checked at run time, not as a bean condition, so it also works on AOT-built jars.
+@Component
+public class ReportingBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportingBackfill.class);
+
+    private final ReportingService reportingService;
+
+    @Value("${reporting.backfill.enabled:true}")
+    private boolean enabled;
+
+    public ReportingBackfill(ReportingService reportingService) {
+        this.reportingService = reportingService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        try {
+            int months = reportingService.backfill();
+            if (months > 0) {
+                logger.info("Reporting backfill finished, {} months recounted", months);
+            }
+        } catch (Exception e) {
+            logger.error("Reporting backfill stopped, it resumes at the next start", e);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.ReportRow;
+import com.smartclinic.back_end.models.AppointmentDailyRollup;
+import com.smartclinic.back_end.models.AppointmentMonthlyRollup;
+import com.smartclinic.back_end.repo.AppointmentArchiveRepository;
+import com.smartclinic.back_end.repo.AppointmentDailyRollupRepository;
+import com.smartclinic.back_end.repo.AppointmentMonthlyRollupRepository;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import com.smartclinic.back_end.repo.ReportMonthRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Appointment reports for the admin dashboard, read from small rollup tables instead of
+// scanning `appointment`.
+// The daily rollup is updated by AppointmentService and AppointmentStatusScheduler inside
+// their own transactions (book, move, complete, cancel). Monthly rows are rebuilt from it on a
+// schedule and on demand: the month is split into day ranges that are read and summed in
+// parallel on a fork/join pool, then merged and written in one transaction. Rows are upserted
+// in doctor order rather than deleted and re-inserted, so the hourly refresh on every node and
+// on-demand rebuilds of the same month can overlap without duplicate-key failures or deadlocks.
+// report_month records which months have been built (and recounted), so reading a month rebuilds
+// it at most once, even when it has no appointments.
+@Service
+public class ReportingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportingService.class);
+
+    private final AppointmentDailyRollupRepository dailyRepository;
+    private final AppointmentMonthlyRollupRepository monthlyRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentArchiveRepository archiveRepository;
+    private final AppointmentArchiveService archive;
+    private final ReportMonthRepository reportMonthRepository;
+    private final TransactionTemplate transactions;
+    private final ForkJoinPool pool;
+    private final int partitionDays;
+
+    public ReportingService(AppointmentDailyRollupRepository dailyRepository,
+                            AppointmentMonthlyRollupRepository monthlyRepository,
+                            AppointmentRepository appointmentRepository,
+                            AppointmentArchiveRepository archiveRepository,
+                            AppointmentArchiveService archive,
+                            ReportMonthRepository reportMonthRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${reporting.parallelism:4}") int parallelism,
+                            @Value("${reporting.partition-days:4}") int partitionDays) {
+        this.dailyRepository = dailyRepository;
+        this.monthlyRepository = monthlyRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.archiveRepository = archiveRepository;
+        this.archive = archive;
+        this.reportMonthRepository = reportMonthRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        // Each leaf holds a pooled JDBC connection while it reads, so keep this below the Hikari pool size
+        this.pool = new ForkJoinPool(parallelism);
+        this.partitionDays = Math.max(1, partitionDays);
+    }
+
+    // --- incremental updates, called inside the mutating transaction ---
+
+    public void booked(Long doctorId, LocalDateTime time) {
+        dailyRepository.add(time.toLocalDate(), doctorId, 1, 0, 0);
+    }
+
+    public void moved(Long previousDoctorId, LocalDateTime previousTime, int previousStatus,
+                      Long doctorId, LocalDateTime time, int status) {
+        if (previousDoctorId.equals(doctorId) && previousTime.toLocalDate().equals(time.toLocalDate())
+                && previousStatus == status) {
+            return;
+        }
+        dailyRepository.add(previousTime.toLocalDate(), previousDoctorId, -1, previousStatus == 1 ? -1 : 0, 0);
+        dailyRepository.add(time.toLocalDate(), doctorId, 1, status == 1 ? 1 : 0, 0);
+    }
+
+    public void cancelled(Long doctorId, LocalDateTime time, int status) {
+        dailyRepository.add(time.toLocalDate(), doctorId, -1, status == 1 ? -1 : 0, 1);
+    }
+
+    public void statusChanged(Long doctorId, LocalDateTime time, int previousStatus, int status) {
+        int completed = (status == 1 ? 1 : 0) - (previousStatus == 1 ? 1 : 0);
+        if (completed != 0) {
+            dailyRepository.add(time.toLocalDate(), doctorId, 0, completed, 0);
+        }
+    }
+
+    public void completed(List<Long> appointmentIds) {
+        if (!appointmentIds.isEmpty()) {
+            dailyRepository.addCompleted(appointmentIds);
+        }
+    }
+
+    // --- reports ---
+
+    public List<ReportRow> dailyReport(LocalDate from, LocalDate to, boolean bySpecialty) {
+        if (bySpecialty) {
+            return dailyRepository.sumBySpecialty(from, to);
+        }
+        List<ReportRow> rows = new ArrayList<>();
+        for (AppointmentDailyRollup r : dailyRepository.findByDayBetweenOrderByDayAscDoctorIdAsc(from, to)) {
+            rows.add(new ReportRow(r.getDay(), r.getDoctorId(), r.getSpecialty(),
+                    r.getBooked(), r.getCompleted(), r.getCancelled()));
+        }
+        return rows;
+    }
+
+    // A month never built is built on first read: past months are recounted from `appointment`
+    // first (their daily rows may predate the rollup), future months are left alone
+    public List<ReportRow> monthlyReport(YearMonth month, boolean bySpecialty) {
+        LocalDate first = month.atDay(1);
+        YearMonth now = YearMonth.now();
+        if (!month.isAfter(now) && !reportMonthRepository.existsById(first)) {
+            rebuildMonth(month, month.isBefore(now));
+        }
+        if (bySpecialty) {
+            return monthlyRepository.sumBySpecialty(first);
+        }
+        List<ReportRow> rows = new ArrayList<>();
+        for (AppointmentMonthlyRollup r : monthlyRepository.findByMonthOrderByDoctorIdAsc(first)) {
+            rows.add(new ReportRow(r.getMonth(), r.getDoctorId(), r.getSpecialty(),
+                    r.getBooked(), r.getCompleted(), r.getCancelled()));
+        }
+        return rows;
+    }
+
+    // The current month changes all day; previous months only need a rebuild after a recount
+    @Scheduled(cron = "${reporting.monthly.refresh-cron:0 10 * * * *}")
+    public void refreshCurrentMonth() {
+        try {
+            rebuildMonth(YearMonth.now(), false);
+            if (LocalDate.now().getDayOfMonth() == 1) {
+                rebuildMonth(YearMonth.now().minusMonths(1), false);
+            }
+        } catch (Exception e) {
+            logger.error("Monthly rollup refresh failed", e);
+        }
+    }
+
+    // Rebuilds one month. With recount, booked/completed of the daily rows are first recounted
+    // from `appointment` (for data that predates the rollup or after a manual fix); cancellations
+    // are not recoverable from there and are kept as recorded.
+    public int rebuildMonth(YearMonth month, boolean recount) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        Map<Long, Totals> totals = pool.invoke(new MonthPartition(month.atDay(1), month.atEndOfMonth(), recount));
+
+        LocalDate first = month.atDay(1);
+        // Same lock order on every node
+        TreeMap<Long, Totals> rows = new TreeMap<>(totals);
+        transactions.executeWithoutResult(status -> {
+            rows.forEach((doctorId, t) ->
+                    monthlyRepository.upsert(first, doctorId, t.specialty, t.booked, t.completed, t.cancelled));
+            if (rows.isEmpty()) {
+                monthlyRepository.deleteByMonth(first);
+            } else {
+                monthlyRepository.deleteByMonthExcept(first, rows.keySet());
+            }
+            reportMonthRepository.markRebuilt(first, recount, startedAt);
+        });
+        logger.info("Rebuilt monthly rollup for {} ({} doctors{}) in {} ms", month, rows.size(),
+                recount ? ", recounted" : "", (System.nanoTime() - start) / 1_000_000);
+        return rows.size();
+    }
+
+    // One-off backfill: recounts every month from the oldest appointment (live or archived) up to
+    // the previous month, skipping months already recounted. The current month is left to the
+    // incremental updates (a recount would race with them); recount it through the admin endpoint if needed.
+    public int backfill() {
+        LocalDateTime earliest = appointmentRepository.findEarliestAppointmentTime();
+        LocalDateTime archived = archiveRepository.findEarliestAppointmentTime();
+        if (archived != null && (earliest == null || archived.isBefore(earliest))) {
+            earliest = archived;
+        }
+        if (earliest == null) return 0;
+
+        int months = 0;
+        YearMonth current = YearMonth.now();
+        for (YearMonth month = YearMonth.from(earliest); month.isBefore(current); month = month.plusMonths(1)) {
+            if (reportMonthRepository.existsByMonthAndRecountedTrue(month.atDay(1))) continue;
+            rebuildMonth(month, true);
+            months++;
+        }
+        return months;
+    }
+
+    private record DayDoctor(LocalDate day, Long doctorId) {
+    }
+
+    // Running totals for one doctor
+    private static final class Totals {
+        private String specialty;
+        private int booked;
+        private int completed;
+        private int cancelled;
+
+        private Totals add(Totals other) {
+            if (specialty == null) specialty = other.specialty;
+            booked += other.booked;
+            completed += other.completed;
+            cancelled += other.cancelled;
+            return this;
+        }
+    }
+
+    // Splits [from, to] in halves down to partition-days, reads each range on its own, and merges
+    // the per-doctor totals on the way back up
+    private final class MonthPartition extends RecursiveTask<Map<Long, Totals>> {
+
+        private final LocalDate from;
+        private final LocalDate to;
+        private final boolean recount;
+
+        private MonthPartition(LocalDate from, LocalDate to, boolean recount) {
+            this.from = from;
+            this.to = to;
+            this.recount = recount;
+        }
+
+        @Override
+        protected Map<Long, Totals> compute() {
+            long days = to.toEpochDay() - from.toEpochDay() + 1;
+            if (days <= partitionDays) {
+                return sumRange();
+            }
+            LocalDate middle = from.plusDays(days / 2 - 1);
+            MonthPartition left = new MonthPartition(from, middle, recount);
+            MonthPartition right = new MonthPartition(middle.plusDays(1), to, recount);
+            left.fork();
+            Map<Long, Totals> merged = right.compute();
+            left.join().forEach((doctorId, t) -> merged.merge(doctorId, t, Totals::add));
+            return merged;
+        }
+
+        private Map<Long, Totals> sumRange() {
+            if (recount) {
+                recountRange();
+            }
+            Map<Long, Totals> totals = new HashMap<>();
+            for (AppointmentDailyRollup r : dailyRepository.findByDayBetweenOrderByDayAscDoctorIdAsc(from, to)) {
+                Totals t = totals.computeIfAbsent(r.getDoctorId(), id -> new Totals());
+                t.specialty = r.getSpecialty();
+                t.booked += r.getBooked();
+                t.completed += r.getCompleted();
+                t.cancelled += r.getCancelled();
+            }
+            return totals;
+        }
+
+        private void recountRange() {
+            LocalDateTime start = from.atStartOfDay();
+            LocalDateTime before = to.plusDays(1).atStartOfDay();
+            // (day, doctor) -> {booked, completed}, hot and archived rows added together
+            Map<DayDoctor, long[]> counts = new HashMap<>();
+            List<AppointmentRepository.DailyCount> rows = new ArrayList<>(appointmentRepository.countByDayAndDoctor(start, before));
+            if (archive.covers(start)) {
+                rows.addAll(archiveRepository.countByDayAndDoctor(start, before));
+            }
+            for (AppointmentRepository.DailyCount c : rows) {
+                long[] sum = counts.computeIfAbsent(new DayDoctor(c.getDay(), c.getDoctorId()), k -> new long[2]);
+                sum[0] += c.getBooked();
+                sum[1] += c.getCompleted();
+            }
+            transactions.executeWithoutResult(status -> {
+                dailyRepository.zeroCounts(from, to);
+                counts.forEach((key, sum) ->
+                        dailyRepository.resetCounts(key.day(), key.doctorId(), (int) sum[0], (int) sum[1]));
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
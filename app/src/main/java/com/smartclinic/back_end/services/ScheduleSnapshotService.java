@@ -0,0 +1,136 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.ScheduleEntry;
+import com.smartclinic.back_end.repo.AppointmentArchiveRepository;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+// Per-doctor, per-day schedule snapshots served to the doctor dashboard.
+// A snapshot is loaded from a flat projection query and then kept current by applying each
+// booking, update, cancellation and status change after it commits on this node. Changes
+// committed on other nodes are not seen, so a snapshot is reloaded once it is older than
+// schedule.snapshot.ttl-ms; at most schedule.snapshot.max-entries days are kept.
+@Service
+public class ScheduleSnapshotService {
+
+    private record Key(long doctorId, LocalDate date) {
+    }
+
+    // Deltas keep the expiry of the load they are applied to
+    private record Cached(DailyScheduleSnapshot snapshot, long expiresAt) {
+
+        private Cached map(UnaryOperator<DailyScheduleSnapshot> change) {
+            return new Cached(change.apply(snapshot), expiresAt);
+        }
+    }
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentArchiveRepository archiveRepository;
+    private final AppointmentArchiveService archive;
+    private final Map<Key, Cached> snapshots = new ConcurrentHashMap<>();
+
+    @Value("${schedule.snapshot.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${schedule.snapshot.max-entries:5000}")
+    private int maxEntries;
+
+    public ScheduleSnapshotService(AppointmentRepository appointmentRepository,
+                                   AppointmentArchiveRepository archiveRepository,
+                                   AppointmentArchiveService archive) {
+        this.appointmentRepository = appointmentRepository;
+        this.archiveRepository = archiveRepository;
+        this.archive = archive;
+    }
+
+    // Returns the day's appointments, optionally filtered by patient name, loading the snapshot on first use
+    public List<ScheduleEntry> getSchedule(Long doctorId, LocalDate date, String patientName) {
+        Key key = new Key(doctorId, date);
+        long now = System.currentTimeMillis();
+        Cached cached = snapshots.get(key);
+        if (cached == null || cached.expiresAt() < now) {
+            // Loading inside compute makes concurrent deltas for this key wait until the snapshot exists
+            cached = snapshots.compute(key, (k, current) -> current != null && current.expiresAt() >= now ? current
+                    : new Cached(DailyScheduleSnapshot.of(load(doctorId, date)), now + ttlMs));
+            if (snapshots.size() > maxEntries) trim(now);
+        }
+        return cached.snapshot().toEntries(date, patientName);
+    }
+
+    // Drops expired snapshots, then the ones closest to expiry until the map is back under the bound
+    private void trim(long now) {
+        snapshots.values().removeIf(cached -> cached.expiresAt() < now);
+        int excess = snapshots.size() - maxEntries;
+        if (excess <= 0) return;
+        snapshots.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt()))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(snapshots::remove);
+    }
+
+    // Days older than the retention window may be partly archived
+    private List<ScheduleEntry> load(Long doctorId, LocalDate date) {
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = date.atTime(LocalTime.MAX);
+        List<ScheduleEntry> entries = appointmentRepository.findScheduleEntries(doctorId, start, end);
+        if (!archive.covers(start)) {
+            return entries;
+        }
+        List<ScheduleEntry> merged = new ArrayList<>(entries);
+        merged.addAll(archiveRepository.findScheduleEntries(doctorId, start, end));
+        merged.sort(Comparator.comparing(ScheduleEntry::getAppointmentTime).thenComparing(ScheduleEntry::getId));
+        return merged;
+    }
+
+    public void appointmentSaved(Long doctorId, ScheduleEntry entry) {
+        afterCommit(() -> snapshots.computeIfPresent(
+                new Key(doctorId, entry.getAppointmentTime().toLocalDate()), (k, c) -> c.map(s -> s.with(entry))));
+    }
+
+    public void appointmentRemoved(Long doctorId, LocalDateTime appointmentTime, Long appointmentId) {
+        afterCommit(() -> snapshots.computeIfPresent(
+                new Key(doctorId, appointmentTime.toLocalDate()), (k, c) -> c.map(s -> s.without(appointmentId))));
+    }
+
+    // Status changes only carry appointment ids, so every cached day is checked
+    public void statusChanged(Collection<Long> appointmentIds, int status) {
+        afterCommit(() -> snapshots.replaceAll((k, c) -> c.map(s -> s.withStatus(appointmentIds, status))));
+    }
+
+    // Past days are no longer shown on the dashboard; drop them shortly after midnight
+    @Scheduled(cron = "${schedule.snapshot.evict-cron:0 5 0 * * *}")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        snapshots.keySet().removeIf(key -> key.date().isBefore(today));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
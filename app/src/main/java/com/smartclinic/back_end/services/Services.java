@@ -21,16 +21,15 @@ public class Services {
 // The constructor injects all required dependencies (TokenService, Repositories, and other Services). This approach promotes loose coupling, improves testability,
 // and ensures that all required dependencies are provided at object creation time.
 
-// 3. **validateToken Method**
-// This method checks if the provided JWT token is valid for a specific user. It uses the TokenService to perform the validation.
-// If the token is invalid or expired, it returns a 401 Unauthorized response with an appropriate error message. This ensures security by preventing
-// unauthorized access to protected resources.
+// 3. **Token Validation**
+// Tokens are no longer validated here per request. JwtAuthenticationFilter verifies the bearer token once, and the role
+// rules in SecurityConfig return 401/403 before a controller is reached.
 
 // 4. **validateAdmin Method**
 // This method validates the login credentials for an admin user.
 // - It first searches the admin repository using the provided username.
 // - If an admin is found, it checks if the password matches.
-// - If the password is correct, it generates and returns a JWT token (using the admin’s username) with a 200 OK status.
+// - If the password is correct, it returns a short-lived JWT access token plus a refresh token with a 200 OK status.
 // - If the password is incorrect, it returns a 401 Unauthorized status with an error message.
 // - If no admin is found, it also returns a 401 Unauthorized.
 // - If any unexpected error occurs during the process, a 500 Internal Server Error response is returned.
@@ -80,6 +79,8 @@ public class Services {
     private final PatientRepository patientRepository;
     private final DoctorService doctorService;
     private final PatientService patientService;
+    private final PasswordService passwordService;
+    private final RefreshTokenService refreshTokenService;
 
     @Autowired
     public Services(
@@ -88,7 +89,9 @@ public class Services {
             DoctorRepository doctorRepository,
             PatientRepository patientRepository,
             DoctorService doctorService,
-            PatientService patientService
+            PatientService patientService,
+            PasswordService passwordService,
+            RefreshTokenService refreshTokenService
     ) {
         this.tokenService = tokenService;
         this.adminRepository = adminRepository;
@@ -96,36 +99,26 @@ public class Services {
         this.patientRepository = patientRepository;
         this.doctorService = doctorService;
         this.patientService = patientService;
-    }
-
-    public ResponseEntity<Map<String, Object>> validateToken(String token, String role) {
-        Map<String, Object> res = new HashMap<>();
-        try {
-            //String email = tokenService.extractUsername(token);
-            boolean isValid = tokenService.validateToken(token,role);
-            if (!isValid) {
-                res.put("message", "Unauthorized: Invalid or expired token");
-                return new ResponseEntity<>(res, HttpStatus.UNAUTHORIZED);
-            }
-            res.put("message", "Valid token");
-            return new ResponseEntity<>(res, HttpStatus.OK);
-        } catch (Exception e) {
-            res.put("message", "Token validation error: " + e.getMessage());
-            return new ResponseEntity<>(res, HttpStatus.UNAUTHORIZED);
-        }
+        this.passwordService = passwordService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     public ResponseEntity<Map<String, Object>> validateAdmin(Login login) {
         Map<String, Object> res = new HashMap<>();
         try {
             Admin admin = adminRepository.findByUsername(login.getEmail());
-            if (admin != null && admin.getPassword().equals(login.getPassword())) {
-                String token = tokenService.generateToken(admin.getUsername(), "admin");
-                res.put("token", token);
+            if (admin != null && passwordService.verify(login.getPassword(), admin.getPassword(), hash -> {
+                admin.setPassword(hash);
+                adminRepository.save(admin);
+            })) {
+                res.putAll(refreshTokenService.issueTokens(admin.getUsername(), "admin", admin.getId()));
                 return new ResponseEntity<>(res, HttpStatus.OK);
             }
             res.put("message", "Invalid username or password");
             return new ResponseEntity<>(res, HttpStatus.UNAUTHORIZED);
+        } catch (PasswordService.LoginBusyException e) {
+            res.put("message", e.getMessage());
+            return new ResponseEntity<>(res, HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
             res.put("message", "Login error: " + e.getMessage());
             return new ResponseEntity<>(res, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -172,13 +165,18 @@ public class Services {
         Map<String, Object> res = new HashMap<>();
         try {
             Patient patient = patientRepository.findByEmail(login.getEmail());
-            if (patient != null && patient.getPassword().equals(login.getPassword())) {
-                String token = tokenService.generateToken(patient.getEmail(), "patient");
-                res.put("token", token);
+            if (patient != null && passwordService.verify(login.getPassword(), patient.getPassword(), hash -> {
+                patient.setPassword(hash);
+                patientRepository.save(patient);
+            })) {
+                res.putAll(refreshTokenService.issueTokens(patient.getEmail(), "patient", patient.getId()));
                 return new ResponseEntity<>(res, HttpStatus.OK);
             }
             res.put("message", "Invalid email or password");
             return new ResponseEntity<>(res, HttpStatus.UNAUTHORIZED);
+        } catch (PasswordService.LoginBusyException e) {
+            res.put("message", e.getMessage());
+            return new ResponseEntity<>(res, HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
             res.put("message", "Login error: " + e.getMessage());
             return new ResponseEntity<>(res, HttpStatus.INTERNAL_SERVER_ERROR);
@@ -262,13 +260,18 @@ public class Services {
     Map<String, Object> res = new HashMap<>();
     try {
         Doctor doctor = doctorRepository.findByEmail(login.getEmail());
-        if (doctor != null && doctor.getPassword().equals(login.getPassword())) {
-            String token = tokenService.generateToken(doctor.getEmail(), "doctor");
-            res.put("token", token);
+        if (doctor != null && passwordService.verify(login.getPassword(), doctor.getPassword(), hash -> {
+            doctor.setPassword(hash);
+            doctorRepository.save(doctor);
+        })) {
+            res.putAll(refreshTokenService.issueTokens(doctor.getEmail(), "doctor", doctor.getId()));
             return new ResponseEntity<>(res, HttpStatus.OK);
         }
         res.put("message", "Invalid email or password");
         return new ResponseEntity<>(res, HttpStatus.UNAUTHORIZED);
+    } catch (PasswordService.LoginBusyException e) {
+        res.put("message", e.getMessage());
+        return new ResponseEntity<>(res, HttpStatus.SERVICE_UNAVAILABLE);
     } catch (Exception e) {
         res.put("message", "Login error: " + e.getMessage());
         return new ResponseEntity<>(res, HttpStatus.INTERNAL_SERVER_ERROR);
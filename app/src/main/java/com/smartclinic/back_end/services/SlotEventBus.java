@@ -0,0 +1,174 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.SlotEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-process fan-out of slot changes to server-sent event subscribers.
+// Events are published by AppointmentService as Spring application events and
+// delivered here only after the surrounding transaction commits. Every subscriber
+// has its own bounded buffer drained by a small shared pool; a subscriber that
+// falls behind loses its buffered deltas and is told to resync instead of
+// blocking publishers or other subscribers. Time-only subscribers (patients picking a
+// slot) receive booked/released deltas without appointment ids and no status changes.
+@Component
+public class SlotEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotEventBus.class);
+
+    private record Key(long doctorId, LocalDate date) {
+    }
+
+    private final Map<Key, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService deliveryPool;
+
+    @Value("${appointment.events.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${appointment.events.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${appointment.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public SlotEventBus(@Value("${appointment.events.delivery-threads:2}") int deliveryThreads) {
+        this.deliveryPool = Executors.newFixedThreadPool(deliveryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "slot-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Returns null when the node already holds the maximum number of open streams
+    public SseEmitter subscribe(Long doctorId, LocalDate date, boolean timeOnly) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        Key key = new Key(doctorId, date);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, bufferSize, timeOnly);
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        Runnable remove = () -> unsubscribe(key, subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(SlotEvent event) {
+        Set<Subscriber> targets = subscribers.get(new Key(event.getDoctorId(), event.getDate()));
+        if (targets == null) return;
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(event);
+        }
+    }
+
+    // Comment frames keep idle connections from being closed by proxies. Only queued here: the
+    // sends happen on the delivery pool so slow clients never hold up the shared scheduler thread.
+    @Scheduled(fixedDelayString = "${appointment.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::heartbeat));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryPool.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(s -> s.emitter.complete()));
+    }
+
+    private void unsubscribe(Key key, Subscriber subscriber) {
+        Set<Subscriber> set = subscribers.get(key);
+        if (set != null && set.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(key, (k, s) -> s.isEmpty() ? null : s);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SlotEvent> buffer;
+        private final boolean timeOnly;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, int capacity, boolean timeOnly) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(capacity);
+            this.timeOnly = timeOnly;
+        }
+
+        private void offer(SlotEvent event) {
+            if (timeOnly) {
+                if ("status".equals(event.getType())) return;
+                event = event.timeOnly();
+            }
+            if (!buffer.offer(event)) {
+                // Too slow to keep up: drop the backlog and ask the client to reload once
+                buffer.clear();
+                overflowed = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                deliveryPool.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                if (overflowed) {
+                    overflowed = false;
+                    emitter.send(SseEmitter.event().name("resync").data("{}"));
+                }
+                if (heartbeatDue) {
+                    heartbeatDue = false;
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+                SlotEvent event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(SseEmitter.event().name("slot").data(event));
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Dropping slot event subscriber: {}", e.getMessage());
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event may have arrived between the last poll and releasing the flag
+            if (!buffer.isEmpty() || overflowed || heartbeatDue) {
+                scheduleDrain();
+            }
+        }
+
+        private void heartbeat() {
+            heartbeatDue = true;
+            scheduleDrain();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.models.Doctor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Warms the caches and hot code paths before the node reports ready.
+// Spring Boot moves readiness to ACCEPTING_TRAFFIC only after every ApplicationRunner has
+// returned, and this runner is ordered last, so /actuator/health/readiness stays
+// OUT_OF_SERVICE until warm-up finishes or warmup.deadline-ms passes, whichever is first.
+// The web server is already listening, which lets the last step call the real endpoints.
+// warmup.enabled is read at run time rather than as a bean condition, so it can still be
+// switched off on an AOT-built jar (fast-startup profile).
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final DoctorService doctorService;
+    private final ScheduleSnapshotService scheduleSnapshots;
+    private final TokenService tokenService;
+    private final Environment environment;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.deadline-ms:60000}")
+    private long deadlineMs;
+
+    @Value("${warmup.token-iterations:5000}")
+    private int tokenIterations;
+
+    @Value("${warmup.http-requests:200}")
+    private int httpRequests;
+
+    @Value("${api.path}")
+    private String apiPath;
+
+    public StartupWarmup(DoctorService doctorService,
+                         ScheduleSnapshotService scheduleSnapshots,
+                         TokenService tokenService,
+                         Environment environment) {
+        this.doctorService = doctorService;
+        this.scheduleSnapshots = scheduleSnapshots;
+        this.tokenService = tokenService;
+        this.environment = environment;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "startup-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Future<?> warmup = executor.submit(this::warmUp);
+        try {
+            warmup.get(deadlineMs, TimeUnit.MILLISECONDS);
+            logger.info("Warm-up finished in {} ms", elapsedMs(start));
+        } catch (TimeoutException e) {
+            warmup.cancel(true);
+            logger.warn("Warm-up still running after the {} ms deadline; reporting ready anyway", deadlineMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warn("Warm-up aborted after {} ms", elapsedMs(start), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void warmUp() {
+        List<Doctor> doctors = step("doctor directory", doctorService::getDoctors);
+        if (doctors == null) doctors = List.of();
+
+        LocalDate today = LocalDate.now();
+        List<Doctor> directory = doctors;
+        step("today's schedules", () -> {
+            for (Doctor doctor : directory) {
+                if (Thread.currentThread().isInterrupted()) break;
+                scheduleSnapshots.getSchedule(doctor.getId(), today, null);
+            }
+            return directory.size();
+        });
+
+        step("token sign/verify", () -> {
+            for (int i = 0; i < tokenIterations && !Thread.currentThread().isInterrupted(); i++) {
+                tokenService.parseClaims(tokenService.generateToken("warmup@clinic.local", "doctor", 0L));
+            }
+            return tokenIterations;
+        });
+
+        String port = environment.getProperty("local.server.port");
+        if (port != null) {
+            Doctor first = doctors.isEmpty() ? null : doctors.get(0);
+            step("synthetic requests", () -> syntheticRequests("http://localhost:" + port, first, today));
+        }
+    }
+
+    // Exercises the doctor directory (plain and ETag revalidation) and, when a doctor exists,
+    // the authenticated daily schedule and availability endpoints. Read-only.
+    private int syntheticRequests(String host, Doctor doctor, LocalDate today) throws Exception {
+        String doctorBase = host + apiPath + "doctor/";
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        String etag = doctorService.getDirectoryETag();
+        String bearer = doctor == null ? null
+                : "Bearer " + tokenService.generateToken(doctor.getEmail(), "doctor", doctor.getId());
+
+        int sent = 0;
+        for (int i = 0; i < httpRequests && !Thread.currentThread().isInterrupted(); i++) {
+            send(client, HttpRequest.newBuilder(URI.create(doctorBase + "get")));
+            send(client, HttpRequest.newBuilder(URI.create(doctorBase + "get")).header("If-None-Match", etag));
+            sent += 2;
+            if (bearer != null) {
+                send(client, HttpRequest.newBuilder(URI.create(host + "/appointments/" + today + "/none"))
+                        .header("Authorization", bearer));
+                send(client, HttpRequest.newBuilder(URI.create(doctorBase + "availability/" + doctor.getId() + "/" + today))
+                        .header("Authorization", bearer));
+                sent += 2;
+            }
+        }
+        return sent;
+    }
+
+    private static void send(HttpClient client, HttpRequest.Builder request) throws Exception {
+        client.send(request.timeout(Duration.ofSeconds(5)).GET().build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    private <T> T step(String name, WarmupStep<T> step) {
+        long start = System.nanoTime();
+        try {
+            T result = step.run();
+            logger.info("Warm-up {}: {} in {} ms", name, result instanceof List<?> list ? list.size() : result, elapsedMs(start));
+            return result;
+        } catch (Exception e) {
+            // A failed step only means that path stays cold
+            logger.warn("Warm-up {} failed after {} ms: {}", name, elapsedMs(start), e.getMessage());
+            return null;
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep<T> {
+        T run() throws Exception;
+    }
+}
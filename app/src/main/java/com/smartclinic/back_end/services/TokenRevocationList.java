@@ -0,0 +1,151 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.models.TokenRevocation;
+import com.smartclinic.back_end.repo.TokenRevocationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Revoked access tokens, checked in memory on every authenticated request.
+// Access tokens live for at most one TTL, so a revocation only has to be remembered
+// that long: entries go into the current generation, generations rotate every TTL,
+// and anything two generations old is dropped. Each generation pairs a Bloom filter
+// (fast "never revoked" answer) with an exact map that settles the rare positives.
+// Revocations are also written to token_revocation and polled by the other nodes by
+// revoked_at rather than by id: a row inserted inside a longer transaction (revokeUser in
+// DoctorService.deleteDoctor) can become visible after rows with higher ids and later times,
+// so every poll re-reads the last poll-overlap-ms as well. Applying a row twice is harmless.
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final class Generation {
+        private final BloomFilter bloom = new BloomFilter(expectedRevocations, falsePositiveRate);
+        // Revocation key -> revocation time in epoch seconds
+        private final Map<String, Long> revokedAt = new ConcurrentHashMap<>();
+
+        private void add(String key, long epochSecond) {
+            bloom.put(key);
+            revokedAt.merge(key, epochSecond, Math::max);
+        }
+
+        private Long get(String key) {
+            return bloom.mightContain(key) ? revokedAt.get(key) : null;
+        }
+    }
+
+    private final TokenRevocationRepository revocationRepository;
+    private final long accessTtlMinutes;
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+    private final long pollOverlapMs;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+    // Start of the last successful poll (or load); the next one reads from here minus the overlap
+    private volatile LocalDateTime polledUpTo;
+
+    public TokenRevocationList(TokenRevocationRepository revocationRepository,
+                               @Value("${jwt.access-ttl-minutes:15}") long accessTtlMinutes,
+                               @Value("${jwt.revocation.expected-entries:10000}") int expectedRevocations,
+                               @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                               @Value("${jwt.revocation.poll-overlap-ms:120000}") long pollOverlapMs) {
+        this.revocationRepository = revocationRepository;
+        this.accessTtlMinutes = accessTtlMinutes;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.pollOverlapMs = pollOverlapMs;
+        this.current = new Generation();
+        this.previous = new Generation();
+        this.polledUpTo = LocalDateTime.now().minusMinutes(2 * accessTtlMinutes);
+    }
+
+    // Rebuild from revocations that can still matter after a restart. If MySQL is not
+    // reachable yet (or during the image's CDS training run) the list starts empty and the
+    // first successful poll reads the same window.
+    @PostConstruct
+    public void load() {
+        LocalDateTime started = LocalDateTime.now();
+        List<TokenRevocation> recent;
+        try {
+            recent = revocationRepository.findByRevokedAtAfterOrderByIdAsc(polledUpTo);
+        } catch (DataAccessException e) {
+            logger.warn("Revocation list not loaded at startup, the next poll will catch up: {}", e.getMessage());
+            return;
+        }
+        recent.forEach(this::apply);
+        polledUpTo = started;
+    }
+
+    public void revokeToken(String jti) {
+        record("t:" + jti);
+    }
+
+    // Invalidates every access token the user was issued up to now
+    public void revokeUser(String role, Long userId) {
+        record("u:" + role + ":" + userId);
+    }
+
+    public boolean isRevoked(String jti, String role, Long userId, Date issuedAt) {
+        if (jti != null && lookup("t:" + jti) != null) return true;
+        Long userRevokedAt = lookup("u:" + role + ":" + userId);
+        // iat has second precision; a token minted in the same second is treated as revoked
+        return userRevokedAt != null && (issuedAt == null || issuedAt.getTime() / 1000 <= userRevokedAt);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-ms:5000}")
+    public void poll() {
+        LocalDateTime started = LocalDateTime.now();
+        try {
+            revocationRepository.findByRevokedAtAfterOrderByIdAsc(polledUpTo.minusNanos(pollOverlapMs * 1_000_000))
+                    .forEach(this::apply);
+            polledUpTo = started;
+        } catch (Exception e) {
+            logger.warn("Token revocation poll failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRateString = "#{${jwt.access-ttl-minutes:15} * 60000}",
+               initialDelayString = "#{${jwt.access-ttl-minutes:15} * 60000}")
+    public void rotate() {
+        previous = current;
+        current = new Generation();
+        try {
+            revocationRepository.deleteOlderThan(LocalDateTime.now().minusMinutes(3 * accessTtlMinutes));
+        } catch (Exception e) {
+            logger.warn("Token revocation cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private void record(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        // Apply locally first so this node rejects the token even if the insert fails
+        current.add(key, epochSecond(now));
+        revocationRepository.save(new TokenRevocation(key, now));
+    }
+
+    private void apply(TokenRevocation revocation) {
+        current.add(revocation.getRevocationKey(), epochSecond(revocation.getRevokedAt()));
+    }
+
+    private Long lookup(String key) {
+        Long at = current.get(key);
+        return at != null ? at : previous.get(key);
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
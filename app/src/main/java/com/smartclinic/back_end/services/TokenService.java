@@ -1,16 +1,11 @@
 package com.smartclinic.back_end.services;
 
-import com.smartclinic.back_end.repo.AdminRepository;
-import com.smartclinic.back_end.repo.DoctorRepository;
-import com.smartclinic.back_end.repo.PatientRepository;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
-import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 @Component // 1. @Component Annotation
 public class TokenService {
@@ -19,21 +14,22 @@ public class TokenService {
 // This allows the class to be injected into other Spring-managed components (like services or controllers) where it's needed.
 
 // 2. **Constructor Injection for Dependencies**
-// The constructor injects dependencies for `AdminRepository`, `DoctorRepository`, and `PatientRepository`,
-// allowing the service to interact with the database and validate users based on their role (admin, doctor, or patient).
+// The constructor injects the `JwtKeyRing` that signs and verifies tokens and the `TokenRevocationList` consulted on every parse.
+// No repository is needed: validating a token is purely cryptographic plus one in-memory revocation check.
 // Constructor injection ensures that the class is initialized with all required dependencies, promoting immutability and making the class testable.
 
-// 3. **getSigningKey Method**
-// This method retrieves the HMAC SHA key used to sign JWT tokens.
-// It uses the `jwt.secret` value, which is provided from an external source (like application properties).
-// The `Keys.hmacShaKeyFor()` method converts the secret key string into a valid `SecretKey` for signing and verification of JWTs.
+// 3. **Signing Keys**
+// Keys come from `JwtKeyRing`, which holds the active signing key and every key still accepted for verification.
+// Each token names its key in the `kid` header, so keys can be rotated without invalidating tokens already issued.
+// In HMAC mode the key is derived from `jwt.secret`; RS256/ES256 modes sign with a private key and publish the public half.
 
 // 4. **generateToken Method**
 // This method generates a JWT token for a user based on their email.
 // - The `subject` of the token is set to the user's email, which is used as an identifier.
 // - The `issuedAt` is set to the current date and time.
-// - The `expiration` is set to 7 days from the issue date, ensuring the token expires after one week.
-// - The token is signed using the signing key generated by `getSigningKey()`, making it secure and tamper-proof.
+// - The `expiration` is `jwt.access-ttl-minutes` after the issue date; clients renew through a refresh token (see RefreshTokenService).
+// - A random `jti` identifies the token so it can be revoked individually.
+// - The token is signed with the key ring's active key, making it secure and tamper-proof.
 // The method returns the JWT token as a string.
 
 // 5. **extractEmail Method**
@@ -44,86 +40,73 @@ public class TokenService {
 
 // 6. **validateToken Method**
 // This method validates whether a provided JWT token is valid for a specific user role (admin, doctor, or patient).
-// - It first extracts the email from the token using the `extractEmail()` method.
-// - Depending on the role (`admin`, `doctor`, or `patient`), it checks the corresponding repository (AdminRepository, DoctorRepository, or PatientRepository)
-//   to see if a user with the extracted email exists.
-// - If a match is found for the specified user role, it returns true, indicating the token is valid.
-// - If the role or user does not exist, it returns false, indicating the token is invalid.
-// - The method gracefully handles any errors by returning false if the token is invalid or an exception occurs.
-// This ensures secure access control based on the user's role and their existence in the system.
+// - The token must verify against the key ring, be unexpired and not appear in the revocation list.
+// - The `role` claim must match the requested role.
+// - Account removal revokes the user's tokens, so no repository lookup is needed per request.
+// - The method gracefully handles any errors by returning false if the token is invalid.
 
-  private final AdminRepository adminRepository;
-    private final DoctorRepository doctorRepository;
-    private final PatientRepository patientRepository;
-
-    @Value("${jwt.secret}")
-    private String secretKey;
-
-    private Key signingKey;
+    private final JwtKeyRing keyRing;
+    private final TokenRevocationList revocations;
+    private final long accessTtlMinutes;
 
     // 2. Constructor Injection for Dependencies
-    public TokenService(AdminRepository adminRepository,
-                        DoctorRepository doctorRepository,
-                        PatientRepository patientRepository) {
-        this.adminRepository = adminRepository;
-        this.doctorRepository = doctorRepository;
-        this.patientRepository = patientRepository;
-    }
-
-    // Initialize signing key once the secret key is injected
-    @PostConstruct
-    public void init() {
-        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+    public TokenService(JwtKeyRing keyRing,
+                        TokenRevocationList revocations,
+                        @Value("${jwt.access-ttl-minutes:15}") long accessTtlMinutes) {
+        this.keyRing = keyRing;
+        this.revocations = revocations;
+        this.accessTtlMinutes = accessTtlMinutes;
     }
 
     // 4. generateToken Method
-    public String generateToken(String email, String role) {
+    // The user id travels in the "uid" claim so requests can be authorized without a lookup
+    public String generateToken(String email, String role, Long userId) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + 1000L * 60 * 60 * 24 * 7); // 7 days
+        Date expiryDate = new Date(now.getTime() + accessTtlMinutes * 60_000L);
 
         return Jwts.builder()
-                .setSubject(email)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
+                .header().keyId(keyRing.getActiveKid()).and()
+                .id(UUID.randomUUID().toString())
+                .subject(email)
+                .issuedAt(now)
+                .expiration(expiryDate)
                 .claim("role", role)
-                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .claim("uid", userId)
+                .signWith(keyRing.getSigningKey(), keyRing.getAlgorithm())
                 .compact();
     }
 
-    // 5. extractEmail Method
-    public String extractEmail(String token) {
+    public long getAccessTtlSeconds() {
+        return accessTtlMinutes * 60;
+    }
+
+    // Verifies the signature, expiry and revocation state once and returns the claims, or null if the token is invalid
+    public Claims parseClaims(String token) {
+        Claims claims;
         try {
-            return Jwts.parser()
-                    .setSigningKey(signingKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getSubject();
+            claims = keyRing.getParser().parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
-            return null; // Invalid token
+            return null;
+        }
+        // Long-lived tokens from before jti existed cannot be revoked, so they are no longer accepted
+        if (claims.getId() == null || !(claims.get("uid") instanceof Number uid)) {
+            return null;
         }
+        if (revocations.isRevoked(claims.getId(), claims.get("role", String.class), uid.longValue(), claims.getIssuedAt())) {
+            return null;
+        }
+        return claims;
+    }
+
+    // 5. extractEmail Method
+    public String extractEmail(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null; // Invalid token
     }
 
     // 6. validateToken Method
     public boolean validateToken(String token, String role) {
-    try {
-        String email = extractEmail(token);
-        System.out.println("Validating token for role: " + role + ", email: " + email);
-
-        if (email == null) return false;
-
-        return switch (role.toLowerCase()) {
-            case "admin" -> adminRepository.findByUsername(email) != null;
-            case "doctor" -> doctorRepository.findByEmail(email) != null;
-            case "patient" -> patientRepository.findByEmail(email) != null;
-            default -> false;
-        };
-    } catch (Exception e) {
-        System.out.println("Token validation failed: " + e.getMessage());
-        return false;
+        Claims claims = parseClaims(token);
+        return claims != null && role != null && role.equalsIgnoreCase(claims.get("role", String.class));
     }
 }
-
-
-    
-}
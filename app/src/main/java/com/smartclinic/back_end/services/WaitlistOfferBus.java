@@ -0,0 +1,112 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.WaitlistOffer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pushes waitlist offers to the patient they were made to, over server-sent events.
+// WaitlistService publishes offers inside the transaction that holds the slot; they are sent
+// here only once it commits, so a patient is never told about a hold that was rolled back.
+// Offers are rare and tiny, so unlike SlotEventBus there is no per-subscriber buffer: a send
+// that fails just drops the stream, and the offer is still listed by GET /waitlist.
+@Component
+public class WaitlistOfferBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistOfferBus.class);
+
+    private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService deliveryPool;
+
+    @Value("${waitlist.events.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${waitlist.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public WaitlistOfferBus() {
+        this.deliveryPool = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waitlist-offers");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Returns null when the node already holds the maximum number of open streams
+    public SseEmitter subscribe(Long patientId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        subscribers.computeIfAbsent(patientId, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+
+        Runnable remove = () -> unsubscribe(patientId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(WaitlistOffer offer) {
+        Set<SseEmitter> targets = subscribers.get(offer.patientId());
+        if (targets == null) return;
+        deliveryPool.execute(() -> targets.forEach(emitter -> send(emitter, offer)));
+    }
+
+    // Replays offers still pending when a patient (re)connects
+    public void replay(SseEmitter emitter, Iterable<WaitlistOffer> offers) {
+        deliveryPool.execute(() -> offers.forEach(offer -> send(emitter, offer)));
+    }
+
+    // Comment frames keep idle connections from being closed by proxies; sent on the delivery
+    // pool so slow clients never hold up the shared scheduler thread
+    @Scheduled(fixedDelayString = "${appointment.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(emitter -> deliveryPool.execute(() -> {
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        })));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryPool.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(SseEmitter::complete));
+    }
+
+    private void send(SseEmitter emitter, WaitlistOffer offer) {
+        try {
+            emitter.send(SseEmitter.event().name("offer").id(offer.entryId().toString()).data(offer));
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping waitlist subscriber: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(Long patientId, SseEmitter emitter) {
+        Set<SseEmitter> set = subscribers.get(patientId);
+        if (set != null && set.remove(emitter)) {
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(patientId, (k, s) -> s.isEmpty() ? null : s);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.SlotEvent;
+import com.smartclinic.back_end.DTO.WaitlistOffer;
+import com.smartclinic.back_end.models.Appointment;
+import com.smartclinic.back_end.models.Doctor;
+import com.smartclinic.back_end.models.Patient;
+import com.smartclinic.back_end.models.WaitlistEntry;
+import com.smartclinic.back_end.repo.DoctorRepository;
+import com.smartclinic.back_end.repo.SlotHoldRepository;
+import com.smartclinic.back_end.repo.WaitlistEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Offers freed slots to patients waiting for a doctor, first come, first served.
+// Entries live in waitlist_entry; each node keeps the WAITING ones in per-doctor queues ordered by
+// registration time so a cancellation does not have to query for the next waiter. The queues are
+// rebuilt from the table every waitlist.resync-ms, which also picks up entries registered on other
+// nodes; the conditional WAITING -> OFFERED update keeps two nodes from offering the same entry.
+// A released slot is offered inside the transaction that freed it: the entry is claimed and the slot
+// held (slot_hold) before the cancellation commits, and the push goes out after it does.
+@Service
+public class WaitlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+
+    private static final Set<WaitlistEntry.Status> ACTIVE = EnumSet.of(WaitlistEntry.Status.WAITING, WaitlistEntry.Status.OFFERED);
+
+    private record Waiter(long id, long patientId, LocalDate fromDate, LocalDate toDate, LocalDateTime createdAt) {
+
+        private static Waiter of(WaitlistEntry entry) {
+            return new Waiter(entry.getId(), entry.getPatientId(), entry.getFromDate(), entry.getToDate(), entry.getCreatedAt());
+        }
+
+        private boolean wants(LocalDate date) {
+            return !date.isBefore(fromDate) && !date.isAfter(toDate);
+        }
+    }
+
+    private static final Comparator<Waiter> PRIORITY =
+            Comparator.comparing(Waiter::createdAt).thenComparingLong(Waiter::id);
+
+    private final WaitlistEntryRepository entryRepository;
+    private final SlotHoldRepository holdRepository;
+    private final DoctorRepository doctorRepository;
+    private final AppointmentService appointmentService;
+    private final WaitlistOfferBus offerBus;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate transactions;
+    private final Counter offeredCounter;
+    private final Counter acceptedCounter;
+    private final Counter expiredCounter;
+
+    // Replaced wholesale by resync(); an entry registered while a rebuild runs may miss the new
+    // map and is picked up again on the next one
+    private volatile Map<Long, NavigableSet<Waiter>> queues = new ConcurrentHashMap<>();
+
+    @Value("${waitlist.hold-minutes:15}")
+    private long holdMinutes;
+
+    @Value("${waitlist.min-lead-minutes:30}")
+    private long minLeadMinutes;
+
+    @Value("${waitlist.max-entries-per-patient:5}")
+    private int maxEntriesPerPatient;
+
+    @Value("${waitlist.max-days:90}")
+    private long maxDays;
+
+    public WaitlistService(WaitlistEntryRepository entryRepository,
+                           SlotHoldRepository holdRepository,
+                           DoctorRepository doctorRepository,
+                           AppointmentService appointmentService,
+                           WaitlistOfferBus offerBus,
+                           ApplicationEventPublisher events,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.entryRepository = entryRepository;
+        this.holdRepository = holdRepository;
+        this.doctorRepository = doctorRepository;
+        this.appointmentService = appointmentService;
+        this.offerBus = offerBus;
+        this.events = events;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.offeredCounter = Counter.builder("clinic.waitlist.offers")
+                .description("Freed slots held for a waitlisted patient")
+                .register(meterRegistry);
+        this.acceptedCounter = Counter.builder("clinic.waitlist.accepted")
+                .description("Waitlist offers turned into appointments")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("clinic.waitlist.expired")
+                .description("Waitlist offers that ran out and were passed on")
+                .register(meterRegistry);
+    }
+
+    // Throws IllegalArgumentException for an invalid request, IllegalStateException when the
+    // patient is already waiting for this doctor or has too many entries
+    public WaitlistEntry register(Long patientId, Long doctorId, LocalDate fromDate, LocalDate toDate) {
+        LocalDate today = LocalDate.now();
+        if (doctorId == null || fromDate == null || toDate == null) {
+            throw new IllegalArgumentException("doctorId, fromDate and toDate are required");
+        }
+        if (toDate.isBefore(fromDate) || toDate.isBefore(today)) {
+            throw new IllegalArgumentException("toDate must be today or later and not before fromDate");
+        }
+        if (toDate.isAfter(today.plusDays(maxDays))) {
+            throw new IllegalArgumentException("toDate must be within " + maxDays + " days");
+        }
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new IllegalArgumentException("Doctor not found");
+        }
+        if (entryRepository.existsByPatientIdAndDoctorIdAndStatusIn(patientId, doctorId, ACTIVE)) {
+            throw new IllegalStateException("Already on the waitlist for this doctor");
+        }
+        if (entryRepository.countByPatientIdAndStatusIn(patientId, ACTIVE) >= maxEntriesPerPatient) {
+            throw new IllegalStateException("At most " + maxEntriesPerPatient + " waitlist entries per patient");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatientId(patientId);
+        entry.setDoctorId(doctorId);
+        entry.setFromDate(fromDate.isBefore(today) ? today : fromDate);
+        entry.setToDate(toDate);
+        entry.setStatus(WaitlistEntry.Status.WAITING);
+        entry.setCreatedAt(LocalDateTime.now());
+        WaitlistEntry saved = entryRepository.save(entry);
+        queue(doctorId).add(Waiter.of(saved));
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntry> getEntries(Long patientId) {
+        return entryRepository.findByPatientIdAndStatusInOrderByCreatedAtAsc(patientId, ACTIVE);
+    }
+
+    // Opens the offer stream and replays offers the patient has not answered yet
+    public SseEmitter subscribe(Long patientId) {
+        SseEmitter emitter = offerBus.subscribe(patientId);
+        if (emitter == null) return null;
+        List<WaitlistOffer> pending = entryRepository
+                .findByPatientIdAndStatusInOrderByCreatedAtAsc(patientId, EnumSet.of(WaitlistEntry.Status.OFFERED))
+                .stream()
+                .filter(e -> e.getOfferExpiresAt().isAfter(LocalDateTime.now()))
+                .map(WaitlistService::toOffer)
+                .toList();
+        if (!pending.isEmpty()) offerBus.replay(emitter, pending);
+        return emitter;
+    }
+
+    // Books the held slot. Returns the new appointment's id; IllegalArgumentException when the
+    // entry is not the patient's, IllegalStateException when there is no live offer on it
+    @Transactional
+    public Long accept(Long entryId, Long patientId) {
+        WaitlistEntry entry = ownedEntry(entryId, patientId);
+        if (entry.getStatus() != WaitlistEntry.Status.OFFERED
+                || !entry.getOfferExpiresAt().isAfter(LocalDateTime.now())
+                || entryRepository.transition(entryId, WaitlistEntry.Status.OFFERED, WaitlistEntry.Status.ACCEPTED) == 0) {
+            throw new IllegalStateException("Offer is no longer available");
+        }
+
+        Appointment appointment = new Appointment();
+        Doctor doctor = new Doctor();
+        doctor.setId(entry.getDoctorId());
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(entry.getOfferedTime());
+        appointment.setStatus(0);
+        // The hold is this patient's, so booking passes the hold check
+        if (appointmentService.bookAppointment(appointment) != 1) {
+            throw new IllegalStateException("Offer could not be booked");
+        }
+        holdRepository.deleteByEntryId(entryId);
+        acceptedCounter.increment();
+        return appointment.getId();
+    }
+
+    // Passes the held slot to the next patient and leaves the waitlist
+    @Transactional
+    public void decline(Long entryId, Long patientId) {
+        WaitlistEntry entry = ownedEntry(entryId, patientId);
+        if (entry.getStatus() != WaitlistEntry.Status.OFFERED
+                || !release(entry, WaitlistEntry.Status.DECLINED)) {
+            throw new IllegalStateException("Offer is no longer available");
+        }
+    }
+
+    // Leaves the waitlist; a pending offer is passed on
+    @Transactional
+    public void cancel(Long entryId, Long patientId) {
+        WaitlistEntry entry = ownedEntry(entryId, patientId);
+        if (entry.getStatus() == WaitlistEntry.Status.OFFERED && release(entry, WaitlistEntry.Status.CANCELLED)) {
+            return;
+        }
+        if (entry.getStatus() != WaitlistEntry.Status.WAITING
+                || entryRepository.transition(entryId, WaitlistEntry.Status.WAITING, WaitlistEntry.Status.CANCELLED) == 0) {
+            throw new IllegalStateException("Waitlist entry is no longer active");
+        }
+        queue(entry.getDoctorId()).removeIf(w -> w.id() == entryId);
+    }
+
+    // Runs synchronously inside the transaction that freed the slot (AppointmentService cancel/update),
+    // so the hold commits or rolls back together with the cancellation
+    @EventListener
+    public void onSlotEvent(SlotEvent event) {
+        if ("released".equals(event.getType())) {
+            offer(event.getDoctorId(), event.getDate().atTime(event.getTime()));
+        }
+    }
+
+    // Offers that ran out go to the next waiter
+    @Scheduled(fixedDelayString = "${waitlist.sweep-ms:30000}")
+    public void expireOffers() {
+        List<WaitlistEntry> expired = entryRepository.findByStatusAndOfferExpiresAtBefore(
+                WaitlistEntry.Status.OFFERED, LocalDateTime.now());
+        for (WaitlistEntry entry : expired) {
+            try {
+                Boolean released = transactions.execute(status -> release(entry, WaitlistEntry.Status.EXPIRED));
+                if (Boolean.TRUE.equals(released)) expiredCounter.increment();
+            } catch (Exception e) {
+                logger.warn("Could not expire waitlist offer {}: {}", entry.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Expires entries whose range has passed and rebuilds the queues from the table
+    @Scheduled(fixedDelayString = "${waitlist.resync-ms:60000}")
+    public void resync() {
+        try {
+            entryRepository.expireWaitingBefore(LocalDate.now());
+            Map<Long, NavigableSet<Waiter>> rebuilt = new ConcurrentHashMap<>();
+            for (WaitlistEntry entry : entryRepository.findByStatusOrderByCreatedAtAscIdAsc(WaitlistEntry.Status.WAITING)) {
+                rebuilt.computeIfAbsent(entry.getDoctorId(), k -> new ConcurrentSkipListSet<>(PRIORITY)).add(Waiter.of(entry));
+            }
+            queues = rebuilt;
+        } catch (Exception e) {
+            logger.warn("Waitlist resync failed, keeping the current queues: {}", e.getMessage());
+        }
+    }
+
+    // Ends an OFFERED entry and re-offers its slot; false when it was no longer OFFERED
+    private boolean release(WaitlistEntry entry, WaitlistEntry.Status outcome) {
+        if (entryRepository.transition(entry.getId(), WaitlistEntry.Status.OFFERED, outcome) == 0) {
+            return false;
+        }
+        holdRepository.deleteByEntryId(entry.getId());
+        offer(entry.getDoctorId(), entry.getOfferedTime());
+        return true;
+    }
+
+    // Holds the slot for the first waiter whose range covers it. Waiters are removed from the
+    // in-memory queue as they are claimed; if the transaction then rolls back, resync() restores them.
+    private void offer(Long doctorId, LocalDateTime slot) {
+        LocalDateTime now = LocalDateTime.now();
+        NavigableSet<Waiter> queue = queues.get(doctorId);
+        if (queue == null || queue.isEmpty() || slot.isBefore(now.plusMinutes(minLeadMinutes))) return;
+
+        LocalDate date = slot.toLocalDate();
+        LocalDateTime expiresAt = now.plusMinutes(holdMinutes);
+        holdRepository.deleteExpired(doctorId, slot, now);
+        for (Waiter waiter : queue) {
+            if (waiter.toDate().isBefore(now.toLocalDate())) {
+                queue.remove(waiter);
+                continue;
+            }
+            if (!waiter.wants(date)) continue;
+            if (entryRepository.claimForOffer(waiter.id(), slot, expiresAt) == 0) {
+                // Offered, cancelled or expired elsewhere since the last resync
+                queue.remove(waiter);
+                continue;
+            }
+            if (holdRepository.insertIfAbsent(doctorId, slot, waiter.patientId(), waiter.id(), expiresAt) == 0) {
+                // Already held for someone else; the waiter stays first in line for the next slot
+                entryRepository.transition(waiter.id(), WaitlistEntry.Status.OFFERED, WaitlistEntry.Status.WAITING);
+                return;
+            }
+            queue.remove(waiter);
+            offeredCounter.increment();
+            events.publishEvent(new WaitlistOffer(waiter.id(), waiter.patientId(), doctorId, slot, expiresAt));
+            return;
+        }
+    }
+
+    private NavigableSet<Waiter> queue(Long doctorId) {
+        return queues.computeIfAbsent(doctorId, k -> new ConcurrentSkipListSet<>(PRIORITY));
+    }
+
+    private WaitlistEntry ownedEntry(Long entryId, Long patientId) {
+        Optional<WaitlistEntry> entry = entryRepository.findById(entryId);
+        if (entry.isEmpty() || !entry.get().getPatientId().equals(patientId)) {
+            throw new IllegalArgumentException("Waitlist entry not found");
+        }
+        return entry.get();
+    }
+
+    private static WaitlistOffer toOffer(WaitlistEntry entry) {
+        return new WaitlistOffer(entry.getId(), entry.getPatientId(), entry.getDoctorId(),
+                entry.getOfferedTime(), entry.getOfferExpiresAt());
+    }
+}
@@ -215,17 +215,61 @@ function attachHeaderButtonListeners() {
 
 // Logout function for admin/doctor
 function logout() {
-  localStorage.removeItem("userRole");
-  localStorage.removeItem("token");
+  endSession();
   window.location.href = "/index.html";
 }
 
 // Logout function for patient
 function logoutPatient() {
-  localStorage.removeItem("userRole");
-  localStorage.removeItem("token");
+  endSession();
   window.location.href = "/pages/patientDashboard.html";
 }
 
+// Revokes the refresh token family and current access token on the server, then clears local state
+function endSession() {
+  const token = localStorage.getItem("token");
+  const refreshToken = localStorage.getItem("refreshToken");
+  if (token || refreshToken) {
+    fetch("/token/logout", {
+      method: "POST",
+      keepalive: true,
+      headers: token
+        ? { "Content-Type": "application/json", Authorization: `Bearer ${token}` }
+        : { "Content-Type": "application/json" },
+      body: JSON.stringify({ refreshToken })
+    }).catch(() => {});
+  }
+  ["userRole", "token", "refreshToken", "tokenExpiresAt"].forEach((key) => localStorage.removeItem(key));
+}
+
+// Access tokens expire after a few minutes; swap the refresh token for a new pair a minute before that
+function scheduleTokenRefresh() {
+  const refreshToken = localStorage.getItem("refreshToken");
+  const expiresAt = Number(localStorage.getItem("tokenExpiresAt"));
+  if (!refreshToken || !expiresAt) return;
+
+  const delay = Math.max(0, expiresAt - Date.now() - 60000);
+  setTimeout(async () => {
+    // Another tab may already have rotated the token
+    if (localStorage.getItem("refreshToken") !== refreshToken) return scheduleTokenRefresh();
+    try {
+      const response = await fetch("/token/refresh", {
+        method: "POST",
+        headers: { "Content-Type": "application/json" },
+        body: JSON.stringify({ refreshToken })
+      });
+      if (!response.ok) return;
+      const data = await response.json();
+      localStorage.setItem("token", data.token);
+      localStorage.setItem("refreshToken", data.refreshToken);
+      localStorage.setItem("tokenExpiresAt", Date.now() + data.expiresIn * 1000);
+      scheduleTokenRefresh();
+    } catch (error) {
+      console.warn("Token refresh failed:", error);
+    }
+  }, delay);
+}
+
 // Initial render
 renderHeader();
+scheduleTokenRefresh();
@@ -12,3 +12,16 @@
  */
 
 export const API_BASE_URL = "http://localhost:8080";
+
+// Headers for authenticated API calls; the backend reads the JWT from the Authorization header.
+export function authHeaders(token, extra = {}) {
+  return { ...extra, Authorization: `Bearer ${token}` };
+}
+
+// Stores a login or refresh response. Access tokens are short-lived; header.js renews them
+// with the refresh token shortly before tokenExpiresAt.
+export function saveSession(data) {
+  localStorage.setItem("token", data.token);
+  if (data.refreshToken) localStorage.setItem("refreshToken", data.refreshToken);
+  if (data.expiresIn) localStorage.setItem("tokenExpiresAt", Date.now() + data.expiresIn * 1000);
+}
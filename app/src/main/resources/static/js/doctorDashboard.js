@@ -57,6 +57,7 @@
 import { getAllAppointments } from "./services/appointmentRecordServices.js";
 import { createPatientRow } from "./components/patientRow.js";
 import { renderContent } from "./render.js"; // assumed to setup layout
+import { subscribeToDoctorDay } from "./services/slotEventServices.js";
 
 // DOM elements
 const tableBody = document.getElementById("appointmentTableBody");
@@ -67,6 +68,8 @@ const todayBtn = document.getElementById("todayBtn");
 let selectedDate = new Date().toISOString().split("T")[0]; // YYYY-MM-DD
 let token = localStorage.getItem("token");
 let patientName = null;
+let doctorId = localStorage.getItem("doctorId");
+let slotStream = null;
 
 // Update table on patient search input
 searchInput?.addEventListener("input", () => {
@@ -80,14 +83,23 @@ todayBtn?.addEventListener("click", () => {
   selectedDate = new Date().toISOString().split("T")[0];
   if (dateInput) dateInput.value = selectedDate;
   loadAppointments();
+  watchSelectedDay();
 });
 
 // Date picker change
 dateInput?.addEventListener("change", (e) => {
   selectedDate = e.target.value;
   loadAppointments();
+  watchSelectedDay();
 });
 
+// Reload only when the server pushes a change for the selected day
+function watchSelectedDay() {
+  if (!doctorId) return;
+  slotStream?.close();
+  slotStream = subscribeToDoctorDay(doctorId, selectedDate, token, loadAppointments, loadAppointments);
+}
+
 // Load appointments from API and render
 async function loadAppointments() {
   tableBody.innerHTML = "";
@@ -120,4 +132,5 @@ document.addEventListener("DOMContentLoaded", () => {
   renderContent(); // assumed helper to setup layout/header/footer
   if (dateInput) dateInput.value = selectedDate;
   loadAppointments();
+  watchSelectedDay();
 });
@@ -1,5 +1,6 @@
 // loggedPatient.js 
-import { getDoctors } from './services/doctorServices.js';
+import { getDoctors, getDoctorAvailability } from './services/doctorServices.js';
+import { subscribeToDoctorDay } from './services/slotEventServices.js';
 import { createDoctorCard } from './components/doctorCard.js';
 import { filterDoctors } from './services/doctorServices.js';
 import { bookAppointment } from './services/appointmentRecordService.js';
@@ -49,8 +50,7 @@ export function showBookingOverlay(e, doctor, patient) {
     <input class="input-field" type="email" value="${doctor.email}" disabled/>
     <input class="input-field" type="date" id="appointment-date" />
     <select class="input-field" id="appointment-time">
-      <option value="">Select time</option>
-      ${doctor.availableTimes.map(t => `<option value="${t}">${t}</option>`).join('')}
+      <option value="">Select a date first</option>
     </select>
     <button class="confirm-booking">Confirm Booking</button>
   `;
@@ -59,9 +59,39 @@ export function showBookingOverlay(e, doctor, patient) {
 
   setTimeout(() => modalApp.classList.add("active"), 600);
 
+  // The time list shows the free slots of the chosen day and follows bookings and
+  // cancellations by others through the slot event stream instead of being re-fetched
+  const dateInput = modalApp.querySelector("#appointment-date");
+  const timeSelect = modalApp.querySelector("#appointment-time");
+  let slotStream = null;
+
+  async function loadTimes() {
+    const selected = timeSelect.value;
+    const times = await getDoctorAvailability(doctor.id, dateInput.value, localStorage.getItem("token"));
+    timeSelect.innerHTML = `<option value="">${times.length ? "Select time" : "No free slots"}</option>`
+      + times.map(t => `<option value="${t}">${t}</option>`).join('');
+    if (times.includes(selected)) timeSelect.value = selected;
+  }
+
+  function onSlot(event) {
+    if (event.type === "booked") {
+      timeSelect.querySelector(`option[value="${event.time}"]`)?.remove();
+    } else if (event.type === "released") {
+      loadTimes();
+    }
+  }
+
+  dateInput.addEventListener("change", () => {
+    if (slotStream) slotStream.close();
+    slotStream = null;
+    if (!dateInput.value) return;
+    loadTimes();
+    slotStream = subscribeToDoctorDay(doctor.id, dateInput.value, localStorage.getItem("token"), onSlot, loadTimes);
+  });
+
   modalApp.querySelector(".confirm-booking").addEventListener("click", async () => {
-    const date = modalApp.querySelector("#appointment-date").value;
-    const time = modalApp.querySelector("#appointment-time").value;
+    const date = dateInput.value;
+    const time = timeSelect.value;
     const token = localStorage.getItem("token");
     const startTime = time.split('-')[0];
     const appointment = {
@@ -76,6 +106,7 @@ export function showBookingOverlay(e, doctor, patient) {
 
     if (success) {
       alert("Appointment Booked successfully");
+      if (slotStream) slotStream.close();
       ripple.remove();
       modalApp.remove();
     } else {
@@ -4,6 +4,7 @@ import { openModal } from './components/modals.js';
 import { createDoctorCard } from './components/doctorCard.js';
 import { filterDoctors } from './services/doctorServices.js';//call the same function to avoid duplication coz the functionality was same
 import { patientSignup, patientLogin } from './services/patientServices.js';
+import { saveSession } from './config/config.js';
 
 
 
@@ -121,7 +122,7 @@ window.loginPatient = async function () {
       const result = await response.json();
       console.log(result);
       selectRole('loggedPatient');
-      localStorage.setItem('token', result.token)
+      saveSession(result)
       window.location.href = '/pages/loggedPatientDashboard.html';
     } else {
       alert('❌ Invalid credentials!');
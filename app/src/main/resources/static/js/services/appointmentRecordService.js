@@ -1,11 +1,13 @@
 // appointmentRecordService.js
-import { API_BASE_URL } from "../config/config.js";
+import { API_BASE_URL, authHeaders } from "../config/config.js";
 const APPOINTMENT_API = `${API_BASE_URL}/appointments`;
 
 
 //This is for the doctor to get all the patient Appointments
 export async function getAllAppointments(date, patientName, token) {
-  const response = await fetch(`${APPOINTMENT_API}/${date}/${patientName}/${token}`);
+  const response = await fetch(`${APPOINTMENT_API}/${date}/${patientName}`, {
+    headers: authHeaders(token)
+  });
   if (!response.ok) {
     throw new Error("Failed to fetch appointments");
   }
@@ -15,11 +17,11 @@ export async function getAllAppointments(date, patientName, token) {
 
 export async function bookAppointment(appointment, token) {
   try {
-    const response = await fetch(`${APPOINTMENT_API}/${token}`, {
+    const response = await fetch(`${APPOINTMENT_API}/book`, {
       method: "POST",
-      headers: {
+      headers: authHeaders(token, {
         "Content-Type": "application/json"
-      },
+      }),
       body: JSON.stringify(appointment)
     });
 
@@ -39,11 +41,11 @@ export async function bookAppointment(appointment, token) {
 
 export async function updateAppointment(appointment, token) {
   try {
-    const response = await fetch(`${APPOINTMENT_API}/${token}`, {
+    const response = await fetch(`${APPOINTMENT_API}/update`, {
       method: "PUT",
-      headers: {
+      headers: authHeaders(token, {
         "Content-Type": "application/json"
-      },
+      }),
       body: JSON.stringify(appointment)
     });
 
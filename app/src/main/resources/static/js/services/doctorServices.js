@@ -16,7 +16,7 @@
   Purpose: Delete a specific doctor using their ID and an authentication token
 
    Use fetch() with the DELETE method
-    - The URL includes the doctor ID and token as path parameters
+    - The URL includes the doctor ID; the token is sent as a Bearer Authorization header
    Convert the response to JSON
    Return an object with:
     - success: true if deletion was successful
@@ -28,7 +28,7 @@
   Purpose: Save (create) a new doctor using a POST request
 
    Use fetch() with the POST method
-    - URL includes the token in the path
+    - Send the token as a Bearer Authorization header
     - Set headers to specify JSON content type
     - Convert the doctor object to JSON in the request body
 
@@ -53,7 +53,7 @@
 */
 // doctorServices.js
 
-import { API_BASE_URL } from "../config/config.js";
+import { API_BASE_URL, authHeaders } from "../config/config.js";
 
 const DOCTOR_API = `${API_BASE_URL}/api/doctors`;
 
@@ -80,8 +80,9 @@ export async function getDoctors() {
  */
 export async function deleteDoctor(id, token) {
   try {
-    const response = await fetch(`${DOCTOR_API}/${id}/${token}`, {
+    const response = await fetch(`${DOCTOR_API}/delete/${id}`, {
       method: "DELETE",
+      headers: authHeaders(token),
     });
     const data = await response.json();
     return {
@@ -102,11 +103,11 @@ export async function deleteDoctor(id, token) {
  */
 export async function saveDoctor(doctor, token) {
   try {
-    const response = await fetch(`${DOCTOR_API}/add/${token}`, {
+    const response = await fetch(`${DOCTOR_API}/save`, {
       method: "POST",
-      headers: {
+      headers: authHeaders(token, {
         "Content-Type": "application/json",
-      },
+      }),
       body: JSON.stringify(doctor),
     });
     const data = await response.json();
@@ -120,6 +121,27 @@ export async function saveDoctor(doctor, token) {
   }
 }
 
+/**
+ * Free slot times of a doctor on a date (weekly schedule minus bookings and waitlist holds)
+ * @param {number|string} doctorId
+ * @param {string} date - yyyy-MM-dd
+ * @param {string} token - Authorization token
+ * @returns {Promise<Array<string>>} Times such as "09:00", ascending
+ */
+export async function getDoctorAvailability(doctorId, date, token) {
+  try {
+    const response = await fetch(`${API_BASE_URL}/doctor/availability/${doctorId}/${date}`, {
+      headers: authHeaders(token),
+    });
+    if (!response.ok) return [];
+    const data = await response.json();
+    return data.availability || [];
+  } catch (error) {
+    console.error("Error fetching availability:", error);
+    return [];
+  }
+}
+
 /**
  * Filter doctors by name, time, and specialty
  * @param {string} name
@@ -59,7 +59,7 @@
 // index.js
 
 import { openModal } from "./components/modals.js";
-import { API_BASE_URL } from "./config/config.js";
+import { API_BASE_URL, saveSession } from "./config/config.js";
 
 const ADMIN_API = `${API_BASE_URL}/api/admin/login`;
 const DOCTOR_API = `${API_BASE_URL}/api/doctors/login`;
@@ -96,7 +96,7 @@ window.adminLoginHandler = async () => {
 
     if (response.ok) {
       const data = await response.json();
-      localStorage.setItem("token", data.token);
+      saveSession(data);
       localStorage.setItem("userRole", "admin");
       selectRole("admin");
     } else {
@@ -126,8 +126,9 @@ window.doctorLoginHandler = async () => {
 
     if (response.ok) {
       const data = await response.json();
-      localStorage.setItem("token", data.token);
+      saveSession(data);
       localStorage.setItem("userRole", "doctor");
+      if (data.id) localStorage.setItem("doctorId", data.id);
       selectRole("doctor");
     } else {
       alert("Invalid doctor credentials.");
@@ -1,5 +1,5 @@
 // patientServices
-import { API_BASE_URL } from "../config/config.js";
+import { API_BASE_URL, authHeaders } from "../config/config.js";
 const PATIENT_API = API_BASE_URL + '/patient'
 
 
@@ -44,7 +44,7 @@ export async function patientLogin(data) {
 // For getting patient data (name ,id , etc ). Used in booking appointments
 export async function getPatientData(token) {
   try {
-    const response = await fetch(`${PATIENT_API}/${token}`);
+    const response = await fetch(`${PATIENT_API}/get`, { headers: authHeaders(token) });
     const data = await response.json();
     if (response.ok) return data.patient;
     return null;
@@ -57,7 +57,7 @@ export async function getPatientData(token) {
 // the Backend API for fetching the patient record(visible in Doctor Dashboard) and Appointments (visible in Patient Dashboard) are same based on user(patient/doctor).
 export async function getPatientAppointments(id, token, user) {
   try {
-    const response = await fetch(`${PATIENT_API}/${id}/${user}/${token}`);
+    const response = await fetch(`${PATIENT_API}/appointments/${id}`, { headers: authHeaders(token) });
     const data = await response.json();
     console.log(data.appointments)
     if (response.ok) {
@@ -73,11 +73,11 @@ export async function getPatientAppointments(id, token, user) {
 
 export async function filterAppointments(condition, name, token) {
   try {
-    const response = await fetch(`${PATIENT_API}/filter/${condition}/${name}/${token}`, {
+    const response = await fetch(`${PATIENT_API}/filterAppointments/${condition}/${name}`, {
       method: "GET",
-      headers: {
+      headers: authHeaders(token, {
         "Content-Type": "application/json",
-      },
+      }),
     });
 
     if (response.ok) {
@@ -95,3 +95,23 @@ export async function filterAppointments(condition, name, token) {
     return { appointments: [] };
   }
 }
+
+// Merged past/upcoming timeline. Without a cursor it returns the last `limit` past and the
+// next `limit` upcoming visits; pass data.beforeCursor / data.afterCursor to page further.
+export async function getPatientTimeline(token, direction = "after", cursor = null, limit = 10) {
+  try {
+    const params = new URLSearchParams({ direction, limit });
+    if (cursor) {
+      params.set("time", cursor.time);
+      params.set("id", cursor.id);
+    }
+    const response = await fetch(`${PATIENT_API}/timeline?${params}`, { headers: authHeaders(token) });
+    if (response.ok) {
+      return await response.json();
+    }
+    return { appointments: [] };
+  } catch (error) {
+    console.error("Error fetching patient timeline:", error);
+    return { appointments: [] };
+  }
+}
@@ -1,14 +1,14 @@
 // prescriptionServices.js
-import { API_BASE_URL } from '../config/config.js'
+import { API_BASE_URL, authHeaders } from '../config/config.js'
 
 const PRESCRITION_API = API_BASE_URL + "/prescription"
 export async function savePrescription(prescription, token) {
   try {
-    const response = await fetch(`${PRESCRITION_API}/${token}`, {
+    const response = await fetch(`${PRESCRITION_API}/save`, {
       method: "POST",
-      headers: {
+      headers: authHeaders(token, {
         "Content-type": "application/json"
-      },
+      }),
       body: JSON.stringify(prescription)
     });
     const result = await response.json();
@@ -22,11 +22,11 @@ export async function savePrescription(prescription, token) {
 
 export async function getPrescription(appointmentId, token) {
   try {
-    const response = await fetch(`${PRESCRITION_API}/${appointmentId}/${token}`, {
+    const response = await fetch(`${PRESCRITION_API}/${appointmentId}`, {
       method: "GET",
-      headers: {
+      headers: authHeaders(token, {
         "Content-Type": "application/json"
-      }
+      })
     });
 
     if (!response.ok) {
@@ -0,0 +1,74 @@
+// slotEventServices.js
+import { API_BASE_URL } from "../config/config.js";
+const APPOINTMENT_API = `${API_BASE_URL}/appointments`;
+const MAX_RETRY_MS = 30000;
+
+// Subscribes to slot changes for one doctor's day. onSlot receives each delta
+// ({ type: "booked" | "released" | "status", time, appointmentId, status }; patients only
+// get booked/released without the appointment); onResync is called when the server dropped
+// events or the connection was re-established, and the view should reload.
+// Returns an object whose close() ends the subscription, e.g. when the day changes.
+// The stream is read with fetch rather than EventSource so the token travels in the
+// Authorization header and never appears in the URL.
+export function subscribeToDoctorDay(doctorId, date, token, onSlot, onResync) {
+  const controller = new AbortController();
+  let retryMs = 1000;
+
+  async function connect(reconnecting) {
+    try {
+      const response = await fetch(`${APPOINTMENT_API}/stream/${doctorId}/${date}`, {
+        headers: { Authorization: `Bearer ${token}`, Accept: "text/event-stream" },
+        signal: controller.signal,
+      });
+      if (response.status === 401 || response.status === 403) {
+        console.warn("Slot event stream refused:", response.status);
+        return;
+      }
+      if (!response.ok) throw new Error(`HTTP ${response.status}`);
+      retryMs = 1000;
+      // Deltas sent while disconnected are lost
+      if (reconnecting && onResync) onResync();
+      await readEvents(response.body, (name, data) => {
+        if (name === "slot") onSlot(JSON.parse(data));
+        else if (name === "resync" && onResync) onResync();
+      });
+    } catch (error) {
+      if (controller.signal.aborted) return;
+      console.warn("Slot event stream interrupted, reconnecting:", error);
+    }
+    if (controller.signal.aborted) return;
+    setTimeout(() => connect(true), retryMs);
+    retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+  }
+
+  connect(false);
+  return { close: () => controller.abort() };
+}
+
+// Minimal text/event-stream parser: calls onEvent(name, data) for every frame that has data
+async function readEvents(body, onEvent) {
+  const reader = body.pipeThrough(new TextDecoderStream()).getReader();
+  let buffer = "";
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) return;
+    buffer += value;
+    let end;
+    while ((end = buffer.indexOf("\n\n")) >= 0) {
+      const frame = buffer.slice(0, end);
+      buffer = buffer.slice(end + 2);
+      let name = "message";
+      const data = [];
+      for (const line of frame.split("\n")) {
+        if (line.startsWith(":")) continue;
+        const colon = line.indexOf(":");
+        const field = colon < 0 ? line : line.slice(0, colon);
+        let text = colon < 0 ? "" : line.slice(colon + 1);
+        if (text.startsWith(" ")) text = text.slice(1);
+        if (field === "event") name = text;
+        else if (field === "data") data.push(text);
+      }
+      if (data.length) onEvent(name, data.join("\n"));
+    }
+  }
+}
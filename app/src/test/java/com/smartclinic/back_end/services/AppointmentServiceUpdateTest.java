@@ -0,0 +1,83 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.SlotEvent;
+import com.smartclinic.back_end.models.Appointment;
+import com.smartclinic.back_end.models.Doctor;
+import com.smartclinic.back_end.models.Patient;
+import com.smartclinic.back_end.repo.AppointmentArchiveRepository;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import com.smartclinic.back_end.repo.DoctorRepository;
+import com.smartclinic.back_end.repo.PatientRepository;
+import com.smartclinic.back_end.repo.SlotHoldRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentServiceUpdateTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.now().plusDays(3).withHour(10).withMinute(0).withSecond(0).withNano(0);
+
+    private AppointmentRepository repository;
+    private ApplicationEventPublisher events;
+    private AppointmentService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AppointmentRepository.class);
+        events = mock(ApplicationEventPublisher.class);
+        service = new AppointmentService(repository, mock(DoctorRepository.class), mock(PatientRepository.class),
+                mock(TokenService.class), mock(ScheduleSnapshotService.class), events, mock(ReportingService.class),
+                mock(AppointmentArchiveRepository.class), mock(AppointmentArchiveService.class),
+                mock(SlotHoldRepository.class));
+        when(repository.findById(1L)).thenReturn(Optional.of(appointment(7L, TIME, 0)));
+        when(repository.findByDoctorIdAndAppointmentTimeBetween(any(), any(), any())).thenReturn(List.of());
+        when(repository.saveAndFlush(any(Appointment.class))).thenAnswer(call -> call.getArgument(0));
+    }
+
+    @Test
+    void updateThatKeepsDoctorAndTimePublishesNoRelease() {
+        assertEquals("Updated successfully", service.updateAppointment(appointment(7L, TIME, 0)));
+
+        verify(events, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void movedAppointmentReleasesTheOldSlotAndBooksTheNewOne() {
+        assertEquals("Updated successfully", service.updateAppointment(appointment(7L, TIME.plusHours(2), 0)));
+
+        ArgumentCaptor<Object> published = ArgumentCaptor.forClass(Object.class);
+        verify(events, atLeastOnce()).publishEvent(published.capture());
+        List<String> slots = published.getAllValues().stream()
+                .map(e -> ((SlotEvent) e).getType() + "@" + ((SlotEvent) e).getTime())
+                .toList();
+        assertEquals(List.of("released@" + TIME.toLocalTime(), "booked@" + TIME.plusHours(2).toLocalTime()), slots);
+    }
+
+    private static Appointment appointment(Long doctorId, LocalDateTime time, int status) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Patient patient = new Patient();
+        patient.setId(3L);
+        patient.setName("Jane");
+        Appointment appointment = new Appointment();
+        appointment.setId(1L);
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(time);
+        appointment.setStatus(status);
+        return appointment;
+    }
+}
@@ -0,0 +1,56 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.SlotEvent;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentStatusSchedulerTest {
+
+    private record Slot(Long getId, Long getDoctorId, LocalDateTime getTime)
+            implements AppointmentRepository.ScheduledSlot {
+    }
+
+    @Test
+    void sweepPublishesAStatusEventPerCompletedAppointment() {
+        AppointmentRepository repository = mock(AppointmentRepository.class);
+        ReportingService reporting = mock(ReportingService.class);
+        ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+        AppointmentStatusScheduler scheduler = new AppointmentStatusScheduler(repository,
+                mock(ScheduleSnapshotService.class), reporting, mock(PlatformTransactionManager.class), events);
+        ReflectionTestUtils.setField(scheduler, "chunkSize", 10);
+
+        LocalDateTime time = LocalDateTime.of(2026, 3, 2, 9, 0);
+        when(repository.findScheduledIdsStartingBetween(any(), any(), any())).thenReturn(List.of(1L, 2L, 3L));
+        // Appointment 2 was completed by its doctor in the meantime
+        when(repository.lockScheduledByIds(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(new Slot(1L, 7L, time), new Slot(3L, 8L, time.plusHours(1))));
+        when(repository.completeScheduledByIds(List.of(1L, 3L))).thenReturn(2);
+
+        scheduler.completeEndedAppointments();
+
+        verify(reporting).completed(List.of(1L, 3L));
+        ArgumentCaptor<SlotEvent> published = ArgumentCaptor.forClass(SlotEvent.class);
+        verify(events, times(2)).publishEvent(published.capture());
+        SlotEvent second = published.getAllValues().get(1);
+        assertEquals("status", second.getType());
+        assertEquals(8L, second.getDoctorId());
+        assertEquals(time.plusHours(1).toLocalDate(), second.getDate());
+        assertEquals(time.plusHours(1).toLocalTime(), second.getTime());
+        assertEquals(3L, second.getAppointmentId());
+        assertEquals(1, second.getStatus());
+    }
+}
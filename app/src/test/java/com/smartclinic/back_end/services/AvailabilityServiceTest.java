@@ -0,0 +1,166 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.AvailabilityCalendar;
+import com.smartclinic.back_end.DTO.AvailableSlot;
+import com.smartclinic.back_end.models.Doctor;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import com.smartclinic.back_end.repo.DoctorRepository;
+import com.smartclinic.back_end.repo.SlotHoldRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AvailabilityServiceTest {
+
+    // Slots are only open after now, so every fixture starts tomorrow
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private DoctorRepository doctorRepository;
+    private AppointmentRepository appointmentRepository;
+    private SlotHoldRepository holdRepository;
+    private DoctorScheduleService scheduleService;
+    private AvailabilityService service;
+    private final Map<Long, Map<LocalDate, LocalTime[]>> schedule = new HashMap<>();
+
+    private record Slot(Long getDoctorId, LocalDateTime getTime) implements AppointmentRepository.BookedSlot {
+    }
+
+    @BeforeEach
+    void setUp() {
+        doctorRepository = mock(DoctorRepository.class);
+        appointmentRepository = mock(AppointmentRepository.class);
+        holdRepository = mock(SlotHoldRepository.class);
+        scheduleService = mock(DoctorScheduleService.class);
+        when(scheduleService.slotsOn(any(), any())).thenAnswer(call -> schedule
+                .getOrDefault(call.<Doctor>getArgument(0).getId(), Map.of())
+                .getOrDefault(call.<LocalDate>getArgument(1), new LocalTime[0]));
+        when(appointmentRepository.findBookedSlots(any(), any(), any())).thenReturn(List.of());
+        when(holdRepository.findHeldSlots(any(), any(), any(), any())).thenReturn(List.of());
+        service = new AvailabilityService(doctorRepository, appointmentRepository, holdRepository, scheduleService);
+        ReflectionTestUtils.setField(service, "maxDays", 60);
+        ReflectionTestUtils.setField(service, "maxResults", 50);
+    }
+
+    @Test
+    void nextAvailableMergesDoctorsInTimeOrderSkippingTakenSlots() {
+        Doctor first = doctor(1L);
+        Doctor second = doctor(2L);
+        when(doctorRepository.findBySpecialtyWithTimes("Cardiology")).thenReturn(List.of(first, second));
+        slots(1L, DAY, "09:00", "11:00", "13:00");
+        slots(2L, DAY, "10:00", "11:00");
+        slots(2L, DAY.plusDays(1), "08:00");
+        when(appointmentRepository.findBookedSlots(any(), any(), any()))
+                .thenReturn(List.of(new Slot(1L, DAY.atTime(11, 0))));
+        when(holdRepository.findHeldSlots(any(), any(), any(), any()))
+                .thenReturn(List.of(new Slot(2L, DAY.atTime(10, 0))));
+
+        List<AvailableSlot> slots = service.nextAvailable("Cardiology", null, 3, 10, false);
+
+        assertEquals(List.of(
+                        "1@" + DAY.atTime(9, 0),
+                        "2@" + DAY.atTime(11, 0),
+                        "1@" + DAY.atTime(13, 0),
+                        "2@" + DAY.plusDays(1).atTime(8, 0)),
+                slots.stream().map(s -> s.doctorId() + "@" + s.time()).toList());
+    }
+
+    @Test
+    void nextAvailableStopsAtLimitAndFiltersPeriod() {
+        when(doctorRepository.findBySpecialtyWithTimes("Cardiology")).thenReturn(List.of(doctor(1L)));
+        slots(1L, DAY, "09:00", "11:00", "12:00", "15:00", "16:00");
+
+        List<AvailableSlot> slots = service.nextAvailable("Cardiology", "PM", 2, 1, false);
+
+        assertEquals(1, slots.size());
+        assertEquals(DAY.atTime(12, 0), slots.get(0).time());
+    }
+
+    @Test
+    void leastLoadedBreaksTiesByTakenSlots() {
+        Doctor busy = doctor(1L);
+        Doctor idle = doctor(2L);
+        when(doctorRepository.findBySpecialtyWithTimes("Cardiology")).thenReturn(List.of(busy, idle));
+        slots(1L, DAY, "08:00", "09:00", "10:00");
+        slots(2L, DAY, "10:00");
+        when(appointmentRepository.findBookedSlots(any(), any(), any()))
+                .thenReturn(List.of(new Slot(1L, DAY.atTime(8, 0)), new Slot(1L, DAY.atTime(9, 0))));
+
+        assertEquals(List.of(1L, 2L), service.nextAvailable("Cardiology", null, 2, 2, false).stream()
+                .map(AvailableSlot::doctorId).toList());
+        assertEquals(List.of(2L, 1L), service.nextAvailable("Cardiology", null, 2, 2, true).stream()
+                .map(AvailableSlot::doctorId).toList());
+    }
+
+    @Test
+    void calendarEncodesOpenSlotsOfEachDayOverTheirUnion() {
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor(1L)));
+        slots(1L, DAY, "09:00", "10:00", "14:00");
+        slots(1L, DAY.plusDays(1), "10:00", "16:00");
+        when(appointmentRepository.findBookedSlots(any(), any(), any()))
+                .thenReturn(List.of(new Slot(1L, DAY.atTime(10, 0))));
+        when(holdRepository.findHeldSlots(any(), any(), any(), any()))
+                .thenReturn(List.of(new Slot(1L, DAY.plusDays(1).atTime(16, 0))));
+
+        AvailabilityCalendar calendar = service.calendar(1L, DAY, 3);
+
+        assertEquals(DAY.plusDays(2), calendar.to());
+        assertEquals(List.of(LocalTime.of(9, 0), LocalTime.of(10, 0), LocalTime.of(14, 0), LocalTime.of(16, 0)),
+                calendar.slots());
+        // Day 1: 09:00 and 14:00 (bits 0, 2); day 2: 10:00 (bit 1); day 3: no slots
+        assertEquals(List.of("5", "2", "0"), calendar.free());
+    }
+
+    @Test
+    void calendarBitmapIsLeastSignificantFirstAcrossBytes() {
+        when(doctorRepository.findById(1L)).thenReturn(Optional.of(doctor(1L)));
+        String[] times = new String[10];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = String.format("%02d:00", 8 + i);
+        }
+        slots(1L, DAY, times);
+        List<AppointmentRepository.BookedSlot> booked = new ArrayList<>();
+        for (int i = 1; i < 9; i++) {
+            booked.add(new Slot(1L, DAY.atTime(8 + i, 0)));
+        }
+        when(appointmentRepository.findBookedSlots(any(), any(), any())).thenReturn(booked);
+
+        // Slots 0 (08:00) and 9 (17:00) open
+        assertEquals(List.of("201"), service.calendar(1L, DAY, 1).free());
+    }
+
+    @Test
+    void calendarOfUnknownDoctorIsNull() {
+        when(doctorRepository.findById(5L)).thenReturn(Optional.empty());
+
+        assertNull(service.calendar(5L, DAY, 7));
+    }
+
+    private void slots(Long doctorId, LocalDate date, String... times) {
+        schedule.computeIfAbsent(doctorId, k -> new HashMap<>())
+                .put(date, Arrays.stream(times).map(LocalTime::parse).toArray(LocalTime[]::new));
+    }
+
+    private static Doctor doctor(Long id) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setName("Dr " + id);
+        doctor.setSpecialty("Cardiology");
+        return doctor;
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartclinic.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartclinic.back_end.DTO.ImportReport;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PasswordService passwordService;
+    private BulkImportService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        passwordService = mock(PasswordService.class);
+        when(passwordService.encodeIfNeeded(anyString())).thenAnswer(call -> "hashed:" + call.getArgument(0));
+        service = new BulkImportService(jdbcTemplate, mock(PlatformTransactionManager.class), new ObjectMapper(),
+                mock(Validator.class), passwordService, mock(DoctorService.class), 0);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "maxErrors", 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void duplicatesAreRejectedBeforeTheirPasswordsAreHashed() throws Exception {
+        when(jdbcTemplate.queryForList(eq("SELECT LOWER(email) FROM patient"), eq(String.class)))
+                .thenReturn(List.of("taken@clinic.test"));
+        String rows = """
+                {"name":"Ann","email":"ann@clinic.test","phone":"5550001111","password":"first"}
+                {"name":"Ann","email":"ANN@clinic.test","phone":"5550002222","password":"second"}
+                {"name":"Tom","email":"taken@clinic.test","phone":"5550003333","password":"third"}
+                {"name":"Sue","email":"sue@clinic.test","phone":"5550001111","password":"fourth"}
+                """;
+
+        ImportReport report = service.importPatients(
+                new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8)), BulkImportService.Format.NDJSON);
+
+        assertEquals(1L, report.imported());
+        assertEquals(3L, report.rejected());
+        verify(passwordService).encodeIfNeeded("first");
+        verify(passwordService, times(1)).encodeIfNeeded(any());
+    }
+}
@@ -0,0 +1,100 @@
+package com.smartclinic.back_end.services;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtKeyRingTest {
+
+    private static final String OLD_SECRET = "old-secret-0123456789-0123456789-0123456789";
+    private static final String NEW_SECRET = "new-secret-9876543210-9876543210-9876543210";
+
+    private static JwtKeyRing hmacRing(String activeKid, String secret, List<String> retired) {
+        return new JwtKeyRing(new DefaultResourceLoader(), "HS256", activeKid, secret, "hs-1",
+                retired, "", "", activeKid, List.of(), "");
+    }
+
+    private static String sign(JwtKeyRing ring) {
+        return Jwts.builder()
+                .header().keyId(ring.getActiveKid()).and()
+                .subject("doctor@clinic.test")
+                .signWith(ring.getSigningKey(), ring.getAlgorithm())
+                .compact();
+    }
+
+    @Test
+    void switchingActiveKidSignsWithTheNewSecretAndKeepsOldTokensValid() {
+        JwtKeyRing before = hmacRing("hs-1", OLD_SECRET, List.of());
+        String oldToken = sign(before);
+
+        JwtKeyRing after = hmacRing("hs-2", OLD_SECRET, List.of("hs-2=" + NEW_SECRET));
+        String newToken = sign(after);
+
+        assertEquals("doctor@clinic.test", after.getParser().parseSignedClaims(oldToken).getPayload().getSubject());
+        assertEquals("hs-2", after.getParser().parseSignedClaims(newToken).getHeader().getKeyId());
+        // Signed with the hs-2 secret, not with jwt.secret relabelled as hs-2
+        JwtKeyRing oldSecretAsHs2 = hmacRing("hs-1", OLD_SECRET, List.of("hs-2=" + OLD_SECRET));
+        assertThrows(SignatureException.class, () -> oldSecretAsHs2.getParser().parseSignedClaims(newToken));
+    }
+
+    @Test
+    void tokensWithoutKidVerifyAgainstJwtSecret() {
+        JwtKeyRing ring = hmacRing("hs-2", OLD_SECRET, List.of("hs-2=" + NEW_SECRET));
+        String legacy = Jwts.builder().subject("patient@clinic.test")
+                .signWith(hmacRing("hs-1", OLD_SECRET, List.of()).getSigningKey(), ring.getAlgorithm())
+                .compact();
+
+        assertEquals("patient@clinic.test", ring.getParser().parseSignedClaims(legacy).getPayload().getSubject());
+    }
+
+    @Test
+    void activeKidWithoutKeyFailsStartup() {
+        assertThrows(IllegalStateException.class, () -> hmacRing("hs-2", OLD_SECRET, List.of()));
+    }
+
+    @Test
+    void kidConfiguredTwiceFailsStartup() {
+        assertThrows(IllegalStateException.class, () -> hmacRing("hs-1", OLD_SECRET, List.of("hs-1=" + NEW_SECRET)));
+    }
+
+    @Test
+    void asymmetricRingSignsOnlyWithTheConfiguredPair() {
+        JwtKeyRing ring = new JwtKeyRing(new DefaultResourceLoader(), "ES256", "es-1", OLD_SECRET, "hs-1",
+                List.of(), "", "", "es-1", List.of(), "");
+        assertEquals("es-1", ring.getParser().parseSignedClaims(sign(ring)).getHeader().getKeyId());
+
+        assertThrows(IllegalStateException.class, () -> new JwtKeyRing(new DefaultResourceLoader(), "ES256",
+                "es-2", OLD_SECRET, "hs-1", List.of(), "", "", "es-1", List.of(), ""));
+    }
+
+    @Test
+    void asymmetricRingAcceptsHmacTokensOnlyUntilTheCutoff() {
+        String hmacToken = sign(hmacRing("hs-1", OLD_SECRET, List.of()));
+
+        JwtKeyRing withinWindow = esRing(Instant.now().plusSeconds(900).toString());
+        assertEquals("doctor@clinic.test",
+                withinWindow.getParser().parseSignedClaims(hmacToken).getPayload().getSubject());
+
+        JwtKeyRing pastCutoff = esRing(Instant.now().minusSeconds(1).toString());
+        assertNull(pastCutoff.verificationKey("hs-1"));
+        assertThrows(JwtException.class, () -> pastCutoff.getParser().parseSignedClaims(hmacToken));
+
+        // No cutoff configured: the HMAC secret never verifies once the ring is asymmetric
+        assertNull(esRing("").verificationKey("hs-1"));
+        assertThrows(IllegalStateException.class, () -> esRing("next month"));
+    }
+
+    private static JwtKeyRing esRing(String acceptHmacUntil) {
+        return new JwtKeyRing(new DefaultResourceLoader(), "ES256", "es-1", OLD_SECRET, "hs-1",
+                List.of(), "", "", "es-1", List.of(), acceptHmacUntil);
+    }
+}
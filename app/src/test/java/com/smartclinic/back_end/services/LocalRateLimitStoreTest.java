@@ -0,0 +1,33 @@
+package com.smartclinic.back_end.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalRateLimitStoreTest {
+
+    @Test
+    void keysBeyondTheLimitGetTheirOwnBucket() {
+        LocalRateLimitStore store = new LocalRateLimitStore(10);
+
+        // Each key takes its single token and stays throttled for the period, so none is idle
+        for (int i = 0; i < 50; i++) {
+            assertEquals(0, store.tryAcquire("ip:" + i, 1, 60), "first attempt of key " + i);
+        }
+        assertTrue(store.size() <= 10, "map grew to " + store.size());
+    }
+
+    @Test
+    void recentlyThrottledKeysOutliveOlderOnes() {
+        LocalRateLimitStore store = new LocalRateLimitStore(10);
+        for (int i = 0; i < 10; i++) {
+            store.tryAcquire("ip:" + i, 1, 60);
+        }
+        // The newest bucket has the latest arrival time and is kept when room is made
+        store.tryAcquire("ip:new", 1, 60);
+
+        assertTrue(store.tryAcquire("ip:9", 1, 60) > 0);
+        assertTrue(store.tryAcquire("ip:new", 1, 60) > 0);
+    }
+}
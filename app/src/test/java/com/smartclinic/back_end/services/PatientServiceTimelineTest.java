@@ -0,0 +1,88 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.AppointmentDTO;
+import com.smartclinic.back_end.DTO.AppointmentTimelineResponse;
+import com.smartclinic.back_end.models.Appointment;
+import com.smartclinic.back_end.models.ArchivedAppointment;
+import com.smartclinic.back_end.repo.AppointmentArchiveRepository;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientServiceTimelineTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private AppointmentRepository appointments;
+    private AppointmentArchiveRepository archived;
+    private AppointmentArchiveService archive;
+    private PatientService service;
+
+    @BeforeEach
+    void setUp() {
+        appointments = mock(AppointmentRepository.class);
+        archived = mock(AppointmentArchiveRepository.class);
+        archive = mock(AppointmentArchiveService.class);
+        service = new PatientService(null, appointments, archived, archive, null, null);
+        when(appointments.findPatientTimelineAfter(eq(7L), any(), anyLong(), any())).thenReturn(List.of());
+        when(archive.covers(any())).thenReturn(true);
+    }
+
+    @Test
+    void shortHistoryWithoutArchivedRowsIsOldestFirst() {
+        // The repository returns the past page newest first
+        when(appointments.findPatientTimelineBefore(eq(7L), any(), anyLong(), any()))
+                .thenReturn(List.of(appointment(3L, T.minusDays(1)), appointment(1L, T.minusDays(5))));
+        when(archived.findPatientTimelineBefore(eq(7L), any(), anyLong(), any())).thenReturn(List.of());
+
+        AppointmentTimelineResponse page = timeline();
+
+        assertEquals(List.of(1L, 3L), ids(page));
+        assertEquals(1L, page.beforeCursor().id());
+        assertEquals(3L, page.afterCursor().id());
+    }
+
+    @Test
+    void archivedRowsAreMergedIntoTheSameOrder() {
+        when(appointments.findPatientTimelineBefore(eq(7L), any(), anyLong(), any()))
+                .thenReturn(List.of(appointment(5L, T.minusDays(2))));
+        when(archived.findPatientTimelineBefore(eq(7L), any(), anyLong(), any()))
+                .thenReturn(List.of(archivedAppointment(4L, T.minusDays(400)), archivedAppointment(2L, T.minusDays(800))));
+
+        AppointmentTimelineResponse page = timeline();
+
+        assertEquals(List.of(2L, 4L, 5L), ids(page));
+    }
+
+    private AppointmentTimelineResponse timeline() {
+        return (AppointmentTimelineResponse) service.getTimeline(7L, "before", null, null, 10).getBody();
+    }
+
+    private static List<Long> ids(AppointmentTimelineResponse page) {
+        return page.appointments().stream().map(AppointmentDTO::getId).toList();
+    }
+
+    private static Appointment appointment(Long id, LocalDateTime time) {
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setAppointmentTime(time);
+        return appointment;
+    }
+
+    private static ArchivedAppointment archivedAppointment(Long id, LocalDateTime time) {
+        ArchivedAppointment appointment = new ArchivedAppointment();
+        appointment.setId(id);
+        appointment.setAppointmentTime(time);
+        return appointment;
+    }
+}
@@ -0,0 +1,46 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.repo.PrescriptionOutboxRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrescriptionOutboxBackfillTest {
+
+    @Test
+    void onlyAppointmentsWithoutAnOutboxRowGetAMarker() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        PrescriptionOutboxRepository outboxRepository = mock(PrescriptionOutboxRepository.class);
+        PrescriptionOutboxBackfill backfill = new PrescriptionOutboxBackfill(mongoTemplate, outboxRepository,
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(backfill, "batchSize", 500);
+
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("prescriptions"))).thenReturn(List.of(
+                new Document("_id", "a").append("appointment_id", 10L),
+                new Document("_id", "b").append("appointment_id", 11),
+                new Document("_id", "c").append("appointment_id", 12L)));
+        // 11 was prescribed through the outbox already
+        when(outboxRepository.findAppointmentIdsIn(Set.of(10L, 11L, 12L))).thenReturn(List.of(11L));
+        when(outboxRepository.insertDeliveredMarker(anyLong(), any())).thenReturn(1);
+
+        assertEquals(2, backfill.backfill());
+        verify(outboxRepository).insertDeliveredMarker(eq(10L), any());
+        verify(outboxRepository).insertDeliveredMarker(eq(12L), any());
+        verify(outboxRepository, never()).insertDeliveredMarker(eq(11L), any());
+    }
+}
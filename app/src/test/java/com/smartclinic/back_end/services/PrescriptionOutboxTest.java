@@ -0,0 +1,128 @@
+package com.smartclinic.back_end.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.smartclinic.back_end.models.Appointment;
+import com.smartclinic.back_end.models.Doctor;
+import com.smartclinic.back_end.models.Prescription;
+import com.smartclinic.back_end.models.PrescriptionOutbox;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import com.smartclinic.back_end.repo.PrescriptionOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrescriptionOutboxTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PrescriptionOutboxRepository outboxRepository;
+    private AppointmentRepository appointmentRepository;
+    private AppointmentService appointmentService;
+    private MongoTemplate mongoTemplate;
+    private BulkWriteResult bulkResult;
+    private PrescriptionService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        outboxRepository = mock(PrescriptionOutboxRepository.class);
+        appointmentRepository = mock(AppointmentRepository.class);
+        appointmentService = mock(AppointmentService.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        MongoGuard mongoGuard = mock(MongoGuard.class);
+        when(mongoGuard.isAvailable()).thenReturn(true);
+        when(mongoGuard.call(any())).thenAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call());
+
+        BulkOperations bulk = mock(BulkOperations.class);
+        bulkResult = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Prescription.class))).thenReturn(bulk);
+        when(mongoTemplate.getConverter()).thenReturn(mock(MongoConverter.class));
+        when(bulk.execute()).thenReturn(bulkResult);
+
+        service = new PrescriptionService(null, outboxRepository, appointmentRepository, appointmentService,
+                mock(MedicationCatalogService.class), mongoTemplate, mongoGuard, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "relayBatchSize", 200);
+    }
+
+    @Test
+    void secondPrescriptionIsRejectedWhileTheMarkerRowExists() {
+        Doctor doctor = new Doctor();
+        doctor.setId(4L);
+        Appointment appointment = new Appointment();
+        appointment.setId(10L);
+        appointment.setDoctor(doctor);
+        when(appointmentRepository.findById(10L)).thenReturn(Optional.of(appointment));
+        // A purged row still exists, only its payload is gone
+        when(outboxRepository.existsByAppointmentId(10L)).thenReturn(true);
+
+        assertEquals(HttpStatus.BAD_REQUEST, service.savePrescription(prescription(10L, "Ibuprofen"), 4L).getStatusCode());
+        verify(outboxRepository, never()).saveAndFlush(any());
+        verify(appointmentService, never()).changeStatus(anyInt(), anyLong());
+    }
+
+    @Test
+    void redeliveredIdenticalRowsAreStampedDelivered() throws Exception {
+        List<PrescriptionOutbox> batch = List.of(entry(1L, 10L, "Ibuprofen"), entry(2L, 11L, "Amoxicillin"));
+        when(outboxRepository.findByDeliveredAtIsNullAndConflictAtIsNullOrderByIdAsc(any())).thenReturn(batch);
+        when(bulkResult.getUpserts()).thenReturn(List.of(new BulkWriteUpsert(1, new BsonObjectId())));
+        when(mongoTemplate.find(any(Query.class), eq(Prescription.class))).thenReturn(List.of(prescription(10L, "Ibuprofen")));
+
+        service.relayOutbox();
+
+        verify(outboxRepository).markDelivered(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(outboxRepository, never()).markConflict(any(), any());
+    }
+
+    @Test
+    void rowsMatchingADifferentDocumentAreStampedConflicting() throws Exception {
+        List<PrescriptionOutbox> batch = List.of(entry(1L, 10L, "Ibuprofen"), entry(2L, 11L, "Amoxicillin"));
+        when(outboxRepository.findByDeliveredAtIsNullAndConflictAtIsNullOrderByIdAsc(any())).thenReturn(batch);
+        when(bulkResult.getUpserts()).thenReturn(List.of(new BulkWriteUpsert(1, new BsonObjectId())));
+        when(mongoTemplate.find(any(Query.class), eq(Prescription.class))).thenReturn(List.of(prescription(10L, "Paracetamol")));
+
+        service.relayOutbox();
+
+        verify(outboxRepository).markDelivered(eq(List.of(2L)), any(LocalDateTime.class));
+        verify(outboxRepository).markConflict(eq(List.of(1L)), any(LocalDateTime.class));
+    }
+
+    private PrescriptionOutbox entry(Long id, Long appointmentId, String medication) throws Exception {
+        PrescriptionOutbox entry = new PrescriptionOutbox();
+        entry.setId(id);
+        entry.setAppointmentId(appointmentId);
+        entry.setPayload(objectMapper.writeValueAsString(prescription(appointmentId, medication)));
+        entry.setCreatedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    private static Prescription prescription(Long appointmentId, String medication) {
+        Prescription prescription = new Prescription();
+        prescription.setAppointmentId(appointmentId);
+        prescription.setPatientName("Jane Doe");
+        prescription.setMedication(medication);
+        prescription.setDoctorNotes("Twice a day");
+        return prescription;
+    }
+}
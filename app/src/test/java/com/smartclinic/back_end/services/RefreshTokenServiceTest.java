@@ -0,0 +1,89 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.models.RefreshToken;
+import com.smartclinic.back_end.repo.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTest {
+
+    private RefreshTokenRepository repository;
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RefreshTokenRepository.class);
+        TokenService tokenService = mock(TokenService.class);
+        when(tokenService.generateToken("jane@example.com", "patient", 7L)).thenReturn("access");
+        service = new RefreshTokenService(repository, tokenService, mock(TokenRevocationList.class));
+        ReflectionTestUtils.setField(service, "refreshTtlDays", 14L);
+        ReflectionTestUtils.setField(service, "reuseGraceSeconds", 10L);
+    }
+
+    @Test
+    void unusedTokenIsRotatedWithinItsFamily() {
+        when(repository.findByTokenHash(anyString())).thenReturn(stored(null));
+        when(repository.revokeIfActive(eq(1L), any())).thenReturn(1);
+
+        Map<String, Object> tokens = service.rotate("raw");
+
+        assertNotNull(tokens);
+        assertEquals("access", tokens.get("token"));
+        verify(repository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void losingAConcurrentRotationIssuesNothing() {
+        // Both requests read the token as unused; the other one's update landed first
+        when(repository.findByTokenHash(anyString())).thenReturn(stored(null));
+        when(repository.revokeIfActive(eq(1L), any())).thenReturn(0);
+
+        assertNull(service.rotate("raw"));
+        verify(repository, never()).save(any(RefreshToken.class));
+        verify(repository, never()).revokeFamily(anyString(), any());
+    }
+
+    @Test
+    void reuseAfterTheGraceRevokesTheFamily() {
+        when(repository.findByTokenHash(anyString())).thenReturn(stored(LocalDateTime.now().minusMinutes(5)));
+
+        assertNull(service.rotate("raw"));
+        verify(repository).revokeFamily(eq("family"), any());
+        verify(repository, never()).revokeIfActive(any(), any());
+    }
+
+    @Test
+    void reuseWithinTheGraceIsNotTreatedAsTheft() {
+        when(repository.findByTokenHash(anyString())).thenReturn(stored(LocalDateTime.now().minusSeconds(2)));
+
+        assertNull(service.rotate("raw"));
+        verify(repository, never()).revokeFamily(anyString(), any());
+    }
+
+    private static RefreshToken stored(LocalDateTime revokedAt) {
+        RefreshToken token = new RefreshToken();
+        token.setId(1L);
+        token.setFamilyId("family");
+        token.setUserId(7L);
+        token.setRole("patient");
+        token.setSubject("jane@example.com");
+        token.setExpiresAt(LocalDateTime.now().plusDays(1));
+        token.setRevokedAt(revokedAt);
+        return token;
+    }
+}
@@ -0,0 +1,128 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.models.AppointmentDailyRollup;
+import com.smartclinic.back_end.repo.AppointmentArchiveRepository;
+import com.smartclinic.back_end.repo.AppointmentDailyRollupRepository;
+import com.smartclinic.back_end.repo.AppointmentMonthlyRollupRepository;
+import com.smartclinic.back_end.repo.AppointmentRepository;
+import com.smartclinic.back_end.repo.ReportMonthRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReportingServiceTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2026, 3);
+    private static final LocalDate FIRST = MONTH.atDay(1);
+
+    private AppointmentDailyRollupRepository dailyRepository;
+    private AppointmentMonthlyRollupRepository monthlyRepository;
+    private AppointmentRepository appointmentRepository;
+    private ReportMonthRepository reportMonthRepository;
+    private ReportingService service;
+
+    @BeforeEach
+    void setUp() {
+        dailyRepository = mock(AppointmentDailyRollupRepository.class);
+        monthlyRepository = mock(AppointmentMonthlyRollupRepository.class);
+        appointmentRepository = mock(AppointmentRepository.class);
+        reportMonthRepository = mock(ReportMonthRepository.class);
+        service = new ReportingService(dailyRepository, monthlyRepository, appointmentRepository,
+                mock(AppointmentArchiveRepository.class), mock(AppointmentArchiveService.class),
+                reportMonthRepository, mock(PlatformTransactionManager.class), 2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void rebuildUpsertsInDoctorOrderAndDropsOnlyStaleRows() {
+        when(dailyRepository.findByDayBetweenOrderByDayAscDoctorIdAsc(any(), any())).thenAnswer(call -> {
+            LocalDate from = call.getArgument(0);
+            // Two partitions see doctor 9, one of them doctor 3 as well
+            if (from.equals(FIRST)) return List.of(daily(from, 9L, 2, 1, 0), daily(from, 3L, 1, 0, 1));
+            if (from.equals(MONTH.atDay(16))) return List.of(daily(from, 9L, 1, 0, 0));
+            return List.of();
+        });
+
+        assertEquals(2, service.rebuildMonth(MONTH, false));
+
+        InOrder order = inOrder(monthlyRepository);
+        order.verify(monthlyRepository).upsert(FIRST, 3L, "Cardiology", 1, 0, 1);
+        order.verify(monthlyRepository).upsert(FIRST, 9L, "Cardiology", 3, 1, 0);
+        order.verify(monthlyRepository).deleteByMonthExcept(FIRST, Set.of(3L, 9L));
+        verify(monthlyRepository, never()).deleteByMonth(any());
+    }
+
+    @Test
+    void emptyMonthClearsItsRows() {
+        when(dailyRepository.findByDayBetweenOrderByDayAscDoctorIdAsc(any(), any())).thenReturn(List.of());
+
+        assertEquals(0, service.rebuildMonth(MONTH, false));
+
+        verify(monthlyRepository).deleteByMonth(FIRST);
+        verify(monthlyRepository, never()).upsert(any(), anyLong(), anyString(), anyInt(), anyInt(), anyInt());
+        verify(monthlyRepository, never()).deleteByMonthExcept(eq(FIRST), any());
+    }
+
+    @Test
+    void readingAnUnbuiltPastMonthRecountsItOnce() {
+        when(dailyRepository.findByDayBetweenOrderByDayAscDoctorIdAsc(any(), any())).thenReturn(List.of());
+        when(appointmentRepository.countByDayAndDoctor(any(), any())).thenReturn(List.of());
+
+        YearMonth past = YearMonth.now().minusMonths(2);
+        LocalDate first = past.atDay(1);
+
+        service.monthlyReport(past, false);
+
+        // Every partition clears its days before writing the recounted values
+        verify(dailyRepository).zeroCounts(eq(first), any());
+        verify(dailyRepository).zeroCounts(any(), eq(past.atEndOfMonth()));
+        verify(reportMonthRepository).markRebuilt(eq(first), eq(true), any());
+
+        when(reportMonthRepository.existsById(first)).thenReturn(true);
+        service.monthlyReport(past, false);
+        verify(reportMonthRepository).markRebuilt(any(), anyBoolean(), any());
+    }
+
+    @Test
+    void futureMonthsAreNotBuiltOnRead() {
+        service.monthlyReport(YearMonth.now().plusMonths(2), true);
+
+        verify(reportMonthRepository, never()).markRebuilt(any(), anyBoolean(), any());
+        verify(dailyRepository, never()).findByDayBetweenOrderByDayAscDoctorIdAsc(any(), any());
+    }
+
+    private static AppointmentDailyRollup daily(LocalDate day, Long doctorId, int booked, int completed, int cancelled) {
+        AppointmentDailyRollup row = new AppointmentDailyRollup();
+        row.setDay(day);
+        row.setDoctorId(doctorId);
+        row.setSpecialty("Cardiology");
+        row.setBooked(booked);
+        row.setCompleted(completed);
+        row.setCancelled(cancelled);
+        return row;
+    }
+}
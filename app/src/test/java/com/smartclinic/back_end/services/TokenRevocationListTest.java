@@ -0,0 +1,59 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.models.TokenRevocation;
+import com.smartclinic.back_end.repo.TokenRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationListTest {
+
+    private TokenRevocationRepository repository;
+    private TokenRevocationList list;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TokenRevocationRepository.class);
+        when(repository.findByRevokedAtAfterOrderByIdAsc(any())).thenReturn(List.of());
+        list = new TokenRevocationList(repository, 15, 1000, 0.001, 120_000);
+        list.load();
+    }
+
+    @Test
+    void revocationCommittedAfterAPollIsPickedUpByTheNext() {
+        LocalDateTime beforeFirstPoll = LocalDateTime.now().minusSeconds(30);
+        list.poll();
+        // Written by a transaction that started before the poll and committed after it
+        when(repository.findByRevokedAtAfterOrderByIdAsc(any()))
+                .thenReturn(List.of(new TokenRevocation("u:doctor:4", beforeFirstPoll)));
+
+        list.poll();
+
+        assertTrue(list.isRevoked(null, "doctor", 4L, new Date(System.currentTimeMillis() - 60_000)));
+        assertFalse(list.isRevoked(null, "doctor", 4L, new Date(System.currentTimeMillis() + 5_000)));
+    }
+
+    @Test
+    void everyPollReadsBackOverTheOverlap() {
+        list.poll();
+        list.poll();
+
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository, times(3)).findByRevokedAtAfterOrderByIdAsc(since.capture());
+        LocalDateTime lastPoll = since.getAllValues().get(2);
+        assertTrue(lastPoll.isBefore(LocalDateTime.now().minusSeconds(110)));
+        assertTrue(lastPoll.isAfter(LocalDateTime.now().minusSeconds(130)));
+    }
+}
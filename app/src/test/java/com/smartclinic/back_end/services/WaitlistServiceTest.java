@@ -0,0 +1,167 @@
+package com.smartclinic.back_end.services;
+
+import com.smartclinic.back_end.DTO.SlotEvent;
+import com.smartclinic.back_end.DTO.WaitlistOffer;
+import com.smartclinic.back_end.models.Appointment;
+import com.smartclinic.back_end.models.WaitlistEntry;
+import com.smartclinic.back_end.repo.DoctorRepository;
+import com.smartclinic.back_end.repo.SlotHoldRepository;
+import com.smartclinic.back_end.repo.WaitlistEntryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WaitlistServiceTest {
+
+    private static final long DOCTOR = 3L;
+    private static final LocalDateTime SLOT = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.HOURS);
+
+    private WaitlistEntryRepository entries;
+    private SlotHoldRepository holds;
+    private AppointmentService appointmentService;
+    private ApplicationEventPublisher events;
+    private WaitlistService service;
+
+    @BeforeEach
+    void setUp() {
+        entries = mock(WaitlistEntryRepository.class);
+        holds = mock(SlotHoldRepository.class);
+        appointmentService = mock(AppointmentService.class);
+        events = mock(ApplicationEventPublisher.class);
+        DoctorRepository doctors = mock(DoctorRepository.class);
+        when(doctors.existsById(DOCTOR)).thenReturn(true);
+        when(entries.save(any(WaitlistEntry.class))).thenAnswer(invocation -> {
+            WaitlistEntry entry = invocation.getArgument(0);
+            if (entry.getId() == null) entry.setId(entry.getPatientId() * 10);
+            return entry;
+        });
+
+        service = new WaitlistService(entries, holds, doctors, appointmentService,
+                mock(WaitlistOfferBus.class), events, mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "holdMinutes", 15L);
+        ReflectionTestUtils.setField(service, "minLeadMinutes", 30L);
+        ReflectionTestUtils.setField(service, "maxEntriesPerPatient", 5);
+        ReflectionTestUtils.setField(service, "maxDays", 90L);
+    }
+
+    @Test
+    void releasedSlotIsOfferedToTheFirstWaiterWhoseRangeCoversIt() {
+        LocalDate today = LocalDate.now();
+        service.register(1L, DOCTOR, today, today.plusDays(1));       // registered first, range ends too early
+        service.register(2L, DOCTOR, today, today.plusDays(5));
+        service.register(4L, DOCTOR, today, today.plusDays(5));
+        when(entries.claimForOffer(eq(20L), eq(SLOT), any())).thenReturn(1);
+        when(holds.insertIfAbsent(eq(DOCTOR), eq(SLOT), eq(2L), eq(20L), any())).thenReturn(1);
+
+        service.onSlotEvent(released());
+
+        ArgumentCaptor<WaitlistOffer> offer = ArgumentCaptor.forClass(WaitlistOffer.class);
+        verify(events).publishEvent(offer.capture());
+        assertEquals(2L, offer.getValue().patientId());
+        assertEquals(SLOT, offer.getValue().slotTime());
+        verify(entries, never()).claimForOffer(eq(10L), any(), any());
+        verify(entries, never()).claimForOffer(eq(40L), any(), any());
+    }
+
+    @Test
+    void slotThatIsAlreadyHeldLeavesTheWaiterWaiting() {
+        LocalDate today = LocalDate.now();
+        service.register(2L, DOCTOR, today, today.plusDays(5));
+        when(entries.claimForOffer(eq(20L), eq(SLOT), any())).thenReturn(1);
+        when(holds.insertIfAbsent(anyLong(), any(), anyLong(), anyLong(), any())).thenReturn(0);
+
+        service.onSlotEvent(released());
+
+        verify(entries).transition(20L, WaitlistEntry.Status.OFFERED, WaitlistEntry.Status.WAITING);
+        verify(events, never()).publishEvent(any(WaitlistOffer.class));
+    }
+
+    @Test
+    void acceptingALiveOfferBooksTheSlotAndDropsTheHold() {
+        when(entries.findById(20L)).thenReturn(Optional.of(offered(20L, 2L, LocalDateTime.now().plusMinutes(10))));
+        when(entries.transition(20L, WaitlistEntry.Status.OFFERED, WaitlistEntry.Status.ACCEPTED)).thenReturn(1);
+        when(appointmentService.bookAppointment(any(Appointment.class))).thenReturn(1);
+
+        service.accept(20L, 2L);
+
+        ArgumentCaptor<Appointment> booked = ArgumentCaptor.forClass(Appointment.class);
+        verify(appointmentService).bookAppointment(booked.capture());
+        assertEquals(SLOT, booked.getValue().getAppointmentTime());
+        assertEquals(DOCTOR, booked.getValue().getDoctor().getId());
+        verify(holds).deleteByEntryId(20L);
+    }
+
+    @Test
+    void acceptFailsWhenTheSlotWasBookedMeanwhile() {
+        when(entries.findById(20L)).thenReturn(Optional.of(offered(20L, 2L, LocalDateTime.now().plusMinutes(10))));
+        when(entries.transition(20L, WaitlistEntry.Status.OFFERED, WaitlistEntry.Status.ACCEPTED)).thenReturn(1);
+        // uk_appointment_doctor_time rejected the insert
+        when(appointmentService.bookAppointment(any(Appointment.class))).thenReturn(-2);
+
+        assertThrows(IllegalStateException.class, () -> service.accept(20L, 2L));
+        verify(holds, never()).deleteByEntryId(anyLong());
+    }
+
+    @Test
+    void expiredOfferCannotBeAccepted() {
+        when(entries.findById(20L)).thenReturn(Optional.of(offered(20L, 2L, LocalDateTime.now().minusMinutes(1))));
+
+        assertThrows(IllegalStateException.class, () -> service.accept(20L, 2L));
+        verify(appointmentService, never()).bookAppointment(any());
+    }
+
+    @Test
+    void expiredOfferIsPassedToTheNextWaiter() {
+        service.register(4L, DOCTOR, LocalDate.now(), LocalDate.now().plusDays(5));
+        WaitlistEntry stale = offered(20L, 2L, LocalDateTime.now().minusMinutes(1));
+        when(entries.findByStatusAndOfferExpiresAtBefore(eq(WaitlistEntry.Status.OFFERED), any())).thenReturn(List.of(stale));
+        when(entries.transition(20L, WaitlistEntry.Status.OFFERED, WaitlistEntry.Status.EXPIRED)).thenReturn(1);
+        when(entries.claimForOffer(eq(40L), eq(SLOT), any())).thenReturn(1);
+        when(holds.insertIfAbsent(eq(DOCTOR), eq(SLOT), eq(4L), eq(40L), any())).thenReturn(1);
+
+        service.expireOffers();
+
+        verify(holds).deleteByEntryId(20L);
+        ArgumentCaptor<WaitlistOffer> offer = ArgumentCaptor.forClass(WaitlistOffer.class);
+        verify(events).publishEvent(offer.capture());
+        assertEquals(4L, offer.getValue().patientId());
+    }
+
+    private static SlotEvent released() {
+        return new SlotEvent("released", DOCTOR, SLOT.toLocalDate(), SLOT.toLocalTime(), 99L, 0);
+    }
+
+    private static WaitlistEntry offered(Long id, Long patientId, LocalDateTime expiresAt) {
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setId(id);
+        entry.setPatientId(patientId);
+        entry.setDoctorId(DOCTOR);
+        entry.setFromDate(LocalDate.now());
+        entry.setToDate(LocalDate.now().plusDays(5));
+        entry.setStatus(WaitlistEntry.Status.OFFERED);
+        entry.setOfferedTime(SLOT);
+        entry.setOfferExpiresAt(expiresAt);
+        entry.setCreatedAt(LocalDateTime.now().minusDays(1));
+        return entry;
+    }
+}